@@ -56,8 +56,8 @@ public class AppInitializer extends AbstractAnnotationConfigDispatcherServletIni
     }
 
     private static final String LOCATION = "C:/temp/"; // Temporary location where files will be stored
-    private static final long MAX_FILE_SIZE = 2242880; // 5MB
-    private static final long MAX_REQUEST_SIZE = 20971520; // 20MB
+    private static final long MAX_FILE_SIZE = 104857600; // 100MB
+    private static final long MAX_REQUEST_SIZE = 104857600; // 100MB
     private static final int FILE_SIZE_THRESHOLD = 0; // Size threshold after which files will be written to disk
 
 }
\ No newline at end of file
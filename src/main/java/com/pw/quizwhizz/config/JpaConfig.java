@@ -76,6 +76,7 @@ public class JpaConfig {
         dataSource.addConnectionProperty("useJDBCCompliantTimezoneShift", "true");
         dataSource.addConnectionProperty("useLegacyDatetimeCode", "false");
         dataSource.addConnectionProperty("serverTimezone", "UTC");
+        dataSource.addConnectionProperty("rewriteBatchedStatements", "true");  // wysylanie paczek INSERT jako jednego zapytania
         return dataSource;
     }
 
@@ -100,6 +101,18 @@ public class JpaConfig {
         properties.setProperty("hibernate.connection.CharSet", "utf-8");
         properties.setProperty("hibernate.connection.characterEncoding", "UTF-8");
         properties.setProperty("hibernate.connection.useUnicode", "true");
+        // zapisy wysylane paczkami (id encji przydzielane z puli generatora tabelowego, a nie przez IDENTITY)
+        properties.setProperty("hibernate.jdbc.batch_size", "50");
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
+        properties.setProperty("hibernate.jdbc.batch_versioned_data", "true");
+        // pamięc podręczna drugiego poziomu (Ehcache w procesie aplikacji, konfiguracja regionow w ehcache.xml)
+        properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+        properties.setProperty("hibernate.cache.use_query_cache", "true");
+        properties.setProperty("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.SingletonEhCacheRegionFactory");
+        properties.setProperty("net.sf.ehcache.configurationResourceName", "/ehcache.xml");
+        properties.setProperty("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        properties.setProperty("hibernate.generate_statistics", "true");   // statystyki regionow dla administratora
         return properties;
     }
 
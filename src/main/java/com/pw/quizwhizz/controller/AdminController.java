@@ -1,12 +1,21 @@
 package com.pw.quizwhizz.controller;
 
 import com.pw.quizwhizz.model.account.User;
+import com.pw.quizwhizz.model.dto.ImportProgress;
+import com.pw.quizwhizz.model.dto.KeysetPage;
+import com.pw.quizwhizz.model.dto.UserListDTO;
 import com.pw.quizwhizz.model.game.Category;
+import com.pw.quizwhizz.model.game.Question;
 import com.pw.quizwhizz.service.CategoryService;
+import com.pw.quizwhizz.service.QuestionExportService;
+import com.pw.quizwhizz.service.QuestionImportService;
 import com.pw.quizwhizz.service.QuestionService;
 import com.pw.quizwhizz.service.RoleService;
 import com.pw.quizwhizz.service.UserService;
+import com.pw.quizwhizz.service.cache.QuestionBankChangedEvent;
+import com.pw.quizwhizz.service.cache.SecondLevelCacheMonitor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -16,10 +25,14 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.commons.CommonsMultipartResolver;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Kontroler obslugujacy żądania adminow aplikacji. Żądania maja prefix /admin/ dostepne jedynie dla uzytkownikow z rola admina.
@@ -28,23 +41,35 @@ import java.util.List;
 @Controller
 @RequestMapping("/admin")
 public class AdminController {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_SEARCH_RESULTS = 100;
+
     private final UserService userService;
     private final CategoryService categoryService;
     private final QuestionService questionService;
     private final RoleService roleService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SecondLevelCacheMonitor secondLevelCacheMonitor;
+    private final QuestionImportService questionImportService;
+    private final QuestionExportService questionExportService;
 
     @Autowired
-    public AdminController(UserService userService, CategoryService categoryService, QuestionService questionService, RoleService roleService) {
+    public AdminController(UserService userService, CategoryService categoryService, QuestionService questionService, RoleService roleService, ApplicationEventPublisher eventPublisher, SecondLevelCacheMonitor secondLevelCacheMonitor, QuestionImportService questionImportService, QuestionExportService questionExportService) {
         this.userService = userService;
         this.categoryService = categoryService;
         this.questionService = questionService;
         this.roleService = roleService;
+        this.eventPublisher = eventPublisher;
+        this.secondLevelCacheMonitor = secondLevelCacheMonitor;
+        this.questionImportService = questionImportService;
+        this.questionExportService = questionExportService;
     }
 
     @Bean(name = "multipartResolver")
     public CommonsMultipartResolver getCommonsMultipartResolver() {
         CommonsMultipartResolver multipartResolver = new CommonsMultipartResolver();
-        multipartResolver.setMaxUploadSize(20971520);   // 20MB
+        multipartResolver.setMaxUploadSize(104857600);  // 100MB
         multipartResolver.setMaxInMemorySize(1048576);  // 1MB
         return multipartResolver;
     }
@@ -121,6 +146,7 @@ public class AdminController {
             @RequestParam String inputAnswer4,
             @RequestParam String answerCorrect) {
         questionService.addQuestion(categoryId, inputQuestion, inputAnswer1, inputAnswer2, inputAnswer3, inputAnswer4, answerCorrect);
+        publishQuestionBankChanged(Long.parseLong(categoryId));
         return "redirect:adminadd";
     }
 
@@ -143,6 +169,7 @@ public class AdminController {
     @GetMapping("/category/delete/{categoryId}")
     public String categoryDelete(@PathVariable String categoryId) {
         categoryService.deleteById(Long.parseLong(categoryId));
+        publishQuestionBankChanged(Long.parseLong(categoryId));
         return "redirect:/admin/listcategory";
     }
 
@@ -186,6 +213,7 @@ public class AdminController {
             else{
                 categoryService.updateCategory(category);
             }
+            publishQuestionBankChanged(category.getId());
             return "redirect:/admin/listcategory";
         }
     }
@@ -193,17 +221,42 @@ public class AdminController {
     /**
      * Obsluguja metode GET /listquestions/{categoryId} zawiera id kategorii, zwraca strone zawierajaca wszystkie pytania dla danej kategorii
      * @param categoryId numer id kategorii
+     * @param after id ostatniego pytania poprzedniej strony, brak dla pierwszej strony
+     * @param size liczba pytan na stronie
      * @param model zawiera liste pytan wyszukanych po id danej kategorii
      * @return zwraca strone admin_list_questions.html z lista wysztskich pytan dla danej kategorii
      */
     @GetMapping("/listquestions/{categoryId}")
-    public String listQuestion(@PathVariable String categoryId, Model model) {
+    public String listQuestion(@PathVariable String categoryId,
+                               @RequestParam(required = false) Long after,
+                               @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                               Model model) {
         Category category = categoryService.findById(Long.parseLong(categoryId));
-        model.addAttribute("questions", questionService.findAllByCategoryId(Long.parseLong(categoryId)));
+        KeysetPage<Question> page = questionService.findPageByCategoryId(Long.parseLong(categoryId), after, pageSize(size));
+        model.addAttribute("questions", page.getItems());
+        model.addAttribute("page", page);
         model.addAttribute("category", category);
         return "admin_list_questions";
     }
 
+    /**
+     * Obsluguje metode GET /searchquestions, wyszukuje pytania po tresci pytania i odpowiedzi
+     * @param query tresc zapytania, brak wyswietla pusty formularz
+     * @param limit maksymalna liczba wynikow
+     * @param model zawiera liste znalezionych pytan
+     * @return zwraca strone admin_search_questions.html z wynikami wyszukiwania
+     */
+    @GetMapping("/searchquestions")
+    public String searchQuestions(@RequestParam(name = "q", required = false) String query,
+                                  @RequestParam(defaultValue = "20") int limit,
+                                  Model model) {
+        if (query != null && !query.trim().isEmpty()) {
+            model.addAttribute("questions", questionService.searchQuestions(query, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS))));
+            model.addAttribute("query", query);
+        }
+        return "admin_search_questions";
+    }
+
     /**
      * Obsluguje metode GET /question/edit/{questionId} zawiera id pytania, zwraca strone edycji pytania
      * @param questionId numer id pytania
@@ -225,6 +278,7 @@ public class AdminController {
     public String questionDelete(@PathVariable String questionId) {
         Long idCategoryByQuestion = questionService.findById(Long.parseLong(questionId)).getCategory().getId(); //pobiera id kategorii do jakiej nalezy pytanie
         questionService.deleteById(Long.parseLong(questionId));
+        publishQuestionBankChanged(idCategoryByQuestion);
         return "redirect:/admin/listquestions/" + idCategoryByQuestion.toString();
     }
 
@@ -251,20 +305,26 @@ public class AdminController {
             @RequestParam String inputAnswer4,
             @RequestParam String answerCorrect) {
         questionService.updateQuestion(inputId, inputQuestion, inputAnswer1, inputAnswer2, inputAnswer3, inputAnswer4, answerCorrect);
+        publishQuestionBankChanged(Long.parseLong(categoryId));
 
         return "redirect:/admin/listquestions/" + categoryId;
     }
 
     /**
-     * Obsluguje metode GET /listuser, zwraca strone z lista wszystkich zarejestrowanych uzytkownikow
+     * Obsluguje metode GET /listuser, zwraca strone listy zarejestrowanych uzytkownikow (stronicowanej po id uzytkownika)
+     * @param after id ostatniego uzytkownika poprzedniej strony, brak dla pierwszej strony
+     * @param size liczba uzytkownikow na stronie
      * @param model zawiera liste uzytkownikow
      * @return zwraca strone admin_list_users.html zawierjaca liste uzytkownkow
      */
     @GetMapping("/listuser")
-    public String userList(Model model) {
-        List<User> users = userService.findAll();
-        if (!users.isEmpty())
-            model.addAttribute("users", users);
+    public String userList(@RequestParam(required = false) Long after,
+                           @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                           Model model) {
+        KeysetPage<UserListDTO> page = userService.findPage(after, pageSize(size));
+        if (!page.getItems().isEmpty())
+            model.addAttribute("users", page.getItems());
+        model.addAttribute("page", page);
         return "admin_list_users";
     }
 
@@ -321,4 +381,89 @@ public class AdminController {
             userService.removeRoleUser(userId, roles);
         return "redirect:/admin/user/edit/"+userId;
     }
+
+    /**
+     * Obsluguje metode POST /importquestions, importuje pytania z pliku CSV
+     * @param file plik CSV z pytaniami
+     * @param model zawiera raport z importu
+     * @return zwraca strone admin_import_report.html
+     */
+    @PostMapping("/importquestions")
+    public String importQuestions(@RequestParam MultipartFile file, Model model) {
+        try {
+            model.addAttribute("progress", questionImportService.importCsv(file.getOriginalFilename(), file.getInputStream()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            model.addAttribute("message", "Nie udało się odczytać pliku: '" + file.getOriginalFilename() + "'");
+        }
+        return "admin_import_report";
+    }
+
+    /**
+     * Obsluguje metode GET /import/progress, zwraca postęp ostatniego importu pytan
+     * @return postęp importu w formacie JSON
+     */
+    @GetMapping(value = "/import/progress", produces = "application/json;charset=UTF-8")
+    @ResponseBody
+    public String importProgress() {
+        ImportProgress progress = questionImportService.findCurrentProgress();
+        return progress == null ? "{}" : progress.toJson();
+    }
+
+    /**
+     * Obsluguje metode GET /export/questions, zapisuje cala baze pytan bezposrednio do odpowiedzi HTTP
+     * @param format format pliku: csv (zgodny z importem) lub jsonl (JSON Lines)
+     * @param response odpowiedz, do ktorej zapisywany jest plik
+     * @throws IOException w przypadku bledu zapisu
+     */
+    @GetMapping("/export/questions")
+    public void exportQuestions(@RequestParam(defaultValue = "csv") String format, HttpServletResponse response) throws IOException {
+        boolean jsonLines = format.equals("jsonl");
+        response.setCharacterEncoding("UTF-8");
+        response.setContentType(jsonLines ? "application/x-ndjson" : "text/csv");
+        response.setHeader("Content-Disposition", "attachment; filename=\"questions." + (jsonLines ? "jsonl" : "csv") + "\"");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        if (jsonLines)
+            questionExportService.exportJsonLines(writer);
+        else
+            questionExportService.exportCsv(writer);
+    }
+
+    /**
+     * Obsluguje metode GET /cachestats, zwraca strone ze statystykami regionow pamięci podręcznej
+     * @param model zawiera liste statystyk regionow
+     * @return zwraca strone admin_cache_stats.html
+     */
+    @GetMapping("/cachestats")
+    public String cacheStatistics(Model model) {
+        model.addAttribute("regions", secondLevelCacheMonitor.findRegionStatistics());
+        return "admin_cache_stats";
+    }
+
+    /**
+     * Obsluguje metode POST /cachestats/evict, czysci pamięc podręczna drugiego poziomu
+     * @return przekierowuje na strone ze statystykami regionow pamięci podręcznej
+     */
+    @PostMapping("/cachestats/evict")
+    public String evictCache() {
+        secondLevelCacheMonitor.evictAll();
+        return "redirect:/admin/cachestats";
+    }
+
+    /**
+     * Ogranicza rozmiar strony list w panelu administratora do przedzialu 1..MAX_PAGE_SIZE
+     * @param size rozmiar strony podany w zapytaniu
+     * @return dopuszczalny rozmiar strony
+     */
+    private int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Informuje o zmianie pytan w kategorii, np. w celu uniewaznienia przygotowanych zestawow pytan
+     * @param categoryId numer id zmienionej kategorii
+     */
+    private void publishQuestionBankChanged(long categoryId) {
+        eventPublisher.publishEvent(new QuestionBankChangedEvent(this, categoryId));
+    }
 }
@@ -1,7 +1,7 @@
 package com.pw.quizwhizz.controller;
 
 import com.pw.quizwhizz.model.dto.Ranking;
-import com.pw.quizwhizz.model.exception.IllegalNumberOfQuestionsException;
+import com.pw.quizwhizz.model.dto.RankingPeriod;
 import com.pw.quizwhizz.model.game.Category;
 import com.pw.quizwhizz.service.CategoryService;
 import com.pw.quizwhizz.service.GameService;
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.HashMap;
 import java.util.List;
@@ -43,10 +44,9 @@ public class AppController {
      * Obsluguje sciezke startowa aplikacji
      * @param model przyjmuje liste wysztskich kategorii, rozpoczate gry, ranking generalny, ranking kategori, statystyki portalu, ilosc zarejestrowanych userow
      * @return zwraca adres strony startowej index
-     * @throws IllegalNumberOfQuestionsException
      */
     @RequestMapping("/")
-    public String home(Model model) throws IllegalNumberOfQuestionsException {
+    public String home(Model model) {
         List<Category> categories = categoryService.findAll();
         Map<String, List<Ranking>> categoryRankings = new HashMap<>();
 
@@ -67,12 +67,15 @@ public class AppController {
 
     /**
      * Obsluguje sciezke do strony rankingu Top50
-     * @param model przyjmuje ranking generalny
+     * @param period okres rankingu (domyslnie ranking ogolny)
+     * @param model przyjmuje ranking wybranego okresu, wybrany okres i wszystkie okresy
      * @return zwraca adres strony user_ranking
      */
     @RequestMapping("/app/ranking")
-    public String ranking(Model model) {
-        model.addAttribute("generalRank", statService.findGeneralRank(GENERAL_RANKING_LIMIT));
+    public String ranking(@RequestParam(value = "period", defaultValue = "ALL") RankingPeriod period, Model model) {
+        model.addAttribute("generalRank", statService.findRankForPeriod(period, GENERAL_RANKING_LIMIT));
+        model.addAttribute("period", period);
+        model.addAttribute("periods", RankingPeriod.values());
         return "user_ranking";
     }
 }
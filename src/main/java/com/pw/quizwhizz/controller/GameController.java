@@ -1,16 +1,19 @@
 package com.pw.quizwhizz.controller;
 
 import com.pw.quizwhizz.model.account.User;
+import com.pw.quizwhizz.model.dto.FinalScore;
 import com.pw.quizwhizz.model.exception.IllegalNumberOfQuestionsException;
 import com.pw.quizwhizz.model.exception.IllegalTimeOfAnswerSubmissionException;
 import com.pw.quizwhizz.model.exception.ScoreCannotBeRetrievedBeforeGameIsClosedException;
 import com.pw.quizwhizz.model.game.Game;
 import com.pw.quizwhizz.model.game.Question;
-import com.pw.quizwhizz.model.game.Score;
 import com.pw.quizwhizz.service.GameService;
-import com.pw.quizwhizz.service.QuestionService;
+import com.pw.quizwhizz.service.SeenQuestionService;
 import com.pw.quizwhizz.service.UserService;
+import com.pw.quizwhizz.service.cache.QuestionPackPool;
 import com.pw.quizwhizz.service.exception.NoQuestionsInDBException;
+import com.pw.quizwhizz.service.game.GameClosureWaiters;
+import com.pw.quizwhizz.service.game.LobbyEventChannel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -19,6 +22,8 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,20 +40,27 @@ import java.util.List;
 public class GameController {
     final private GameService gameService;
     final private UserService userService;
-    final private QuestionService questionService;
+    final private QuestionPackPool questionPackPool;
+    final private LobbyEventChannel lobbyEventChannel;
+    final private SeenQuestionService seenQuestionService;
 
     /**
      * Zaleznosci kontrolera, rozwiazywane automatycznie przez Springa
      *
      * @param gameService     serwis gry stanowiacy częsc logiki biznesowej
      * @param userService     serwis uzytkownika sluzacy identyfikacji graczy
-     * @param questionService serwis pytań niezbędny do uzyskania zestawu pytań w celu stworzenia nowej instancji gry
+     * @param questionPackPool pula gotowych zestawow pytań niezbędnych do stworzenia nowej instancji gry
+     * @param lobbyEventChannel kanal zdarzen poczekalni gry
+     * @param seenQuestionService serwis pytań widzianych juz przez graczy, pomijanych przy tworzeniu gry
      */
     @Autowired
-    public GameController(GameService gameService, UserService userService, QuestionService questionService) {
+    public GameController(GameService gameService, UserService userService, QuestionPackPool questionPackPool,
+                          LobbyEventChannel lobbyEventChannel, SeenQuestionService seenQuestionService) {
         this.gameService = gameService;
         this.userService = userService;
-        this.questionService = questionService;
+        this.questionPackPool = questionPackPool;
+        this.lobbyEventChannel = lobbyEventChannel;
+        this.seenQuestionService = seenQuestionService;
     }
 
     /**
@@ -63,14 +75,14 @@ public class GameController {
      */
     @RequestMapping(value = "/open/forCategory/{categoryId}")
     public String createGame(@PathVariable String categoryId, Model model, Authentication authentication) throws IllegalNumberOfQuestionsException {
+        User user = userService.findByEmail(authentication.getName());
         List<Question> questions;
         try {
-            questions = questionService.getQuestionsForNewGame(Long.parseLong(categoryId));
+            questions = questionPackPool.takePack(Long.parseLong(categoryId), seenQuestionService.findSeenQuestions(user.getId()));
         } catch (NoQuestionsInDBException e) {
             return "redirect:/";
         }
         Game game = gameService.createGame(questions);
-        User user = userService.findByEmail(authentication.getName());
         gameService.addOwnerToGame(game, user);
 
         fillModelForOpenGamePage(model, game, true);
@@ -132,15 +144,25 @@ public class GameController {
     @ResponseBody
     public String getNamesOfPlayers(@PathVariable Long gameId) throws IllegalNumberOfQuestionsException {
         List<String> names = gameService.getNamesOfPlayersInGame(gameId);
+        return LobbyEventChannel.playersToJson(names);
+    }
 
-        String playersJson = "[";
-        for (String name : names) {
-            playersJson += "{ \"name\" : \"" + name + "\" }, ";
-        }
-        playersJson = playersJson.replaceAll(", $", "");
-        playersJson += "]";
+    /**
+     * Metoda otwierajaca strumien zdarzen (Server-Sent Events) poczekalni gry. Zaraz po polaczeniu subskrybent
+     * otrzymuje aktualna listę graczy, a jesli gra juz się rozpoczęla - zdarzenie "started".
+     *
+     * @param gameId id gry oczekujacej na start
+     * @return emiter zdarzen "players" oraz "started"
+     */
+    @RequestMapping(value = "/{gameId}/lobby", method = RequestMethod.GET, produces = "text/event-stream")
+    public SseEmitter subscribeToLobby(@PathVariable Long gameId) {
+        SseEmitter emitter = lobbyEventChannel.subscribe(gameId);
 
-        return playersJson;
+        lobbyEventChannel.sendPlayers(gameId, emitter, gameService.getNamesOfPlayersInGame(gameId));
+        if (gameService.isGameStarted(gameId)) {
+            lobbyEventChannel.sendStarted(gameId, emitter);
+        }
+        return emitter;
     }
 
     /**
@@ -230,7 +252,20 @@ public class GameController {
     @ResponseBody
     public String isGameClosed(@PathVariable Long gameId) throws IllegalNumberOfQuestionsException {
         boolean isClosed = gameService.isGameClosed(gameId);
-        return "{ \"isClosed\" : " + isClosed + " }";
+        return GameClosureWaiters.toJson(isClosed);
+    }
+
+    /**
+     * Metoda zawieszajaca zapytanie do momentu zakonczenia gry (long polling). Watek serwera jest zwalniany
+     * na czas oczekiwania; odpowiedz z wartoscia false oznacza uplyw czasu oczekiwania i koniecznosc ponowienia zapytania.
+     *
+     * @param gameId id sprawdzanej gry
+     * @return obiekt JSON skladajacy się z pola "isClosed" oraz wartosci true lub false
+     */
+    @RequestMapping(value = "/{gameId}/awaitClosed", method = RequestMethod.GET, produces = "application/json")
+    @ResponseBody
+    public DeferredResult<String> awaitGameClosed(@PathVariable Long gameId) {
+        return gameService.awaitGameClosed(gameId);
     }
 
     /**
@@ -245,7 +280,7 @@ public class GameController {
     @RequestMapping(value = "/{gameId}/checkScores")
     public String checkScores(@PathVariable Long gameId, Model model, Authentication authentication) throws ScoreCannotBeRetrievedBeforeGameIsClosedException, IllegalNumberOfQuestionsException {
         User user = userService.findByEmail(authentication.getName());
-        List<Score> scores;
+        List<FinalScore> scores;
 
         try {
             scores = gameService.checkScores(gameId);
@@ -1,6 +1,9 @@
 package com.pw.quizwhizz.controller;
 
 import com.pw.quizwhizz.model.account.User;
+import com.pw.quizwhizz.model.game.Category;
+import com.pw.quizwhizz.service.CategoryService;
+import com.pw.quizwhizz.service.StatService;
 import com.pw.quizwhizz.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -15,6 +18,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.io.File;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Kontroler funkcjonalnosci dla uzytkownikow oraz obsluga żądań dotyczacych rejestracji.
@@ -23,11 +28,18 @@ import java.io.IOException;
 @Controller
 public class UserController {
 
+	/** Liczba graczy wyswietlanych przed i za graczem we fragmencie rankingu na stronie profilowej */
+	final private static int RANK_AROUND_RADIUS = 2;
+
 	final private UserService userService;
+	final private StatService statService;
+	final private CategoryService categoryService;
 
 	@Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, StatService statService, CategoryService categoryService) {
         this.userService = userService;
+        this.statService = statService;
+        this.categoryService = categoryService;
     }
 
 	/**
@@ -100,6 +112,7 @@ public class UserController {
 		model.addAttribute("user", user);
         model.addAttribute("player", userService.findPlayerByUserId(user.getId()));
 		model.addAttribute("userAllScores", userService.findAllScoreForUser(user.getId()));
+		addRankingAttributes(user.getId(), model);
 		return "user_profile";
 	}
 
@@ -117,6 +130,7 @@ public class UserController {
 		model.addAttribute("user", user);
 		model.addAttribute("player", userService.findPlayerByUserId(user.getId()));
 		model.addAttribute("userAllScores", userService.findAllScoreForUser(user.getId()));
+		addRankingAttributes(user.getId(), model);
 		return "user_profile";
 	}
 
@@ -153,4 +167,21 @@ public class UserController {
 			return "redirect:/user/my";
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Dodaje do modelu miejsce gracza w rankingu generalnym, fragment rankingu wokol gracza oraz miejsca w rankingach kategorii
+	 * @param userId numer id uzytkownika
+	 * @param model model strony profilowej
+	 */
+	private void addRankingAttributes(long userId, Model model) {
+		Map<String, Integer> categoryRankPositions = new LinkedHashMap<>();
+		for (Map.Entry<Long, Integer> position : statService.findCategoryRankPositions(userId).entrySet()) {
+			Category category = categoryService.findById(position.getKey());
+			if (category != null)
+				categoryRankPositions.put(category.getName(), position.getValue());
+		}
+		model.addAttribute("rankPosition", statService.findGeneralRankPosition(userId));
+		model.addAttribute("rankAround", statService.findGeneralRankAround(userId, RANK_AROUND_RADIUS));
+		model.addAttribute("categoryRankPositions", categoryRankPositions);
+	}
+}
@@ -3,6 +3,10 @@ package com.pw.quizwhizz.entity.game;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -11,6 +15,8 @@ import javax.persistence.*;
  * @author Michał Nowiński
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Data
 @NoArgsConstructor
 @Table(name = "answer")
@@ -18,7 +24,12 @@ import javax.persistence.*;
 public class AnswerEntity {
     @Id
     @Column(name = "id_answer")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "answer_id")
+    @GenericGenerator(name = "answer_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+            @Parameter(name = "table_name", value = "id_generator"),
+            @Parameter(name = "segment_value", value = "answer"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled")})
     private Long id;
     @Column(columnDefinition = "TEXT", nullable = false)
     private String answer;
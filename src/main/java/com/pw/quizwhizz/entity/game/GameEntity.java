@@ -3,6 +3,8 @@ package com.pw.quizwhizz.entity.game;
 import com.pw.quizwhizz.model.game.GameState;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.Instant;
@@ -17,7 +19,12 @@ import java.time.Instant;
 @Table(name = "game")
 public class GameEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "game_id")
+    @GenericGenerator(name = "game_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+            @Parameter(name = "table_name", value = "id_generator"),
+            @Parameter(name = "segment_value", value = "game"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled")})
     Long id;
 
     @OneToOne
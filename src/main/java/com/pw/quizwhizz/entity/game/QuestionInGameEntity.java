@@ -2,25 +2,41 @@ package com.pw.quizwhizz.entity.game;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.data.domain.Persistable;
 
-import javax.persistence.Column;
-import javax.persistence.EmbeddedId;
-import javax.persistence.Entity;
-import javax.persistence.Table;
+import javax.persistence.*;
 
 /**
  * Encja QuestionInGame dostarczajaca informacji na temat pytań wylosowanych dla danej gry.
  * Okresla sekwencję, w jakiej będa się pojawiac pytania w grze.
+ * Nowe encje sa zapisywane bez wczesniejszego odczytu (klucz jest nadawany przez aplikację), dzięki czemu
+ * wiersze gry moga zostac wyslane do bazy danych jedna paczka.
  *
  * @author Karolina Prusaczyk
  */
 @Entity
 @Getter @Setter
 @Table(name = "question_in_game")
-public class QuestionInGameEntity {
+public class QuestionInGameEntity implements Persistable<QuestionInGameKey> {
+    private static final long serialVersionUID = 1L;
+
     @EmbeddedId
     private QuestionInGameKey id;
 
     @Column
     private int sequence;
+
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
 }
@@ -0,0 +1,25 @@
+package com.pw.quizwhizz.entity.game;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+/**
+ * Encja SeenQuestions przechowujaca pytania widziane juz przez gracza w postaci filtra Blooma o stalym rozmiarze
+ * (zob. {@link com.pw.quizwhizz.util.BloomFilter}), zapisanego w jednej kolumnie binarnej.
+ *
+ * @author Karolina Prusaczyk
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "seen_questions")
+public class SeenQuestionsEntity {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    @Lob
+    @Column(name = "question_bits", columnDefinition = "BLOB")
+    private byte[] questionBits;
+}
@@ -0,0 +1,23 @@
+package com.pw.quizwhizz.entity.stat;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+/**
+ * Encja oznaczajaca zamkniętą grę jako uwzględniona w zapisanej migawce statystyk portalu. Wiersze zapisywane sa
+ * w tej samej transakcji co migawka, dzięki czemu przy starcie aplikacji doliczane sa dokladnie gry spoza migawki.
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.service.cache.PortalStatistics
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "portal_statistic_game")
+public class CountedGameEntity {
+    @Id
+    @Column(name = "game_id")
+    private Long gameId;
+}
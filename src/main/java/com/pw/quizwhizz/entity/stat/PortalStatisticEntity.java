@@ -0,0 +1,29 @@
+package com.pw.quizwhizz.entity.stat;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+/**
+ * Encja przechowujaca zapisana migawkę licznikow statystyk portalu - jeden wiersz na licznik
+ * (np. liczba gier, liczba gier danej kategorii, liczba wynikow o danej liczbie punktow).
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.service.cache.PortalStatistics
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "portal_statistic")
+public class PortalStatisticEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String name;
+    @Column(name = "stat_key", nullable = false)
+    private long key;
+    @Column(name = "stat_value", nullable = false)
+    private long value;
+}
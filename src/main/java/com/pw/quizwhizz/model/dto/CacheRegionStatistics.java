@@ -0,0 +1,18 @@
+package com.pw.quizwhizz.model.dto;
+
+import lombok.Value;
+
+/**
+ * Statystyki regionu pamięci podręcznej wyswietlane w panelu administratora.
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.service.cache.SecondLevelCacheMonitor
+ */
+@Value
+public class CacheRegionStatistics {
+    private String regionName;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private long elementCount;
+}
@@ -0,0 +1,19 @@
+package com.pw.quizwhizz.model.dto;
+
+import lombok.Value;
+
+/**
+ * Niezmienny wynik gracza w zakonczonej grze, wyswietlany na stronie wynikow.
+ * Wyniki sa ustalane jednorazowo przy zamknięciu gry, a następnie jedynie odczytywane.
+ *
+ * @author Karolina Prusaczyk
+ * @see com.pw.quizwhizz.service.game.GameResultCache
+ */
+@Value
+public class FinalScore {
+    private long playerId;
+    private String playerName;
+    private int points;
+    private boolean highest;
+    private int playerXp;
+}
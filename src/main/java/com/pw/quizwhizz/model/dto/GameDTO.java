@@ -12,6 +12,9 @@ import lombok.Setter;
 public class GameDTO {
     private long gameId;
     private String categoryName;
+    private String categoryImageUrl;
+    private long ownerId;
     private String ownerName;
+    private int numberOfPlayers;
     private String displayStateName;
 }
@@ -0,0 +1,14 @@
+package com.pw.quizwhizz.model.dto;
+
+import lombok.Value;
+
+/**
+ * Klasa DTO przenoszaca wynik jednego gracza w grze wraz z kategoria gry (do odbudowy statystyk portalu).
+ * @author Michał Nowiński
+ */
+@Value
+public class GameScoreRow {
+    private long gameId;
+    private long categoryId;
+    private int points;
+}
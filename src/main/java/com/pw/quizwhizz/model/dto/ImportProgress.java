@@ -0,0 +1,82 @@
+package com.pw.quizwhizz.model.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Postęp i wynik importu pytan z pliku. Aktualizowany przez watek importu i odczytywany (np. przez zapytanie
+ * o postęp) z innych watkow.
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.service.QuestionImportService
+ */
+@Getter
+public class ImportProgress {
+    /**
+     * Maksymalna liczba zapamiętanych opisow blędow.
+     */
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private final String fileName;
+    private final List<String> errors = new CopyOnWriteArrayList<>();
+    private volatile int processedRows;
+    private volatile int importedQuestions;
+    private volatile int rejectedRows;
+    private volatile boolean finished;
+    private volatile String failure;
+
+    public ImportProgress(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public void rowProcessed() {
+        processedRows++;
+    }
+
+    public void questionsImported(int count) {
+        importedQuestions += count;
+    }
+
+    /**
+     * @param lineNumber numer wiersza pliku
+     * @param error      opis blędu
+     */
+    public void rowRejected(long lineNumber, String error) {
+        rejectedRows++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("Wiersz " + lineNumber + ": " + error);
+        }
+    }
+
+    /**
+     * Metoda odnotowujaca blad, ktory przerwal odczyt pliku. Pytania zapisane przed bledem pozostaja w bazie danych.
+     *
+     * @param lineNumber numer wiersza pliku, w ktorym wystapil blad
+     * @param error      opis blędu
+     */
+    public void failed(long lineNumber, String error) {
+        failure = "Wiersz " + lineNumber + ": " + error;
+    }
+
+    public void finish() {
+        finished = true;
+    }
+
+    /**
+     * @return postęp importu w formacie JSON
+     */
+    public String toJson() {
+        return "{ \"fileName\" : \"" + escape(fileName) + "\", " +
+                "\"processedRows\" : " + processedRows + ", " +
+                "\"importedQuestions\" : " + importedQuestions + ", " +
+                "\"rejectedRows\" : " + rejectedRows + ", " +
+                "\"failure\" : " + (failure == null ? "null" : "\"" + escape(failure) + "\"") + ", " +
+                "\"finished\" : " + finished + " }";
+    }
+
+    private static String escape(String text) {
+        return text == null ? "" : text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,28 @@
+package com.pw.quizwhizz.model.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Strona listy stronicowanej kluczem (keyset pagination). Kolejna strona pobierana jest po id ostatniego elementu
+ * strony ({@link #getNextCursor()}), a nie po numerze strony, dzięki czemu koszt odczytu nie zalezy od polozenia
+ * strony w tabeli.
+ *
+ * @param <T> typ elementow listy
+ * @author Michał Nowiński
+ */
+@Value
+public class KeysetPage<T> {
+    private List<T> items;
+    /**
+     * Id ostatniego elementu strony lub null, jesli jest to ostatnia strona.
+     */
+    private Long nextCursor;
+    private int pageSize;
+    private long totalCount;
+
+    public boolean isLast() {
+        return nextCursor == null;
+    }
+}
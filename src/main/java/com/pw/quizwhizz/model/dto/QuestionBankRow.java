@@ -0,0 +1,20 @@
+package com.pw.quizwhizz.model.dto;
+
+import lombok.Value;
+
+/**
+ * Pojedynczy wiersz eksportu bazy pytan - jedna odpowiedz wraz z pytaniem i kategoria, do ktorych nalezy.
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.repository.impl.QuestionExportRepository
+ */
+@Value
+public class QuestionBankRow {
+    private long categoryId;
+    private String categoryName;
+    private long questionId;
+    private String question;
+    private long answerId;
+    private String answer;
+    private boolean correct;
+}
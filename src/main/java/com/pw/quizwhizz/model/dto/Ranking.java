@@ -14,4 +14,5 @@ public class Ranking {
 //    int winMultiplayer; // ilosc wygranych w grze wieloosobowej
     int allPoints;
     Long userID;
+    int position; // miejsce w rankingu (od 1), uzupelniane przez rankingi przechowywane w pamięci
 }
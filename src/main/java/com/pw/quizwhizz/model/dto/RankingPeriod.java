@@ -0,0 +1,32 @@
+package com.pw.quizwhizz.model.dto;
+
+/**
+ * Enum okresow, dla ktorych wyswietlany jest ranking graczy. Okresy ruchome obejmuja podana liczbę ostatnich dni
+ * (wlacznie z dniem dzisiejszym), ranking ogolny obejmuje cala historię gier.
+ * @author Michał Nowiński
+ */
+public enum RankingPeriod {
+    ALL(0, "Ogolny"),
+    MONTH(30, "30 dni"),
+    WEEK(7, "7 dni"),
+    DAY(1, "Dzisiaj");
+
+    private int days;
+    private String label;
+
+    RankingPeriod(int days, String label) {
+        this.days = days;
+        this.label = label;
+    }
+
+    /**
+     * @return liczba ostatnich dni objętych rankingiem lub 0 dla rankingu ogolnego
+     */
+    public int getDays() {
+        return days;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pw.quizwhizz.model.dto;
+
+import lombok.Value;
+
+/**
+ * Klasa DTO przenoszaca pojedynczy licznik migawki statystyk portalu.
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.entity.stat.PortalStatisticEntity
+ */
+@Value
+public class StatisticCounter {
+    private String name;
+    private long key;
+    private long value;
+}
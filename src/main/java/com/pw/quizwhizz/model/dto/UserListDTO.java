@@ -0,0 +1,24 @@
+package com.pw.quizwhizz.model.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Klasa DTO z danymi uzytkownika wyswietlanymi na liscie uzytkownikow w panelu administratora.
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.repository.impl.UserListRepository
+ */
+@Getter @Setter
+public class UserListDTO {
+    private long id;
+    private String firstName;
+    private String email;
+    private String urlImage;
+    private Date regDate;
+    private List<String> roles = new ArrayList<>();
+}
@@ -0,0 +1,145 @@
+package com.pw.quizwhizz.model.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Klucz odpowiedzi gry, budowany jednorazowo z pytan gry. Przechowuje odpowiedzi wszystkich pytan
+ * w kolejnych "slotach" - id odpowiedzi jest mapowane na slot przez tablicę z adresowaniem otwartym (bez obiektow Long),
+ * a poprawnosc odpowiedzi zapisana jest w zbiorze bitow.
+ * Pozwala ocenic odpowiedzi gracza bez zapytan do bazy danych, odrzucajac odpowiedzi spoza gry
+ * oraz kolejne odpowiedzi na to samo pytanie.
+ *
+ * @author Karolina Prusaczyk
+ * @see Score#evaluateAnswers(List)
+ */
+public class AnswerKey {
+    private static final int EMPTY = -1;
+
+    private final long[] keys;
+    private final int[] slots;
+    private final int mask;
+    private final Answer[] answers;
+    private final int[] questionOfSlot;
+    private final BitSet correctAnswers;
+    private final int numberOfQuestions;
+
+    /**
+     * Konstruktor przyjmujacy
+     *
+     * @param questions pytania gry wraz z odpowiedziami
+     */
+    public AnswerKey(List<Question> questions) {
+        List<Answer> allAnswers = new ArrayList<>();
+        List<Integer> questionIndexes = new ArrayList<>();
+        for (int i = 0; i < questions.size(); i++) {
+            List<Answer> questionAnswers = questions.get(i).getAnswers();
+            if (questionAnswers == null) {
+                continue;
+            }
+            for (Answer answer : questionAnswers) {
+                allAnswers.add(answer);
+                questionIndexes.add(i);
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, allAnswers.size() * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        this.mask = capacity - 1;
+        this.answers = new Answer[allAnswers.size()];
+        this.questionOfSlot = new int[allAnswers.size()];
+        this.correctAnswers = new BitSet(allAnswers.size());
+        this.numberOfQuestions = questions.size();
+
+        for (int slot = 0; slot < answers.length; slot++) {
+            Answer answer = allAnswers.get(slot);
+            answers[slot] = answer;
+            questionOfSlot[slot] = questionIndexes.get(slot);
+            if (answer.getIsCorrect()) {
+                correctAnswers.set(slot);
+            }
+            insert(answer.getId(), slot);
+        }
+    }
+
+    /**
+     * Metoda zamieniajaca id odpowiedzi wyslanych przez gracza na odpowiedzi gry.
+     * Pomijane sa id odpowiedzi nienalezacych do gry oraz kazda kolejna odpowiedz na pytanie, na ktore gracz juz odpowiedzial.
+     *
+     * @param answerIds id odpowiedzi wyslanych przez gracza
+     * @return odpowiedzi z pytan gry, najwyzej jedna na pytanie
+     */
+    public List<Answer> resolve(List<Long> answerIds) {
+        List<Answer> resolved = new ArrayList<>(Math.min(answerIds.size(), numberOfQuestions));
+        BitSet answeredQuestions = new BitSet(numberOfQuestions);
+
+        for (Long answerId : answerIds) {
+            if (answerId == null) {
+                continue;
+            }
+            int slot = find(answerId);
+            if (slot == EMPTY || answeredQuestions.get(questionOfSlot[slot])) {
+                continue;
+            }
+            answeredQuestions.set(questionOfSlot[slot]);
+            resolved.add(answers[slot]);
+        }
+        return resolved;
+    }
+
+    /**
+     * @param answerId id odpowiedzi
+     * @return true, jesli odpowiedz nalezy do gry
+     */
+    public boolean contains(long answerId) {
+        return find(answerId) != EMPTY;
+    }
+
+    /**
+     * @param answerId id odpowiedzi
+     * @return true, jesli odpowiedz nalezy do gry i jest poprawna
+     */
+    public boolean isCorrect(long answerId) {
+        int slot = find(answerId);
+        return slot != EMPTY && correctAnswers.get(slot);
+    }
+
+    /**
+     * @return liczba odpowiedzi we wszystkich pytaniach gry
+     */
+    public int size() {
+        return answers.length;
+    }
+
+    private void insert(long answerId, int slot) {
+        int index = indexFor(answerId);
+        while (slots[index] != EMPTY) {
+            if (keys[index] == answerId) {
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = answerId;
+        slots[index] = slot;
+    }
+
+    private int find(long answerId) {
+        int index = indexFor(answerId);
+        while (slots[index] != EMPTY) {
+            if (keys[index] == answerId) {
+                return slots[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    private int indexFor(long answerId) {
+        long hash = answerId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -65,12 +65,16 @@ public class GameStateMachine {
 
     /**
      * Metoda wywolywana dla trwajacej lub zakonczonej juz gry, w celu ustalenia, czy jej obecny stan pozwala na
-     * wyslanie odpowiedzi lub uzyskanie wynikow.
+     * wyslanie odpowiedzi lub uzyskanie wynikow. Gra nierozpoczęta lub juz zamknięta (np. po wyslaniu odpowiedzi
+     * przez wszystkich graczy) nie zmienia stanu.
      *
      * @see Game#checkScores()
      * @see Game#evaluateAnswers(Player, List)
      */
     public void determineCurrentState() {
+        if (startTime == null || currentState == GameState.CLOSED) {
+            return;
+        }
         Instant now = clock.instant();
 
         if (startTime.plusSeconds(timeUntilGameClosureInSeconds).isBefore(now)) {
@@ -80,6 +84,20 @@ public class GameStateMachine {
         }
     }
 
+    /**
+     * @return moment, w ktorym gra przejdzie w stan oceniania odpowiedzi, lub null dla gry nierozpoczętej
+     */
+    public Instant getAnswerEvaluationTime() {
+        return startTime == null ? null : startTime.plusSeconds(timeUntilAnswerEvaluationInSeconds);
+    }
+
+    /**
+     * @return moment, w ktorym gra przejdzie w stan zamknięty, lub null dla gry nierozpoczętej
+     */
+    public Instant getClosureTime() {
+        return startTime == null ? null : startTime.plusSeconds(timeUntilGameClosureInSeconds);
+    }
+
     /**
      * Metoda wykorzystywana do ustawienia stanu gry na rozpoczęty oraz okreslenia czasu jej rozpoczęcia.
      *
@@ -3,8 +3,10 @@ package com.pw.quizwhizz.repository.game;
 import com.pw.quizwhizz.entity.game.GameEntity;
 import com.pw.quizwhizz.model.game.GameState;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -15,4 +17,11 @@ import java.util.List;
 @Repository
 public interface GameRepository extends JpaRepository<GameEntity, Long> {
     List<GameEntity> findAllByCurrentState(GameState gameState);
+
+    /**
+     * @param gameStates stany gier
+     * @return id rozpoczętych gier (z zapisanym czasem rozpoczęcia) w podanych stanach
+     */
+    @Query("SELECT g.id FROM GameEntity g WHERE g.currentState IN ?1 AND g.startTime IS NOT NULL")
+    List<Long> findStartedIdsByCurrentStateIn(Collection<GameState> gameStates);
 }
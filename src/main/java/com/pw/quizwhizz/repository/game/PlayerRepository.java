@@ -2,7 +2,10 @@ package com.pw.quizwhizz.repository.game;
 
 import com.pw.quizwhizz.entity.game.PlayerEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repozytorium udostepnia encje PlayerEntity
@@ -11,4 +14,25 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface PlayerRepository extends JpaRepository<PlayerEntity, Long>{
+
+    /**
+     * Dodaje graczowi punkty doswiadczenia bezposrednio w bazie danych (bez nadpisywania zmian z innych gier).
+     * @param id numer id gracza
+     * @param xp liczba dodawanych punktow
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE PlayerEntity p SET p.xp = p.xp + ?2 WHERE p.id = ?1")
+    void addXp(long id, int xp);
+
+    /**
+     * Dolicza graczowi wynik rozegranej gry bezposrednio w bazie danych - dodaje punkty doswiadczenia i zwiększa
+     * liczbę rozegranych gier (bez nadpisywania zmian z innych gier).
+     * @param id numer id gracza
+     * @param xp liczba punktow zdobytych w grze
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE PlayerEntity p SET p.xp = COALESCE(p.xp, 0) + ?2, p.gamesPlayed = COALESCE(p.gamesPlayed, 0) + 1 WHERE p.id = ?1")
+    void addGameResult(long id, int xp);
 }
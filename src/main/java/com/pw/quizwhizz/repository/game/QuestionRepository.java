@@ -4,8 +4,10 @@ import com.pw.quizwhizz.entity.game.CategoryEntity;
 import com.pw.quizwhizz.entity.game.QuestionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
@@ -16,9 +18,43 @@ import java.util.List;
 @Repository
 public interface QuestionRepository extends JpaRepository<QuestionEntity, Long> {
     void deleteById(Long id);
+    /**
+     * Wynik zapytania przechowywany jest w regionie "questionsByCategory" pamięci podręcznej drugiego poziomu
+     * (uniewaznianym automatycznie przez Hibernate po zmianie tabeli pytan).
+     * @param categoryId numer id kategorii
+     * @return lista pytan kategorii
+     */
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "questionsByCategory")})
     List<QuestionEntity> findAllByCategory_Id(Long categoryId);
     List<QuestionEntity> findAllByCategory(CategoryEntity categoryEntity);
 
+    /**
+     * Pobiera id pytan danej gry w kolejnosci okreslonej przez sekwencję (same pytania pobierane sa z pamięci podręcznej pytan).
+     * @param gameId numer id gry
+     * @return lista id pytan gry uporzadkowana wedlug sekwencji
+     */
+    @Query(value = "SELECT qig.id.questionId FROM QuestionInGameEntity qig WHERE qig.id.gameId = ?1 ORDER BY qig.sequence")
+    List<Long> findIdsInGameOrderBySequence(long gameId);
+
+    /**
+     * Pobiera same id pytan danej kategorii (bez tworzenia encji), wykorzystywane do budowy indeksu pytan.
+     * @param categoryId numer id kategorii
+     * @return posortowana lista id pytan kategorii
+     */
+    @Query(value = "SELECT q.id FROM QuestionEntity q WHERE q.category.id = ?1 ORDER BY q.id")
+    List<Long> findIdsByCategoryId(long categoryId);
+
+    /**
+     * Pobiera jednym zapytaniem pytania o podanych id wraz z kategoria i odpowiedziami.
+     * @param ids numery id pytan
+     * @return lista pytan (bez zachowania kolejnosci id)
+     */
+    @Query(value = "SELECT DISTINCT q FROM QuestionEntity q " +
+            "JOIN FETCH q.category LEFT JOIN FETCH q.answers " +
+            "WHERE q.id IN ?1")
+    List<QuestionEntity> findAllWithAnswersByIdIn(List<Long> ids);
+
     /** @return zwraca ilosc wszystkich zapisanych pytan */
     @Query(value = "SELECT count(q) FROM QuestionEntity q")
     int countAll();
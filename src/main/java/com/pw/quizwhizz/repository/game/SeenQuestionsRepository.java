@@ -0,0 +1,27 @@
+package com.pw.quizwhizz.repository.game;
+
+import com.pw.quizwhizz.entity.game.SeenQuestionsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repozytorium udostepnia encje SeenQuestionsEntity
+ * @author Karolina Prusaczyk
+ * @see JpaRepository
+ */
+@Repository
+public interface SeenQuestionsRepository extends JpaRepository<SeenQuestionsEntity, Long> {
+    /**
+     * Odczytuje zbiory graczy blokujac ich wiersze do konca transakcji (SELECT ... FOR UPDATE). Wiersze blokowane sa
+     * w kolejnosci id graczy, aby rownolegle transakcje nie blokowaly sie nawzajem.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SeenQuestionsEntity s WHERE s.userId IN ?1 ORDER BY s.userId")
+    List<SeenQuestionsEntity> findAllForUpdate(Collection<Long> userIds);
+}
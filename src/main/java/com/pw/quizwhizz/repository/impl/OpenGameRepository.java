@@ -0,0 +1,64 @@
+package com.pw.quizwhizz.repository.impl;
+
+import com.pw.quizwhizz.model.dto.GameDTO;
+import com.pw.quizwhizz.model.game.GameState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Repozytorium udostępnia podstawowe dane otwartych gier do wyswietlenia na glownej stronie portalu.
+ * Wszystkie gry pobierane sa jednym zapytaniem, bez odtwarzania pytan i graczy.
+ * @author Michał Nowiński
+ */
+@Repository
+public class OpenGameRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public OpenGameRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private static final String gamesByState =
+            "SELECT g.id, c.category_name, c.urlImage, u.id, u.first_name, " +
+            "(SELECT count(*) FROM player_in_game p WHERE p.game_id = g.id) players " +
+            "FROM game g " +
+            "INNER JOIN category c ON g.category_id = c.id " +
+            "INNER JOIN player_in_game o ON o.game_id = g.id AND o.owner = 1 " +
+            "INNER JOIN user u ON u.id = o.user_id " +
+            "WHERE g.current_state = ? " +
+            "ORDER BY g.id;";
+
+    /**
+     * @return lista gier oczekujacych na rozpoczęcie, wraz z wlascicielem i liczba graczy
+     */
+    public List<GameDTO> findAllOpen() {
+        return jdbcTemplate.query(gamesByState, new GameDTORowMapper(), GameState.OPEN.ordinal());
+    }
+
+    /**
+     * Pomocnicza klasa implementujaca interface RowMapper. Mapuje wiersze tabeli sql na obiekt javy.
+     * @see RowMapper
+     * @see GameDTO
+     */
+    class GameDTORowMapper implements RowMapper<GameDTO> {
+        @Override
+        public GameDTO mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+            GameDTO game = new GameDTO();
+            game.setGameId(resultSet.getLong(1));
+            game.setCategoryName(resultSet.getString(2));
+            game.setCategoryImageUrl(resultSet.getString(3));
+            game.setOwnerId(resultSet.getLong(4));
+            game.setOwnerName(resultSet.getString(5));
+            game.setNumberOfPlayers(resultSet.getInt(6));
+            game.setDisplayStateName(GameState.OPEN.name());
+            return game;
+        }
+    }
+}
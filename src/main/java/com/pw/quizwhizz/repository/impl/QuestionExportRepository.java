@@ -0,0 +1,56 @@
+package com.pw.quizwhizz.repository.impl;
+
+import com.pw.quizwhizz.model.dto.QuestionBankRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+/**
+ * Repozytorium odczytujace cala bazę pytan do eksportu. Wiersze pobierane sa kursorem tylko do odczytu, przesuwanym
+ * wylacznie do przodu, a sterownik MySQL przesyla je strumieniowo (fetch size Integer.MIN_VALUE) - w pamięci znajduje
+ * się jedynie biezacy wiersz, niezaleznie od rozmiaru bazy pytan.
+ * @author Michał Nowiński
+ */
+@Repository
+public class QuestionExportRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public QuestionExportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private static final String allAnswers =
+            "SELECT c.id, c.category_name, q.id, q.question, a.id_answer, a.answer, a.isCorrect " +
+            "FROM category c " +
+            "INNER JOIN question q ON q.category = c.id " +
+            "INNER JOIN answer a ON a.question = q.id " +
+            "ORDER BY c.id, q.id, a.id_answer;";
+
+    /**
+     * Metoda przekazujaca kolejno wszystkie odpowiedzi z bazy pytan, uporzadkowane wg kategorii, pytania i odpowiedzi.
+     * Odpowiedzi jednego pytania zawsze następuja bezposrednio po sobie.
+     * @param consumer odbiorca kolejnych wierszy
+     */
+    public void forEachRow(Consumer<QuestionBankRow> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(allAnswers,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return statement;
+        }, resultSet -> {
+            consumer.accept(new QuestionBankRow(
+                    resultSet.getLong(1),
+                    resultSet.getString(2),
+                    resultSet.getLong(3),
+                    resultSet.getString(4),
+                    resultSet.getLong(5),
+                    resultSet.getString(6),
+                    resultSet.getBoolean(7)));
+        });
+    }
+}
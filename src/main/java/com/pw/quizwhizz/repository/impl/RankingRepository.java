@@ -1,6 +1,7 @@
 package com.pw.quizwhizz.repository.impl;
 
 import com.pw.quizwhizz.model.dto.Ranking;
+import com.pw.quizwhizz.model.game.GameState;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -8,7 +9,13 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Repozytorium udostępnia szczegolowe dane dla zestawienia wyników graczy. Udostepnia metode zwracajaca liste obiektow DTO z danymi dla wszystkich punktacji graczy
@@ -30,6 +37,16 @@ public class RankingRepository {
             "ORDER BY u.player_xp DESC " +
             "LIMIT ?;";
 
+    private static final String allGeneralRank =
+            "SELECT u.url_image, u.first_name, u.games_played, u.player_xp, u.id " +
+            "FROM user u " +
+            "WHERE u.player_xp > 0;";
+
+    private static final String playerRank =
+            "SELECT u.url_image, u.first_name, u.games_played, u.player_xp, u.id " +
+            "FROM user u " +
+            "WHERE u.id = ?;";
+
     private static final String categoryRank =
             "SELECT user.url_image, user.first_name, count(g.id) gs, sum(score.points) ss, user.id " +
             "FROM " +
@@ -42,6 +59,23 @@ public class RankingRepository {
             "ORDER BY ss DESC, gs DESC " +
             "LIMIT ?;";
 
+    private static final String allCategoryRank =
+            "SELECT user.url_image, user.first_name, count(g.id) gs, sum(score.points) ss, user.id, g.category_id " +
+            "FROM " +
+            "game g " +
+            "INNER JOIN score ON g.id = score.game_id " +
+            "INNER JOIN user ON user.id = score.user_id " +
+            "WHERE user.player_xp > 0 AND g.current_state = ? " +
+            "GROUP BY g.category_id, user.id;";
+
+    private static final String dailyRank =
+            "SELECT user.url_image, user.first_name, 1 gs, score.points ss, user.id, g.start_time " +
+            "FROM " +
+            "game g " +
+            "INNER JOIN score ON g.id = score.game_id " +
+            "INNER JOIN user ON user.id = score.user_id " +
+            "WHERE user.player_xp > 0 AND g.current_state = ? AND g.start_time >= ?;";
+
     /**
      * @param limitSearch ilosc zwracanych wynikow (dla ilu graczy)
      * @return lista wynikow do rankingu generalnego
@@ -50,6 +84,26 @@ public class RankingRepository {
         return jdbcTemplate.query(generalRank, new RankingRowMapper(), limitSearch);
     }
 
+    /**
+     * Metoda przekazujaca kolejno dane wszystkich graczy posiadajacych punkty doswiadczenia (bez sortowania)
+     * @param consumer odbiorca kolejnych wierszy
+     */
+    public void forEachGeneralRank(Consumer<Ranking> consumer) {
+        RankingRowMapper rowMapper = new RankingRowMapper();
+        jdbcTemplate.query(allGeneralRank, resultSet -> {
+            consumer.accept(rowMapper.mapRow(resultSet, 0));
+        });
+    }
+
+    /**
+     * @param userId numer id uzytkownika
+     * @return dane gracza do rankingu lub null, jesli uzytkownik nie istnieje
+     */
+    public Ranking findGeneralRankByUserId(long userId) {
+        List<Ranking> rankings = jdbcTemplate.query(playerRank, new RankingRowMapper(), userId);
+        return rankings.isEmpty() ? null : rankings.get(0);
+    }
+
     /**
      * @param limitSearch ilosc zwracanych wynikow (dla ilu graczy)
      * @param categoryId numer id kategorii
@@ -59,6 +113,33 @@ public class RankingRepository {
         return jdbcTemplate.query(categoryRank, new RankingRowMapper(), categoryId, limitSearch);
     }
 
+    /**
+     * Metoda przekazujaca kolejno sumy punktow i liczby gier wszystkich graczy we wszystkich kategoriach (bez sortowania).
+     * Uwzgledniane sa tylko gry zamknięte.
+     * @param consumer odbiorca kolejnych wierszy - numeru id kategorii i danych gracza
+     */
+    public void forEachCategoryRank(BiConsumer<Long, Ranking> consumer) {
+        RankingRowMapper rowMapper = new RankingRowMapper();
+        jdbcTemplate.query(allCategoryRank, resultSet -> {
+            consumer.accept(resultSet.getLong(6), rowMapper.mapRow(resultSet, 0));
+        }, GameState.CLOSED.ordinal());
+    }
+
+    /**
+     * Metoda przekazujaca kolejno wyniki graczy w zamkniętych grach rozpoczętych od podanej chwili (bez sortowania).
+     * Dzien gry wyznaczany jest z czasu jej rozpoczęcia w podanej strefie czasowej, a nie w strefie sesji bazy danych.
+     * @param from najwczesniejszy czas rozpoczęcia uwzglednianych gier
+     * @param zone strefa czasowa wyznaczajaca dzien gry
+     * @param consumer odbiorca kolejnych wierszy - dnia gry i danych gracza (jedna gra)
+     */
+    public void forEachDailyRank(Instant from, ZoneId zone, BiConsumer<LocalDate, Ranking> consumer) {
+        RankingRowMapper rowMapper = new RankingRowMapper();
+        jdbcTemplate.query(dailyRank, resultSet -> {
+            LocalDate day = resultSet.getTimestamp(6).toInstant().atZone(zone).toLocalDate();
+            consumer.accept(day, rowMapper.mapRow(resultSet, 0));
+        }, GameState.CLOSED.ordinal(), Timestamp.from(from));
+    }
+
     /**
      * Pomocnicza klasa implementujaca interface RowMapper. Mapuje wiersze tabeli sql na obiekt javy.
      * @see RowMapper
@@ -1,17 +1,21 @@
 package com.pw.quizwhizz.repository.impl;
 
-import com.pw.quizwhizz.model.dto.Statistics;
+import com.pw.quizwhizz.model.dto.GameScoreRow;
+import com.pw.quizwhizz.model.dto.StatisticCounter;
+import com.pw.quizwhizz.model.game.GameState;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
- * Repozytorium udostępnia statystyki dla portalu, takie jak ilosc rozegranych gier łacznie, gier wieloosobowych, najczesciej wybierana kategoria
+ * Repozytorium udostępnia dane dla statystyk portalu, takich jak ilosc rozegranych gier łacznie, gier wieloosobowych, najczesciej wybierana kategoria.
+ * Przechowuje zapisana migawkę licznikow statystyk i udostępnia wyniki zamkniętych gier nieuwzględnionych w migawce.
  * @author Michał Nowiński
+ * @see com.pw.quizwhizz.service.cache.PortalStatistics
  */
 @Repository
 public class StatisticsRepository {
@@ -23,32 +27,60 @@ public class StatisticsRepository {
             this.jdbcTemplate = jdbcTemplate;
         }
 
-    private static final String statisticSQL =
-                    "SELECT count(DISTINCT g.id), " +
-                    "(SELECT count(*) FROM (SELECT s.game_id FROM score s GROUP BY s.game_id HAVING count(s.user_id) >=2) d1), " +
-                    "(SELECT category.category_name FROM category INNER JOIN game ON game.category_id = category.id GROUP BY category_name ORDER BY count(*) DESC LIMIT 1), " +
-                    "(SELECT points FROM score GROUP BY points ORDER BY COUNT( * ) DESC LIMIT 1) " +
-                    "FROM game g " +
-                    "INNER JOIN score ON g.id = score.game_id;";
+    private static final String snapshotSQL =
+            "SELECT name, stat_key, stat_value FROM portal_statistic;";
 
-    public Statistics findStatistic(){
-        return jdbcTemplate.queryForObject(statisticSQL, new StatisticRowMapper());
+    private static final String deleteSnapshotSQL =
+            "DELETE FROM portal_statistic;";
+
+    private static final String insertSnapshotSQL =
+            "INSERT INTO portal_statistic (name, stat_key, stat_value) VALUES (?, ?, ?);";
+
+    private static final String insertCountedGameSQL =
+            "INSERT INTO portal_statistic_game (game_id) VALUES (?);";
+
+    private static final String uncountedScoresSQL =
+            "SELECT s.game_id, g.category_id, s.points " +
+            "FROM score s " +
+            "INNER JOIN game g ON g.id = s.game_id " +
+            "LEFT JOIN portal_statistic_game c ON c.game_id = g.id " +
+            "WHERE g.current_state = ? AND c.game_id IS NULL " +
+            "ORDER BY s.game_id;";
+
+    /**
+     * @return liczniki zapisanej migawki statystyk (pusta lista, jesli migawka nie byla jeszcze zapisana)
+     */
+    public List<StatisticCounter> findSnapshot() {
+        return jdbcTemplate.query(snapshotSQL, (resultSet, rowNum) ->
+                new StatisticCounter(resultSet.getString(1), resultSet.getLong(2), resultSet.getLong(3)));
     }
 
     /**
-     * Pomocnicza klasa implementujaca interface RowMapper. Mapuje wiersze tabeli sql na obiekt javy.
-     * @see RowMapper
-     * @see Statistics
+     * Metoda zastępujaca zapisana migawkę statystyk nowymi licznikami i oznaczajaca gry doliczone od poprzedniego zapisu
+     * jako uwzględnione w migawce (w jednej transakcji)
+     * @param counters liczniki migawki
+     * @param countedGameIds id gier doliczonych do licznikow od poprzedniego zapisu
      */
-    class StatisticRowMapper implements RowMapper<Statistics> {
-        @Override
-        public Statistics mapRow(ResultSet resultSet, int rowNum) throws SQLException {
-            Statistics statistics = new Statistics();
-            statistics.setNumberGames(resultSet.getInt(1));
-            statistics.setNumberMPGames(resultSet.getInt(2));
-            statistics.setMostPopularCategory(resultSet.getString(3));
-            statistics.setMostPopularScore(resultSet.getInt(4));
-            return statistics;
-        }
+    @Transactional
+    public void saveSnapshot(List<StatisticCounter> counters, List<Long> countedGameIds) {
+        jdbcTemplate.update(deleteSnapshotSQL);
+        jdbcTemplate.batchUpdate(insertSnapshotSQL, counters, counters.size(), (statement, counter) -> {
+            statement.setString(1, counter.getName());
+            statement.setLong(2, counter.getKey());
+            statement.setLong(3, counter.getValue());
+        });
+        jdbcTemplate.batchUpdate(insertCountedGameSQL, countedGameIds, countedGameIds.size(),
+                (statement, gameId) -> statement.setLong(1, gameId));
+    }
+
+    /**
+     * Metoda przekazujaca kolejno wyniki graczy z zamkniętych gier nieuwzględnionych w zapisanej migawce statystyk,
+     * uporzadkowane wg id gry
+     * @param consumer odbiorca kolejnych wynikow
+     */
+    public void forEachUncountedScore(Consumer<GameScoreRow> consumer) {
+        jdbcTemplate.query(uncountedScoresSQL, resultSet -> {
+            consumer.accept(new GameScoreRow(resultSet.getLong(1), resultSet.getLong(2), resultSet.getInt(3)));
+        }, GameState.CLOSED.ordinal());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package com.pw.quizwhizz.repository.impl;
+
+import com.pw.quizwhizz.model.dto.UserListDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repozytorium udostępnia strony listy uzytkownikow do panelu administratora. Strona wyznaczana jest kluczem
+ * (id > ostatnie id poprzedniej strony), a role uzytkownikow strony pobierane sa tym samym zapytaniem.
+ * @author Michał Nowiński
+ */
+@Repository
+public class UserListRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserListRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private static final String usersAfterId =
+            "SELECT u.id, u.first_name, u.user_email, u.url_image, u.date_registration, r.role " +
+            "FROM (SELECT id, first_name, user_email, url_image, date_registration FROM user " +
+            "WHERE id > ? ORDER BY id LIMIT ?) u " +
+            "LEFT JOIN user_role ur ON ur.user_id = u.id " +
+            "LEFT JOIN role r ON r.id = ur.role_id " +
+            "ORDER BY u.id;";
+
+    private static final String countUsers = "SELECT count(*) FROM user;";
+
+    /**
+     * @param afterId id ostatniego uzytkownika poprzedniej strony
+     * @param limit   maksymalna liczba uzytkownikow
+     * @return uzytkownicy o id wiekszym niz afterId, uporzadkowani wg id
+     */
+    public List<UserListDTO> findAllAfterId(long afterId, int limit) {
+        Map<Long, UserListDTO> users = new LinkedHashMap<>();
+        jdbcTemplate.query(usersAfterId, resultSet -> {
+            UserListDTO user = users.get(resultSet.getLong(1));
+            if (user == null) {
+                user = new UserListDTO();
+                user.setId(resultSet.getLong(1));
+                user.setFirstName(resultSet.getString(2));
+                user.setEmail(resultSet.getString(3));
+                user.setUrlImage(resultSet.getString(4));
+                user.setRegDate(resultSet.getTimestamp(5));
+                users.put(user.getId(), user);
+            }
+            String role = resultSet.getString(6);
+            if (role != null) {
+                user.getRoles().add(role);
+            }
+        }, afterId, limit);
+        return new ArrayList<>(users.values());
+    }
+
+    /**
+     * @return liczba wszystkich uzytkownikow
+     */
+    public long count() {
+        return jdbcTemplate.queryForObject(countUsers, Long.class);
+    }
+}
@@ -1,11 +1,15 @@
 package com.pw.quizwhizz.service;
 
 import com.pw.quizwhizz.model.account.User;
+import com.pw.quizwhizz.model.dto.FinalScore;
+import com.pw.quizwhizz.model.dto.GameDTO;
 import com.pw.quizwhizz.model.exception.IllegalNumberOfQuestionsException;
 import com.pw.quizwhizz.model.exception.IllegalTimeOfAnswerSubmissionException;
 import com.pw.quizwhizz.model.exception.ScoreCannotBeRetrievedBeforeGameIsClosedException;
 import com.pw.quizwhizz.model.game.*;
 
+import org.springframework.web.context.request.async.DeferredResult;
+
 import java.util.List;
 
 /**
@@ -13,7 +17,7 @@ import java.util.List;
  * @author Karolina Prusaczyk
  */
 public interface GameService {
-    List<Game> getAllOpenGames() throws IllegalNumberOfQuestionsException;
+    List<GameDTO> getAllOpenGames();
     Game findGameById(Long id) throws IllegalNumberOfQuestionsException;
     Game createGame(List<Question> questions) throws IllegalNumberOfQuestionsException;
     void addOwnerToGame(Game game, User user);
@@ -25,6 +29,7 @@ public interface GameService {
     void submitAnswers(Game game, User user, List<Long> answerIds) throws IllegalTimeOfAnswerSubmissionException, IllegalNumberOfQuestionsException;
     void saveScore(Score score);
     boolean isGameClosed(Long gameId);
-    List<Score> checkScores(long gameId) throws IllegalNumberOfQuestionsException, ScoreCannotBeRetrievedBeforeGameIsClosedException;
+    DeferredResult<String> awaitGameClosed(Long gameId);
+    List<FinalScore> checkScores(long gameId) throws IllegalNumberOfQuestionsException, ScoreCannotBeRetrievedBeforeGameIsClosedException;
 
 }
@@ -0,0 +1,13 @@
+package com.pw.quizwhizz.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Abstrakcyjna warstwa serwisu
+ * @author Michał Nowiński
+ */
+public interface QuestionExportService {
+    void exportCsv(Writer writer) throws IOException;
+    void exportJsonLines(Writer writer) throws IOException;
+}
@@ -0,0 +1,15 @@
+package com.pw.quizwhizz.service;
+
+import com.pw.quizwhizz.model.dto.ImportProgress;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Abstrakcyjna warstwa serwisu
+ * @author Michał Nowiński
+ */
+public interface QuestionImportService {
+    ImportProgress importCsv(String fileName, InputStream inputStream) throws IOException;
+    ImportProgress findCurrentProgress();
+}
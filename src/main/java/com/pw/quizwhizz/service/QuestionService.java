@@ -1,9 +1,11 @@
 package com.pw.quizwhizz.service;
 
+import com.pw.quizwhizz.model.dto.KeysetPage;
 import com.pw.quizwhizz.model.exception.IllegalNumberOfQuestionsException;
 import com.pw.quizwhizz.model.game.Category;
 import com.pw.quizwhizz.model.game.Question;
 import com.pw.quizwhizz.service.exception.NoQuestionsInDBException;
+import com.pw.quizwhizz.util.BloomFilter;
 
 import java.util.List;
 
@@ -13,9 +15,14 @@ import java.util.List;
  */
 public interface QuestionService {
     List<Question> getQuestionsForNewGame(long categoryId) throws IllegalNumberOfQuestionsException, NoQuestionsInDBException;
+    List<Question> getQuestionsForNewGame(long categoryId, BloomFilter seenQuestions) throws IllegalNumberOfQuestionsException, NoQuestionsInDBException;
     List<Question> getRandomQuestionsByCategoryId(long categoryId, int number) throws IllegalNumberOfQuestionsException, NoQuestionsInDBException;
+    List<Question> getRandomQuestionsByCategoryId(long categoryId, int number, BloomFilter seenQuestions) throws IllegalNumberOfQuestionsException, NoQuestionsInDBException;
     List<Question> getRandomQuestionsByCategory(Category category, int number) throws IllegalNumberOfQuestionsException, NoQuestionsInDBException;
     List<Question> findAllByCategoryId(long categoryId);
+    KeysetPage<Question> findPageByCategoryId(long categoryId, Long after, int pageSize);
+    List<Question> searchQuestions(String query, int limit);
+    List<Question> findAllByGameId(long gameId);
 
     Question findById(Long Id);
     void deleteById(Long Id);
@@ -0,0 +1,14 @@
+package com.pw.quizwhizz.service;
+
+import com.pw.quizwhizz.util.BloomFilter;
+
+import java.util.Collection;
+
+/**
+ * Abstrakcyjna warstwa serwisu
+ * @author Karolina Prusaczyk
+ */
+public interface SeenQuestionService {
+    BloomFilter findSeenQuestions(long userId);
+    void markAsSeen(Collection<Long> userIds, Collection<Long> questionIds);
+}
@@ -1,9 +1,11 @@
 package com.pw.quizwhizz.service;
 
 import com.pw.quizwhizz.model.dto.Ranking;
+import com.pw.quizwhizz.model.dto.RankingPeriod;
 import com.pw.quizwhizz.model.dto.Statistics;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Abstrakcyjna warstwa serwisu
@@ -14,5 +16,10 @@ public interface StatService {
     int findNumberOfQuestions();
     Statistics findStatistic();
     List<Ranking> findGeneralRank(int limitSearch);
+    List<Ranking> findRankForPeriod(RankingPeriod period, int limitSearch);
     List<Ranking> findFiveByCategory(int limitSearch , Long categoryId);
+    int findGeneralRankPosition(long userId);
+    List<Ranking> findGeneralRankAround(long userId, int radius);
+    Map<Long, Integer> findCategoryRankPositions(long userId);
+    List<Ranking> findCategoryRankAround(long categoryId, long userId, int radius);
 }
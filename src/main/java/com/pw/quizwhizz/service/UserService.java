@@ -1,7 +1,9 @@
 package com.pw.quizwhizz.service;
 
 import com.pw.quizwhizz.model.account.User;
+import com.pw.quizwhizz.model.dto.KeysetPage;
 import com.pw.quizwhizz.model.dto.UserAllStats;
+import com.pw.quizwhizz.model.dto.UserListDTO;
 import com.pw.quizwhizz.model.game.Player;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -18,6 +20,7 @@ public interface UserService {
     void addWithAdminRole(User user, String saveDirectory) throws IOException;
     User findByEmail(String email);
     List<User> findAll();
+    KeysetPage<UserListDTO> findPage(Long after, int pageSize);
     void deleteById(Long Id);
     void addRoleToUser(String user, String[] role);
     void removeRoleUser(String userId, String[] roles);
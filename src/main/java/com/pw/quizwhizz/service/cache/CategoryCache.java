@@ -0,0 +1,182 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.entity.game.CategoryEntity;
+import com.pw.quizwhizz.model.game.Category;
+import com.pw.quizwhizz.repository.game.CategoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Pamięc podręczna kategorii (read-through). Wszystkie kategorie wczytywane sa jednym zapytaniem przy starcie aplikacji
+ * i przechowywane w niemodyfikowalnej migawce z indeksami po id i nazwie. Zwracane obiekty Category sa wspoldzielone
+ * przez wszystkich wywolujacych i nie nalezy ich modyfikowac. Kazda zmiana kategorii uniewaznia migawkę
+ * (rowniez po zakonczeniu transakcji), a kolejny odczyt wczytuje kategorie ponownie.
+ * <p>
+ * Odczyt nieznanego id lub nazwy wczytuje migawkę ponownie tylko raz od ostatniego uniewaznienia - po takim
+ * wczytaniu brak kategorii w migawce jest ostateczny az do kolejnego uniewaznienia.
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.service.impl.CategoryServiceImpl
+ */
+@Component
+public class CategoryCache {
+    private final CategoryRepository categoryRepository;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public CategoryCache(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        snapshot();
+    }
+
+    /**
+     * @param id numer id kategorii
+     * @return wspoldzielona instancja kategorii lub null, jesli kategoria nie istnieje
+     */
+    public Category findById(long id) {
+        return find(snapshot -> snapshot.byId.get(id));
+    }
+
+    /**
+     * @param name nazwa kategorii
+     * @return wspoldzielona instancja kategorii lub null, jesli kategoria nie istnieje
+     */
+    public Category findByName(String name) {
+        return find(snapshot -> snapshot.byName.get(name));
+    }
+
+    /**
+     * @return niemodyfikowalna lista wszystkich kategorii
+     */
+    public List<Category> findAll() {
+        return snapshot().all;
+    }
+
+    /**
+     * Uniewaznia migawkę kategorii. Wywolana w transakcji uniewaznia ja ponownie po zakonczeniu transakcji,
+     * aby odczyt wykonany w trakcie transakcji nie pozostawil w pamięci nieaktualnych danych.
+     */
+    public void invalidate() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return liczba odczytow obsluzonych z pamięci
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return liczba odczytow, ktore wymagaly wczytania kategorii z bazy danych
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return liczba kategorii umieszczonych w pamięci (suma rozmiarow zapisanych migawek)
+     */
+    public long getPuts() {
+        return puts.get();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            hits.incrementAndGet();
+            return current;
+        }
+        misses.incrementAndGet();
+        return reload(false);
+    }
+
+    /**
+     * Brak kategorii w migawce moze oznaczac kategorię dodana od czasu jej wczytania - migawka wczytywana jest ponownie,
+     * chyba ze sama zostala wczytana z powodu brakujacej kategorii.
+     */
+    private Category find(Function<Snapshot, Category> lookup) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            Category category = lookup.apply(current);
+            if (category != null || current.reloadedOnMiss) {
+                hits.incrementAndGet();
+                return category;
+            }
+        }
+        misses.incrementAndGet();
+        return lookup.apply(reload(current != null));
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot reload(boolean onMiss) {
+        long expectedGeneration = generation.get();
+        Snapshot loaded = new Snapshot(categoryRepository.findAll(), onMiss);
+        synchronized (this) {
+            if (generation.get() == expectedGeneration) {
+                snapshot = loaded;
+                puts.addAndGet(loaded.all.size());
+            }
+        }
+        return loaded;
+    }
+
+    private static Category convertToCategory(CategoryEntity categoryEntity) {
+        Category category = new Category();
+        category.setId(categoryEntity.getId());
+        category.setName(categoryEntity.getName());
+        category.setDescription(categoryEntity.getDescription());
+        category.setUrlImage(categoryEntity.getUrlImage());
+        return category;
+    }
+
+    private static class Snapshot {
+        private final Map<Long, Category> byId;
+        private final Map<String, Category> byName;
+        private final List<Category> all;
+        private final boolean reloadedOnMiss;
+
+        private Snapshot(List<CategoryEntity> categoryEntities, boolean reloadedOnMiss) {
+            Map<Long, Category> byId = new HashMap<>();
+            Map<String, Category> byName = new HashMap<>();
+            List<Category> all = new ArrayList<>();
+            for (CategoryEntity categoryEntity : categoryEntities) {
+                Category category = convertToCategory(categoryEntity);
+                byId.put(category.getId(), category);
+                byName.put(category.getName(), category);
+                all.add(category);
+            }
+            this.byId = Collections.unmodifiableMap(byId);
+            this.byName = Collections.unmodifiableMap(byName);
+            this.all = Collections.unmodifiableList(all);
+            this.reloadedOnMiss = reloadedOnMiss;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.dto.FinalScore;
+import com.pw.quizwhizz.model.dto.Ranking;
+import com.pw.quizwhizz.repository.impl.RankingRepository;
+import com.pw.quizwhizz.service.game.GameClosedEvent;
+import com.pw.quizwhizz.util.OrderStatisticTree;
+import com.pw.quizwhizz.util.RecentIdSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Rankingi graczy w poszczegolnych kategoriach przechowywane w pamięci. Dla kazdej pary (kategoria, gracz)
+ * przechowywana jest liczba rozegranych gier i suma zdobytych punktow, a gracze kategorii uporzadkowani sa
+ * w drzewie statystyk pozycyjnych malejaco wg sumy punktow, a następnie liczby gier.
+ * <p>
+ * Sumy wczytywane sa jednym zapytaniem przy starcie aplikacji (tylko gry zamknięte), a następnie aktualizowane
+ * po zamknięciu kazdej gry ({@link GameClosedEvent}), wiec odczyt najlepszych graczy kategorii nie wymaga zapytan
+ * do bazy danych. Zdarzenie opublikowane w transakcji uwzględniane jest dopiero po jej zatwierdzeniu, a powtorzone
+ * zdarzenie zamknięcia tej samej gry jest pomijane.
+ *
+ * @author Michał Nowiński
+ * @see OrderStatisticTree
+ */
+@Component
+public class CategoryLeaderboards {
+    private static final Comparator<Entry> BY_POINTS_DESCENDING = Comparator
+            .comparingLong((Entry entry) -> entry.points).reversed()
+            .thenComparing(Comparator.comparingInt((Entry entry) -> entry.gamesPlayed).reversed())
+            .thenComparingLong(entry -> entry.userId);
+    /**
+     * Liczba ostatnio doliczonych gier pamiętanych w celu pominięcia powtorzonego zdarzenia zamknięcia gry.
+     */
+    static final int RECENT_GAMES_CAPACITY = 10_000;
+
+    private final RankingRepository rankingRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Board> boardsByCategory = new HashMap<>();
+    private final Map<Long, Profile> profilesByUser = new HashMap<>();
+    private final RecentIdSet countedGames = new RecentIdSet(RECENT_GAMES_CAPACITY);
+
+    @Autowired
+    public CategoryLeaderboards(RankingRepository rankingRepository) {
+        this.rankingRepository = rankingRepository;
+    }
+
+    /**
+     * Wczytuje sumy punktow graczy we wszystkich kategoriach z bazy danych.
+     */
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            boardsByCategory.clear();
+            profilesByUser.clear();
+            countedGames.clear();
+            rankingRepository.forEachCategoryRank((categoryId, row) -> {
+                Profile profile = profilesByUser.computeIfAbsent(row.getUserID(),
+                        id -> new Profile(row.getPlayerName(), row.getPlayerImageUrl()));
+                boardOf(categoryId).put(new Entry(row.getUserID(), profile, row.getGamePlayed(), row.getAllPoints()));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param categoryId numer id kategorii
+     * @param limit      liczba graczy
+     * @return najlepsi gracze kategorii, od gracza z najwiekszą suma punktow
+     */
+    public List<Ranking> findTop(long categoryId, int limit) {
+        lock.readLock().lock();
+        try {
+            Board board = boardsByCategory.get(categoryId);
+            if (board == null) {
+                return Collections.emptyList();
+            }
+            return toRankings(board.ranking.range(0, limit), 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param categoryId numer id kategorii
+     * @param userId     numer id gracza
+     * @return miejsce gracza w rankingu kategorii (od 1) lub 0, jesli gracz nie gral w tej kategorii
+     */
+    public int findPosition(long categoryId, long userId) {
+        lock.readLock().lock();
+        try {
+            Board board = boardsByCategory.get(categoryId);
+            Entry entry = board == null ? null : board.entriesByUser.get(userId);
+            return entry == null ? 0 : board.ranking.rank(entry) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param userId numer id gracza
+     * @return miejsca gracza (od 1) w rankingach kategorii, w ktorych gral - wg numeru id kategorii
+     */
+    public Map<Long, Integer> findPositions(long userId) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> positions = new TreeMap<>();
+            for (Map.Entry<Long, Board> board : boardsByCategory.entrySet()) {
+                Entry entry = board.getValue().entriesByUser.get(userId);
+                if (entry != null) {
+                    positions.put(board.getKey(), board.getValue().ranking.rank(entry) + 1);
+                }
+            }
+            return positions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param categoryId numer id kategorii
+     * @param userId     numer id gracza
+     * @param radius     liczba graczy wyswietlanych przed i za graczem
+     * @return fragment rankingu kategorii wokol gracza (pusty, jesli gracz nie gral w tej kategorii)
+     */
+    public List<Ranking> findAround(long categoryId, long userId, int radius) {
+        lock.readLock().lock();
+        try {
+            Board board = boardsByCategory.get(categoryId);
+            Entry entry = board == null ? null : board.entriesByUser.get(userId);
+            if (entry == null) {
+                return Collections.emptyList();
+            }
+            int position = board.ranking.rank(entry);
+            int from = Math.max(0, position - radius);
+            return toRankings(board.ranking.range(from, position + radius + 1 - from), from);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Dolicza wyniki zamkniętej gry do rankingu jej kategorii. Gracze bez punktow doswiadczenia nie sa dodawani
+     * do rankingu (tak jak w zapytaniu rankingu kategorii) - o dodaniu gracza spoza rankingow decyduja jego punkty
+     * doswiadczenia odczytane z bazy danych po zatwierdzeniu gry, a nie wartosc z chwili wczytania gry do pamięci.
+     * Dane profilu nowych graczy pobierane sa z bazy danych przed zalozeniem blokady zapisu. Zdarzenie opublikowane w transakcji zamykajacej grę uwzględniane jest dopiero
+     * po jej zatwierdzeniu - wycofane zamknięcie gry nie zmienia rankingu i nie blokuje ponownego doliczenia gry.
+     *
+     * @param event zdarzenie zamknięcia gry
+     */
+    @EventListener
+    public void onGameClosed(GameClosedEvent event) {
+        afterCommit(() -> addGame(event));
+    }
+
+    private void addGame(GameClosedEvent event) {
+        if (!countedGames.add(event.getGameId())) {
+            return;
+        }
+        Map<Long, Profile> fetchedProfiles = fetchProfiles(event.getScores());
+        lock.writeLock().lock();
+        try {
+            Board board = boardOf(event.getCategoryId());
+            for (FinalScore score : event.getScores()) {
+                Entry current = board.entriesByUser.get(score.getPlayerId());
+                Profile profile = current != null ? current.profile : profileOf(score, fetchedProfiles);
+                if (profile == null) {
+                    continue;
+                }
+                Entry updated = current != null
+                        ? new Entry(current.userId, profile, current.gamesPlayed + 1, current.points + score.getPoints())
+                        : new Entry(score.getPlayerId(), profile, 1, score.getPoints());
+                board.replace(current, updated);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Metoda aktualizujaca dane profilu gracza wyswietlane w rankingach.
+     *
+     * @param userId   numer id gracza
+     * @param name     imię gracza
+     * @param imageUrl adres obrazu profilowego
+     */
+    public void updateProfile(long userId, String name, String imageUrl) {
+        lock.writeLock().lock();
+        try {
+            Profile profile = profilesByUser.get(userId);
+            if (profile != null) {
+                profile.name = name;
+                profile.imageUrl = imageUrl;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param userId numer id usuwanego gracza
+     */
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            if (profilesByUser.remove(userId) == null) {
+                return;
+            }
+            for (Board board : boardsByCategory.values()) {
+                board.replace(board.entriesByUser.get(userId), null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    private static List<Ranking> toRankings(List<Entry> entries, int from) {
+        List<Ranking> rankings = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            rankings.add(entries.get(i).toRanking(from + i + 1));
+        }
+        return rankings;
+    }
+
+    private Board boardOf(long categoryId) {
+        return boardsByCategory.computeIfAbsent(categoryId, id -> new Board());
+    }
+
+    /**
+     * Pobiera z bazy danych dane profilu graczy, ktorych nie ma jeszcze w rankingach - tylko tych, ktorzy maja
+     * punkty doswiadczenia.
+     */
+    private Map<Long, Profile> fetchProfiles(List<FinalScore> scores) {
+        List<FinalScore> unknown = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (FinalScore score : scores) {
+                if (!profilesByUser.containsKey(score.getPlayerId())) {
+                    unknown.add(score);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<Long, Profile> profiles = new HashMap<>();
+        for (FinalScore score : unknown) {
+            Ranking row = rankingRepository.findGeneralRankByUserId(score.getPlayerId());
+            if (row != null && row.getAllPoints() > 0) {
+                profiles.put(score.getPlayerId(), new Profile(score.getPlayerName(), row.getPlayerImageUrl()));
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * @return dane profilu gracza lub null, jesli gracza nie ma w rankingach i nie ma on punktow doswiadczenia
+     */
+    private Profile profileOf(FinalScore score, Map<Long, Profile> fetchedProfiles) {
+        Profile profile = profilesByUser.get(score.getPlayerId());
+        if (profile == null) {
+            profile = fetchedProfiles.get(score.getPlayerId());
+            if (profile != null) {
+                profilesByUser.put(score.getPlayerId(), profile);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Ranking jednej kategorii.
+     */
+    private static final class Board {
+        private final OrderStatisticTree<Entry> ranking = new OrderStatisticTree<>(BY_POINTS_DESCENDING);
+        private final Map<Long, Entry> entriesByUser = new HashMap<>();
+
+        private void put(Entry entry) {
+            ranking.add(entry);
+            entriesByUser.put(entry.userId, entry);
+        }
+
+        private void replace(Entry current, Entry updated) {
+            if (current != null) {
+                ranking.remove(current);
+                entriesByUser.remove(current.userId);
+            }
+            if (updated != null) {
+                put(updated);
+            }
+        }
+    }
+
+    /**
+     * Dane gracza wspolne dla wszystkich kategorii (modyfikowane pod blokada zapisu).
+     */
+    private static final class Profile {
+        private String name;
+        private String imageUrl;
+
+        private Profile(String name, String imageUrl) {
+            this.name = name;
+            this.imageUrl = imageUrl;
+        }
+    }
+
+    /**
+     * Niezmienna pozycja rankingu kategorii - kazda zmiana wyniku tworzy nowa pozycję.
+     */
+    private static final class Entry {
+        private final long userId;
+        private final Profile profile;
+        private final int gamesPlayed;
+        private final long points;
+
+        private Entry(long userId, Profile profile, int gamesPlayed, long points) {
+            this.userId = userId;
+            this.profile = profile;
+            this.gamesPlayed = gamesPlayed;
+            this.points = points;
+        }
+
+        private Ranking toRanking(int position) {
+            Ranking ranking = new Ranking();
+            ranking.setPosition(position);
+            ranking.setUserID(userId);
+            ranking.setPlayerName(profile.name);
+            ranking.setPlayerImageUrl(profile.imageUrl);
+            ranking.setGamePlayed(gamesPlayed);
+            ranking.setAllPoints((int) Math.min(Integer.MAX_VALUE, points));
+            return ranking;
+        }
+    }
+}
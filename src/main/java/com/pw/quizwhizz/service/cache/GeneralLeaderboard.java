@@ -0,0 +1,268 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.dto.Ranking;
+import com.pw.quizwhizz.repository.impl.RankingRepository;
+import com.pw.quizwhizz.util.OrderStatisticTree;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ranking generalny graczy przechowywany w pamięci. Gracze posiadajacy punkty doswiadczenia sa wczytywani raz,
+ * przy starcie aplikacji, do drzewa statystyk pozycyjnych uporzadkowanego malejaco wg punktow doswiadczenia
+ * (przy rownej liczbie punktow - rosnaco wg id), a następnie ranking aktualizowany jest przy kazdej zmianie punktow
+ * gracza. Odczyt n najlepszych graczy nie wymaga zapytania do bazy danych i kosztuje O(log N + n), a miejsce gracza
+ * w rankingu wyznaczane jest w czasie O(log N).
+ * Zapisy (np. z wielu rownoczesnie zamykanych gier) sa wykonywane pod blokada zapisu, odczyty moga odbywac się
+ * rownolegle.
+ *
+ * @author Michał Nowiński
+ * @see OrderStatisticTree
+ */
+@Component
+public class GeneralLeaderboard {
+    private static final Comparator<Entry> BY_XP_DESCENDING = Comparator
+            .comparingInt((Entry entry) -> entry.xp).reversed()
+            .thenComparingLong(entry -> entry.userId);
+
+    private final RankingRepository rankingRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OrderStatisticTree<Entry> ranking = new OrderStatisticTree<>(BY_XP_DESCENDING);
+    private final Map<Long, Entry> entriesByUser = new HashMap<>();
+
+    @Autowired
+    public GeneralLeaderboard(RankingRepository rankingRepository) {
+        this.rankingRepository = rankingRepository;
+    }
+
+    /**
+     * Wczytuje ranking z bazy danych.
+     */
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            ranking.clear();
+            entriesByUser.clear();
+            rankingRepository.forEachGeneralRank(row -> put(new Entry(row)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param limit liczba graczy
+     * @return najlepsi gracze, od gracza z najwiekszą liczba punktow doswiadczenia
+     */
+    public List<Ranking> findTop(int limit) {
+        lock.readLock().lock();
+        try {
+            return toRankings(ranking.range(0, limit), 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param userId numer id gracza
+     * @return miejsce gracza w rankingu (od 1) lub 0, jesli gracz nie ma punktow doswiadczenia
+     */
+    public int findPosition(long userId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entriesByUser.get(userId);
+            return entry == null ? 0 : ranking.rank(entry) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param userId numer id gracza
+     * @param radius liczba graczy wyswietlanych przed i za graczem
+     * @return fragment rankingu wokol gracza (pusty, jesli gracza nie ma w rankingu)
+     */
+    public List<Ranking> findAround(long userId, int radius) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entriesByUser.get(userId);
+            if (entry == null) {
+                return Collections.emptyList();
+            }
+            int position = ranking.rank(entry);
+            int from = Math.max(0, position - radius);
+            return toRankings(ranking.range(from, position + radius + 1 - from), from);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Metoda doliczajaca graczowi wynik rozegranej gry - punkty doswiadczenia i jedna grę (przyrostowo, tak jak
+     * w bazie danych, wiec rownolegle gry i bonusy za wygrana nie sa nadpisywane). Gracz spoza rankingu jest
+     * dodawany z aktualnymi danymi odczytanymi z bazy danych (poza blokada), ktore uwzględniaja juz ten wynik -
+     * metoda wywolywana jest dopiero po zatwierdzeniu transakcji zapisujacej wynik.
+     *
+     * @param userId numer id gracza
+     * @param name   imię gracza
+     * @param points liczba punktow zdobytych w grze
+     */
+    public void addGameResult(long userId, String name, int points) {
+        lock.writeLock().lock();
+        try {
+            Entry current = entriesByUser.get(userId);
+            if (current != null) {
+                replace(current, new Entry(userId, name, current.imageUrl, current.xp + points, current.gamesPlayed + 1));
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (points <= 0) {
+            return;
+        }
+
+        Ranking row = rankingRepository.findGeneralRankByUserId(userId);
+        if (row == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry current = entriesByUser.get(userId);
+            Entry updated = current != null
+                    ? new Entry(userId, name, current.imageUrl, current.xp + points, current.gamesPlayed + 1)
+                    : new Entry(userId, name, row.getPlayerImageUrl(), row.getAllPoints(), row.getGamePlayed());
+            replace(current, updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Metoda dodajaca graczowi punkty doswiadczenia (np. bonus za wygrana). Gracze spoza rankingu sa pomijani -
+     * pojawia się w nim przy najblizszej aktualizacji.
+     *
+     * @param userId numer id gracza
+     * @param xp     liczba dodawanych punktow
+     */
+    public void addXp(long userId, int xp) {
+        lock.writeLock().lock();
+        try {
+            Entry current = entriesByUser.get(userId);
+            if (current != null) {
+                replace(current, new Entry(userId, current.name, current.imageUrl, current.xp + xp, current.gamesPlayed));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Metoda aktualizujaca dane profilu gracza wyswietlane w rankingu.
+     *
+     * @param userId   numer id gracza
+     * @param name     imię gracza
+     * @param imageUrl adres obrazu profilowego
+     */
+    public void updateProfile(long userId, String name, String imageUrl) {
+        lock.writeLock().lock();
+        try {
+            Entry current = entriesByUser.get(userId);
+            if (current != null) {
+                replace(current, new Entry(userId, name, imageUrl, current.xp, current.gamesPlayed));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param userId numer id usuwanego gracza
+     */
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            replace(entriesByUser.get(userId), null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return liczba graczy w rankingu
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ranking.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Ranking> toRankings(List<Entry> entries, int from) {
+        List<Ranking> rankings = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            rankings.add(entries.get(i).toRanking(from + i + 1));
+        }
+        return rankings;
+    }
+
+    private void replace(Entry current, Entry updated) {
+        if (current != null) {
+            ranking.remove(current);
+            entriesByUser.remove(current.userId);
+        }
+        if (updated != null && updated.xp > 0) {
+            put(updated);
+        }
+    }
+
+    private void put(Entry entry) {
+        ranking.add(entry);
+        entriesByUser.put(entry.userId, entry);
+    }
+
+    /**
+     * Niezmienna pozycja rankingu - zmiana punktow gracza tworzy nowa pozycję.
+     */
+    private static final class Entry {
+        private final long userId;
+        private final String name;
+        private final String imageUrl;
+        private final int xp;
+        private final int gamesPlayed;
+
+        private Entry(long userId, String name, String imageUrl, int xp, int gamesPlayed) {
+            this.userId = userId;
+            this.name = name;
+            this.imageUrl = imageUrl;
+            this.xp = xp;
+            this.gamesPlayed = gamesPlayed;
+        }
+
+        private Entry(Ranking row) {
+            this(row.getUserID(), row.getPlayerName(), row.getPlayerImageUrl(), row.getAllPoints(), row.getGamePlayed());
+        }
+
+        private Ranking toRanking(int position) {
+            Ranking ranking = new Ranking();
+            ranking.setPosition(position);
+            ranking.setUserID(userId);
+            ranking.setPlayerName(name);
+            ranking.setPlayerImageUrl(imageUrl);
+            ranking.setAllPoints(xp);
+            ranking.setGamePlayed(gamesPlayed);
+            return ranking;
+        }
+    }
+}
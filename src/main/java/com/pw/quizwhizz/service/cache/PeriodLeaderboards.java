@@ -0,0 +1,415 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.dto.FinalScore;
+import com.pw.quizwhizz.model.dto.Ranking;
+import com.pw.quizwhizz.model.dto.RankingPeriod;
+import com.pw.quizwhizz.repository.impl.RankingRepository;
+import com.pw.quizwhizz.service.game.GameClosedEvent;
+import com.pw.quizwhizz.util.OrderStatisticTree;
+import com.pw.quizwhizz.util.RecentIdSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Rankingi graczy z ostatnich dni (dzis, 7 dni, 30 dni) przechowywane w pamięci. Punkty i liczby gier graczy
+ * zbierane sa w koszykach dziennych, a kazdy okres ma wlasny ranking (drzewo statystyk pozycyjnych) z sumami
+ * z koszykow mieszczacych się w oknie okresu.
+ * <p>
+ * Wyniki zamkniętej gry ({@link GameClosedEvent}) dodawane sa do koszyka dnia jej rozpoczęcia i do rankingow,
+ * w ktorych oknie miesci się ten dzien. Zdarzenie opublikowane w transakcji uwzględniane jest dopiero po jej
+ * zatwierdzeniu, a powtorzone zdarzenie zamknięcia tej samej gry jest pomijane.
+ * Po zmianie dnia koszyki wychodzace poza okno okresu sa odejmowane od jego rankingu, a koszyki starsze niz
+ * najdluzszy okres - usuwane. Koszt odczytu nie zalezy wiec od dlugosci historii gier.
+ * <p>
+ * Przy starcie aplikacji koszyki wczytywane sa jednym zapytaniem obejmujacym zamknięte gry z najdluzszego okresu.
+ * Zarowno przy wczytywaniu, jak i po zamknięciu gry dzien gry wyznaczany jest z czasu jej rozpoczęcia zapisanego
+ * w bazie danych, w strefie czasowej {@link #ZONE}.
+ *
+ * @author Michał Nowiński
+ * @see RankingPeriod
+ * @see OrderStatisticTree
+ */
+@Component
+public class PeriodLeaderboards {
+    private static final Comparator<Entry> BY_POINTS_DESCENDING = Comparator
+            .comparingLong((Entry entry) -> entry.points).reversed()
+            .thenComparing(Comparator.comparingInt((Entry entry) -> entry.gamesPlayed).reversed())
+            .thenComparingLong(entry -> entry.userId);
+    /**
+     * Strefa czasowa wyznaczajaca granice dni rankingow.
+     */
+    public static final ZoneId ZONE = ZoneId.of("Europe/Warsaw");
+    /**
+     * Liczba ostatnio doliczonych gier pamiętanych w celu pominięcia powtorzonego zdarzenia zamknięcia gry.
+     */
+    static final int RECENT_GAMES_CAPACITY = 10_000;
+
+    private final RankingRepository rankingRepository;
+    private final Clock clock;
+    private final int retainedDays;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<LocalDate, Map<Long, Totals>> dailyBuckets = new TreeMap<>();
+    private final Map<RankingPeriod, Board> boardsByPeriod = new EnumMap<>(RankingPeriod.class);
+    private final Map<Long, Profile> profilesByUser = new HashMap<>();
+    private final RecentIdSet countedGames = new RecentIdSet(RECENT_GAMES_CAPACITY);
+    private volatile LocalDate today;
+
+    @Autowired
+    public PeriodLeaderboards(RankingRepository rankingRepository) {
+        this(rankingRepository, Clock.system(ZONE));
+    }
+
+    /**
+     * Konstruktor wykorzystywany w celach testowych, umozliwiajacy podanie wlasnego zrodla czasu.
+     *
+     * @param rankingRepository repozytorium rankingow
+     * @param clock             zegar wyznaczajacy biezaca chwilę (dzien wyznaczany jest w strefie {@link #ZONE})
+     */
+    public PeriodLeaderboards(RankingRepository rankingRepository, Clock clock) {
+        this.rankingRepository = rankingRepository;
+        this.clock = clock;
+        int days = 0;
+        for (RankingPeriod period : RankingPeriod.values()) {
+            if (period.getDays() > 0) {
+                boardsByPeriod.put(period, new Board(period.getDays()));
+                days = Math.max(days, period.getDays());
+            }
+        }
+        this.retainedDays = days;
+    }
+
+    /**
+     * Wczytuje dzienne sumy punktow graczy z najdluzszego okresu z bazy danych.
+     */
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            dailyBuckets.clear();
+            profilesByUser.clear();
+            boardsByPeriod.values().forEach(Board::clear);
+            countedGames.clear();
+            today = today();
+            Instant from = today.minusDays(retainedDays - 1).atStartOfDay(ZONE).toInstant();
+            rankingRepository.forEachDailyRank(from, ZONE, (day, row) -> {
+                Profile profile = profilesByUser.computeIfAbsent(row.getUserID(),
+                        id -> new Profile(row.getPlayerName(), row.getPlayerImageUrl()));
+                add(day, row.getUserID(), profile, row.getGamePlayed(), row.getAllPoints());
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param period okres rankingu (rozny od {@link RankingPeriod#ALL})
+     * @param limit  liczba graczy
+     * @return najlepsi gracze okresu, od gracza z najwiekszą suma punktow
+     */
+    public List<Ranking> findTop(RankingPeriod period, int limit) {
+        rollOver();
+        lock.readLock().lock();
+        try {
+            Board board = boardsByPeriod.get(period);
+            if (board == null) {
+                return Collections.emptyList();
+            }
+            List<Entry> entries = board.ranking.range(0, limit);
+            List<Ranking> rankings = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                rankings.add(entries.get(i).toRanking(i + 1));
+            }
+            return rankings;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Dolicza wyniki zamkniętej gry do koszyka dnia jej rozpoczęcia (gry bez czasu rozpoczęcia - do dzisiejszego).
+     * Gry rozpoczęte przed najdluzszym okresem sa pomijane. Gracze bez punktow doswiadczenia nie sa dodawani
+     * do rankingow (tak jak w rankingu generalnym) - o dodaniu gracza spoza rankingow decyduja jego punkty
+     * doswiadczenia odczytane z bazy danych po zatwierdzeniu gry. Dane profilu nowych graczy pobierane sa
+     * przed zalozeniem blokady zapisu. Zdarzenie opublikowane w transakcji zamykajacej grę uwzględniane jest dopiero
+     * po jej zatwierdzeniu.
+     *
+     * @param event zdarzenie zamknięcia gry
+     */
+    @EventListener
+    public void onGameClosed(GameClosedEvent event) {
+        afterCommit(() -> addGame(event));
+    }
+
+    private void addGame(GameClosedEvent event) {
+        if (!countedGames.add(event.getGameId())) {
+            return;
+        }
+        rollOver();
+        Map<Long, Profile> fetchedProfiles = fetchProfiles(event.getScores());
+        lock.writeLock().lock();
+        try {
+            LocalDate day = event.getStartTime() == null ? today : event.getStartTime().atZone(ZONE).toLocalDate();
+            if (day.isAfter(today)) {
+                day = today;
+            } else if (day.isBefore(today.minusDays(retainedDays - 1))) {
+                return;
+            }
+            for (FinalScore score : event.getScores()) {
+                Profile profile = profileOf(score, fetchedProfiles);
+                if (profile != null) {
+                    add(day, score.getPlayerId(), profile, 1, score.getPoints());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Metoda aktualizujaca dane profilu gracza wyswietlane w rankingach.
+     *
+     * @param userId   numer id gracza
+     * @param name     imię gracza
+     * @param imageUrl adres obrazu profilowego
+     */
+    public void updateProfile(long userId, String name, String imageUrl) {
+        lock.writeLock().lock();
+        try {
+            Profile profile = profilesByUser.get(userId);
+            if (profile != null) {
+                profile.name = name;
+                profile.imageUrl = imageUrl;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param userId numer id usuwanego gracza
+     */
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            if (profilesByUser.remove(userId) == null) {
+                return;
+            }
+            dailyBuckets.values().forEach(bucket -> bucket.remove(userId));
+            boardsByPeriod.values().forEach(board -> board.replace(board.entriesByUser.get(userId), null));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Przesuwa okna rankingow po zmianie dnia: odejmuje od rankingu okresu koszyki, ktore wyszly poza jego okno,
+     * i usuwa koszyki starsze niz najdluzszy okres.
+     */
+    private void rollOver() {
+        if (today().equals(today)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            LocalDate now = today();
+            if (now.equals(today)) {
+                return;
+            }
+            for (Board board : boardsByPeriod.values()) {
+                LocalDate previousStart = today.minusDays(board.days - 1);
+                LocalDate start = now.minusDays(board.days - 1);
+                if (!start.isAfter(previousStart)) {
+                    continue;
+                }
+                for (Map.Entry<LocalDate, Map<Long, Totals>> bucket : dailyBuckets.subMap(previousStart, start).entrySet()) {
+                    for (Map.Entry<Long, Totals> totals : bucket.getValue().entrySet()) {
+                        board.add(totals.getKey(), null, -totals.getValue().gamesPlayed, -totals.getValue().points);
+                    }
+                }
+            }
+            dailyBuckets.headMap(now.minusDays(retainedDays - 1)).clear();
+            today = now;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    private LocalDate today() {
+        return clock.instant().atZone(ZONE).toLocalDate();
+    }
+
+    private void add(LocalDate day, long userId, Profile profile, int gamesPlayed, long points) {
+        Totals totals = dailyBuckets.computeIfAbsent(day, d -> new HashMap<>()).computeIfAbsent(userId, id -> new Totals());
+        totals.gamesPlayed += gamesPlayed;
+        totals.points += points;
+        for (Board board : boardsByPeriod.values()) {
+            if (!day.isBefore(today.minusDays(board.days - 1))) {
+                board.add(userId, profile, gamesPlayed, points);
+            }
+        }
+    }
+
+    /**
+     * Pobiera z bazy danych dane profilu graczy, ktorych nie ma jeszcze w rankingach - tylko tych, ktorzy maja
+     * punkty doswiadczenia.
+     */
+    private Map<Long, Profile> fetchProfiles(List<FinalScore> scores) {
+        List<FinalScore> unknown = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (FinalScore score : scores) {
+                if (!profilesByUser.containsKey(score.getPlayerId())) {
+                    unknown.add(score);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<Long, Profile> profiles = new HashMap<>();
+        for (FinalScore score : unknown) {
+            Ranking row = rankingRepository.findGeneralRankByUserId(score.getPlayerId());
+            if (row != null && row.getAllPoints() > 0) {
+                profiles.put(score.getPlayerId(), new Profile(score.getPlayerName(), row.getPlayerImageUrl()));
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * @return dane profilu gracza lub null, jesli gracza nie ma w rankingach i nie ma on punktow doswiadczenia
+     */
+    private Profile profileOf(FinalScore score, Map<Long, Profile> fetchedProfiles) {
+        Profile profile = profilesByUser.get(score.getPlayerId());
+        if (profile == null) {
+            profile = fetchedProfiles.get(score.getPlayerId());
+            if (profile != null) {
+                profilesByUser.put(score.getPlayerId(), profile);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Ranking jednego okresu.
+     */
+    private static final class Board {
+        private final int days;
+        private final OrderStatisticTree<Entry> ranking = new OrderStatisticTree<>(BY_POINTS_DESCENDING);
+        private final Map<Long, Entry> entriesByUser = new HashMap<>();
+
+        private Board(int days) {
+            this.days = days;
+        }
+
+        /**
+         * Zmienia sumy gracza o podane wartosci. Gracz bez gier w oknie okresu jest usuwany z rankingu.
+         */
+        private void add(long userId, Profile profile, int gamesPlayed, long points) {
+            Entry current = entriesByUser.get(userId);
+            if (current == null && profile == null) {
+                return;
+            }
+            Entry updated = current != null
+                    ? new Entry(userId, current.profile, current.gamesPlayed + gamesPlayed, current.points + points)
+                    : new Entry(userId, profile, gamesPlayed, points);
+            replace(current, updated.gamesPlayed > 0 ? updated : null);
+        }
+
+        private void replace(Entry current, Entry updated) {
+            if (current != null) {
+                ranking.remove(current);
+                entriesByUser.remove(current.userId);
+            }
+            if (updated != null) {
+                ranking.add(updated);
+                entriesByUser.put(updated.userId, updated);
+            }
+        }
+
+        private void clear() {
+            ranking.clear();
+            entriesByUser.clear();
+        }
+    }
+
+    /**
+     * Suma punktow i liczba gier gracza w jednym dniu (modyfikowane pod blokada zapisu).
+     */
+    private static final class Totals {
+        private int gamesPlayed;
+        private long points;
+    }
+
+    /**
+     * Dane gracza wspolne dla wszystkich okresow (modyfikowane pod blokada zapisu).
+     */
+    private static final class Profile {
+        private String name;
+        private String imageUrl;
+
+        private Profile(String name, String imageUrl) {
+            this.name = name;
+            this.imageUrl = imageUrl;
+        }
+    }
+
+    /**
+     * Niezmienna pozycja rankingu okresu - kazda zmiana wyniku tworzy nowa pozycję.
+     */
+    private static final class Entry {
+        private final long userId;
+        private final Profile profile;
+        private final int gamesPlayed;
+        private final long points;
+
+        private Entry(long userId, Profile profile, int gamesPlayed, long points) {
+            this.userId = userId;
+            this.profile = profile;
+            this.gamesPlayed = gamesPlayed;
+            this.points = points;
+        }
+
+        private Ranking toRanking(int position) {
+            Ranking ranking = new Ranking();
+            ranking.setPosition(position);
+            ranking.setUserID(userId);
+            ranking.setPlayerName(profile.name);
+            ranking.setPlayerImageUrl(profile.imageUrl);
+            ranking.setGamePlayed(gamesPlayed);
+            ranking.setAllPoints((int) Math.min(Integer.MAX_VALUE, points));
+            return ranking;
+        }
+    }
+}
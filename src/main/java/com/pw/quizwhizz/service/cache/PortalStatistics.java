@@ -0,0 +1,285 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.dto.FinalScore;
+import com.pw.quizwhizz.model.dto.StatisticCounter;
+import com.pw.quizwhizz.model.dto.Statistics;
+import com.pw.quizwhizz.model.game.Category;
+import com.pw.quizwhizz.repository.impl.StatisticsRepository;
+import com.pw.quizwhizz.service.game.GameClosedEvent;
+import com.pw.quizwhizz.util.RecentIdSet;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statystyki portalu przechowywane w pamięci: liczba rozegranych gier, liczba gier wieloosobowych, liczba gier
+ * w poszczegolnych kategoriach oraz histogram zdobytych punktow. Liczniki aktualizowane sa po zamknięciu kazdej gry
+ * ({@link GameClosedEvent}) - dopiero po zatwierdzeniu transakcji zamykajacej grę - a gotowy obiekt statystyk jest
+ * budowany dopiero przy pierwszym odczycie po zmianie, wiec wyswietlenie strony glownej nie wymaga zapytan do bazy danych.
+ * <p>
+ * Liczniki zapisywane sa co kilka minut (i przy zamykaniu aplikacji) jako migawka, a w tej samej transakcji gry
+ * doliczone od poprzedniego zapisu oznaczane sa jako uwzględnione w migawce. Przy starcie aplikacji wczytywana jest
+ * migawka, a następnie doliczane wyniki zamkniętych gier, ktore nie zostaly w niej uwzględnione - gry trwajace
+ * w chwili startu zostana doliczone dopiero po ich zamknięciu.
+ *
+ * @author Michał Nowiński
+ * @see StatisticsRepository
+ */
+@Component
+public class PortalStatistics {
+    /**
+     * Odstęp pomiędzy kolejnymi zapisami migawki w minutach.
+     */
+    static final long SAVE_INTERVAL_IN_MINUTES = 5;
+    static final String GAMES = "games";
+    static final String MULTIPLAYER_GAMES = "multiplayer_games";
+    static final String CATEGORY_GAMES = "category_games";
+    static final String SCORES = "scores";
+    /**
+     * Liczba ostatnio doliczonych gier pamiętanych w celu pominięcia powtorzonego zdarzenia zamknięcia gry.
+     */
+    static final int RECENT_GAMES_CAPACITY = 10_000;
+    private static final Log log = LogFactory.getLog(PortalStatistics.class);
+
+    private final StatisticsRepository statisticsRepository;
+    private final CategoryCache categoryCache;
+    private final Map<Long, Long> gamesByCategory = new HashMap<>();
+    private final Map<Integer, Long> scoreHistogram = new HashMap<>();
+    private final List<Long> unsavedGameIds = new ArrayList<>();
+    private final RecentIdSet countedGames = new RecentIdSet(RECENT_GAMES_CAPACITY);
+    private final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "portal-statistics-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long numberGames;
+    private long numberMPGames;
+    private boolean unsaved;
+    private volatile Statistics statistics;
+
+    @Autowired
+    public PortalStatistics(StatisticsRepository statisticsRepository, CategoryCache categoryCache) {
+        this.statisticsRepository = statisticsRepository;
+        this.categoryCache = categoryCache;
+    }
+
+    /**
+     * Wczytuje statystyki i uruchamia okresowy zapis migawki.
+     */
+    @PostConstruct
+    public void init() {
+        load();
+        saver.scheduleWithFixedDelay(this::save, SAVE_INTERVAL_IN_MINUTES, SAVE_INTERVAL_IN_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Wczytuje zapisana migawkę licznikow i dolicza wyniki zamkniętych gier nieuwzględnionych w migawce.
+     */
+    public synchronized void load() {
+        numberGames = 0;
+        numberMPGames = 0;
+        gamesByCategory.clear();
+        scoreHistogram.clear();
+        unsavedGameIds.clear();
+        countedGames.clear();
+        for (StatisticCounter counter : statisticsRepository.findSnapshot()) {
+            restore(counter);
+        }
+
+        long[] game = {0, 0};
+        List<Integer> points = new ArrayList<>();
+        statisticsRepository.forEachUncountedScore(row -> {
+            if (row.getGameId() != game[0] && !points.isEmpty()) {
+                record(game[0], game[1], points);
+                points.clear();
+            }
+            game[0] = row.getGameId();
+            game[1] = row.getCategoryId();
+            points.add(row.getPoints());
+        });
+        if (!points.isEmpty()) {
+            record(game[0], game[1], points);
+        }
+        unsaved = !unsavedGameIds.isEmpty();
+        statistics = null;
+    }
+
+    /**
+     * @return statystyki portalu zbudowane z licznikow przechowywanych w pamięci
+     */
+    public Statistics findStatistic() {
+        Statistics current = statistics;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (statistics == null) {
+                statistics = build();
+            }
+            return statistics;
+        }
+    }
+
+    /**
+     * Dolicza zamkniętą grę do statystyk. Gry bez wynikow (tak jak w zapytaniu statystyk) oraz gry juz doliczone
+     * sa pomijane. Zdarzenie opublikowane w transakcji uwzględniane jest dopiero po jej zatwierdzeniu - gra, ktorej
+     * zamknięcie wycofano, nie trafia do licznikow ani do listy gier uwzględnionych w migawce.
+     *
+     * @param event zdarzenie zamknięcia gry
+     */
+    @EventListener
+    public void onGameClosed(GameClosedEvent event) {
+        afterCommit(() -> addGame(event));
+    }
+
+    private synchronized void addGame(GameClosedEvent event) {
+        if (event.getScores().isEmpty() || countedGames.contains(event.getGameId())) {
+            return;
+        }
+        List<Integer> points = new ArrayList<>(event.getScores().size());
+        for (FinalScore score : event.getScores()) {
+            points.add(score.getPoints());
+        }
+        record(event.getGameId(), event.getCategoryId(), points);
+        unsaved = true;
+        statistics = null;
+    }
+
+    /**
+     * Zapisuje migawkę licznikow, jesli zmienily się od ostatniego zapisu.
+     */
+    public void save() {
+        List<StatisticCounter> counters;
+        List<Long> gameIds;
+        synchronized (this) {
+            if (!unsaved) {
+                return;
+            }
+            counters = toCounters();
+            gameIds = new ArrayList<>(unsavedGameIds);
+            unsavedGameIds.clear();
+            unsaved = false;
+        }
+        try {
+            statisticsRepository.saveSnapshot(counters, gameIds);
+        } catch (RuntimeException e) {
+            log.error("Nie udalo się zapisac migawki statystyk portalu", e);
+            synchronized (this) {
+                unsavedGameIds.addAll(gameIds);
+                unsaved = true;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        saver.shutdownNow();
+        save();
+    }
+
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    private void record(long gameId, long categoryId, List<Integer> points) {
+        if (!countedGames.add(gameId)) {
+            return;
+        }
+        unsavedGameIds.add(gameId);
+        numberGames++;
+        if (points.size() >= 2) {
+            numberMPGames++;
+        }
+        gamesByCategory.merge(categoryId, 1L, Long::sum);
+        for (Integer point : points) {
+            scoreHistogram.merge(point, 1L, Long::sum);
+        }
+    }
+
+    private void restore(StatisticCounter counter) {
+        switch (counter.getName()) {
+            case GAMES:
+                numberGames = counter.getValue();
+                break;
+            case MULTIPLAYER_GAMES:
+                numberMPGames = counter.getValue();
+                break;
+            case CATEGORY_GAMES:
+                gamesByCategory.put(counter.getKey(), counter.getValue());
+                break;
+            case SCORES:
+                scoreHistogram.put((int) counter.getKey(), counter.getValue());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private List<StatisticCounter> toCounters() {
+        List<StatisticCounter> counters = new ArrayList<>(gamesByCategory.size() + scoreHistogram.size() + 2);
+        counters.add(new StatisticCounter(GAMES, 0, numberGames));
+        counters.add(new StatisticCounter(MULTIPLAYER_GAMES, 0, numberMPGames));
+        gamesByCategory.forEach((categoryId, games) -> counters.add(new StatisticCounter(CATEGORY_GAMES, categoryId, games)));
+        scoreHistogram.forEach((points, count) -> counters.add(new StatisticCounter(SCORES, points, count)));
+        return counters;
+    }
+
+    /**
+     * Buduje obiekt statystyk. Przy rownej liczbie gier wybierana jest kategoria o mniejszym id, a przy rownej
+     * liczbie wynikow - mniejsza liczba punktow. Kategorie usunięte z portalu sa pomijane.
+     */
+    private Statistics build() {
+        String mostPopularCategory = null;
+        long categoryGames = 0;
+        long categoryId = Long.MAX_VALUE;
+        for (Map.Entry<Long, Long> entry : gamesByCategory.entrySet()) {
+            boolean better = entry.getValue() > categoryGames
+                    || (entry.getValue() == categoryGames && entry.getKey() < categoryId);
+            Category category = better ? categoryCache.findById(entry.getKey()) : null;
+            if (category != null) {
+                mostPopularCategory = category.getName();
+                categoryGames = entry.getValue();
+                categoryId = entry.getKey();
+            }
+        }
+
+        int mostPopularScore = 0;
+        long scoreCount = 0;
+        for (Map.Entry<Integer, Long> entry : scoreHistogram.entrySet()) {
+            if (entry.getValue() > scoreCount || (entry.getValue() == scoreCount && entry.getKey() < mostPopularScore)) {
+                mostPopularScore = entry.getKey();
+                scoreCount = entry.getValue();
+            }
+        }
+
+        Statistics built = new Statistics();
+        built.setNumberGames((int) Math.min(Integer.MAX_VALUE, numberGames));
+        built.setNumberMPGames((int) Math.min(Integer.MAX_VALUE, numberMPGames));
+        built.setMostPopularCategory(mostPopularCategory);
+        built.setMostPopularScore(mostPopularScore);
+        return built;
+    }
+}
@@ -0,0 +1,274 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.entity.game.AnswerEntity;
+import com.pw.quizwhizz.entity.game.CategoryEntity;
+import com.pw.quizwhizz.entity.game.QuestionEntity;
+import com.pw.quizwhizz.model.game.Answer;
+import com.pw.quizwhizz.model.game.Category;
+import com.pw.quizwhizz.model.game.Question;
+import com.pw.quizwhizz.repository.game.QuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Pamięc podręczna pytan wykorzystywanych w grach. Kazde pytanie przechowywane jest jednokrotnie jako wspoldzielona
+ * instancja Question (tresci pytan i odpowiedzi sa internowane, listy odpowiedzi niemodyfikowalne, a kategoria
+ * pochodzi z {@link CategoryCache}) i zwracana wszystkim grom, ktore z niego korzystaja - zwracanych obiektow
+ * nie nalezy modyfikowac. Rozmiar pamięci ograniczony jest szacowana liczba bajtow; po jej przekroczeniu usuwane
+ * sa najdawniej uzywane pytania.
+ * <p>
+ * Brakujace pytania wczytywane sa poza blokada - jesli w tym czasie pamięc zostala uniewazniona (zmiana pytania
+ * lub kategorii), wczytane pytania sa zwracane, ale nie sa w niej umieszczane, tak jak w {@link CategoryCache}.
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.service.impl.QuestionServiceImpl
+ */
+@Component
+public class QuestionBank {
+    /**
+     * Szacowany rozmiar pamięci przeznaczonej na pytania w bajtach.
+     */
+    static final long MEMORY_BUDGET_IN_BYTES = 16 * 1024 * 1024;
+    private static final int QUESTION_OVERHEAD_IN_BYTES = 96;
+    private static final int ANSWER_OVERHEAD_IN_BYTES = 64;
+
+    private final QuestionRepository questionRepository;
+    private final CategoryCache categoryCache;
+    private final long memoryBudget;
+    private final LinkedHashMap<Long, Entry> questions = new LinkedHashMap<>(256, 0.75f, true);
+    private long usedMemory;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long puts;
+
+    @Autowired
+    public QuestionBank(QuestionRepository questionRepository, CategoryCache categoryCache) {
+        this(questionRepository, categoryCache, MEMORY_BUDGET_IN_BYTES);
+    }
+
+    /**
+     * Konstruktor wykorzystywany w celach testowych, umozliwiajacy podanie rozmiaru pamięci.
+     *
+     * @param questionRepository repozytorium, z ktorego wczytywane sa brakujace pytania
+     * @param categoryCache      pamięc podręczna kategorii
+     * @param memoryBudget       szacowany rozmiar pamięci w bajtach
+     */
+    QuestionBank(QuestionRepository questionRepository, CategoryCache categoryCache, long memoryBudget) {
+        this.questionRepository = questionRepository;
+        this.categoryCache = categoryCache;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Metoda zwracajaca pytania o podanych id. Pytania, ktorych nie ma w pamięci, pobierane sa z bazy danych
+     * jednym zapytaniem (wraz z kategoria i odpowiedziami).
+     *
+     * @param ids numery id pytan
+     * @return lista wspoldzielonych pytan w kolejnosci id; pytania nieistniejace w bazie danych sa pomijane
+     */
+    public List<Question> findAllById(List<Long> ids) {
+        Map<Long, Question> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long expectedGeneration;
+        synchronized (this) {
+            expectedGeneration = generation;
+            for (Long id : ids) {
+                Entry entry = questions.get(id);
+                if (entry != null) {
+                    hits++;
+                    found.put(id, entry.question);
+                } else {
+                    misses++;
+                    missing.add(id);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (QuestionEntity questionEntity : questionRepository.findAllWithAnswersByIdIn(missing)) {
+                found.put(questionEntity.getId(), cache(questionEntity, expectedGeneration));
+            }
+        }
+
+        List<Question> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Question question = found.get(id);
+            if (question != null) {
+                result.add(question);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Metoda umieszczajaca w pamięci pytanie pobrane z bazy danych.
+     *
+     * @param questionEntity encja pytania wraz z kategoria i odpowiedziami
+     * @return wspoldzielona instancja pytania (instancja juz przechowywana w pamięci, jesli pytanie w niej bylo)
+     */
+    public Question cache(QuestionEntity questionEntity) {
+        long expectedGeneration;
+        synchronized (this) {
+            expectedGeneration = generation;
+        }
+        return cache(questionEntity, expectedGeneration);
+    }
+
+    /**
+     * Umieszcza pytanie w pamięci, o ile nie zostala ona uniewazniona od chwili rozpoczęcia jego wczytywania.
+     */
+    private Question cache(QuestionEntity questionEntity, long expectedGeneration) {
+        Entry created = new Entry(convertToQuestion(questionEntity));
+        synchronized (this) {
+            if (generation != expectedGeneration) {
+                return created.question;
+            }
+            Entry existing = questions.get(created.question.getId());
+            if (existing != null) {
+                return existing.question;
+            }
+            questions.put(created.question.getId(), created);
+            puts++;
+            usedMemory += created.weight;
+            evictOverBudget();
+        }
+        return created.question;
+    }
+
+    /**
+     * Usuwa pytanie z pamięci. Wywolana w transakcji usuwa je ponownie po zakonczeniu transakcji.
+     *
+     * @param questionId numer id pytania
+     */
+    public void invalidate(long questionId) {
+        remove(questionId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(questionId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Usuwa z pamięci pytania kategorii, np. po zmianie nazwy lub obrazu kategorii.
+     *
+     * @param event zdarzenie zmiany pytan w kategorii
+     */
+    @EventListener
+    public synchronized void onQuestionBankChanged(QuestionBankChangedEvent event) {
+        generation++;
+        Iterator<Entry> iterator = questions.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.question.getCategory().getId() == event.getCategoryId()) {
+                usedMemory -= entry.weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return liczba pytan w pamięci
+     */
+    public synchronized int size() {
+        return questions.size();
+    }
+
+    /**
+     * @return szacowany rozmiar pamięci zajmowanej przez pytania w bajtach
+     */
+    public synchronized long getUsedMemory() {
+        return usedMemory;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return liczba pytan umieszczonych w pamięci
+     */
+    public synchronized long getPuts() {
+        return puts;
+    }
+
+    private synchronized void remove(long questionId) {
+        generation++;
+        Entry entry = questions.remove(questionId);
+        if (entry != null) {
+            usedMemory -= entry.weight;
+        }
+    }
+
+    private void evictOverBudget() {
+        Iterator<Entry> iterator = questions.values().iterator();
+        while (usedMemory > memoryBudget && iterator.hasNext()) {
+            usedMemory -= iterator.next().weight;
+            iterator.remove();
+        }
+    }
+
+    private Question convertToQuestion(QuestionEntity questionEntity) {
+        Question question = new Question();
+        question.setId(questionEntity.getId());
+        question.setCategory(convertToCategory(questionEntity.getCategory()));
+        question.setQuestion(intern(questionEntity.getQuestion()));
+
+        List<AnswerEntity> answerEntities = questionEntity.getAnswers();
+        Answer[] answers = new Answer[answerEntities.size()];
+        for (int i = 0; i < answers.length; i++) {
+            AnswerEntity answerEntity = answerEntities.get(i);
+            answers[i] = new Answer(intern(answerEntity.getAnswer()), answerEntity.getIsCorrect());
+            answers[i].setId(answerEntity.getId());
+        }
+        question.setAnswers(Collections.unmodifiableList(Arrays.asList(answers)));
+        return question;
+    }
+
+    private Category convertToCategory(CategoryEntity categoryEntity) {
+        Category category = categoryCache.findById(categoryEntity.getId());
+        if (category != null) {
+            return category;
+        }
+        category = new Category();
+        category.setId(categoryEntity.getId());
+        category.setName(categoryEntity.getName());
+        category.setDescription(categoryEntity.getDescription());
+        category.setUrlImage(categoryEntity.getUrlImage());
+        return category;
+    }
+
+    private static String intern(String text) {
+        return text == null ? null : text.intern();
+    }
+
+    private static class Entry {
+        private final Question question;
+        private final long weight;
+
+        private Entry(Question question) {
+            this.question = question;
+            long weight = QUESTION_OVERHEAD_IN_BYTES + lengthOf(question.getQuestion()) * 2L;
+            for (Answer answer : question.getAnswers()) {
+                weight += ANSWER_OVERHEAD_IN_BYTES + lengthOf(answer.getAnswer()) * 2L;
+            }
+            this.weight = weight;
+        }
+
+        private static int lengthOf(String text) {
+            return text == null ? 0 : text.length();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.pw.quizwhizz.service.cache;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Zdarzenie publikowane po zmianie pytan (lub samej kategorii) w danej kategorii, np. po dodaniu, edycji lub usunięciu pytania
+ * w panelu administratora. Odbiorcy przechowujacy dane kategorii w pamięci powinni je uniewaznic.
+ *
+ * @author Michał Nowiński
+ * @see QuestionPackPool
+ */
+public class QuestionBankChangedEvent extends ApplicationEvent {
+    private static final long serialVersionUID = 1L;
+    private final long categoryId;
+
+    /**
+     * Konstruktor przyjmujacy
+     *
+     * @param source     obiekt publikujacy zdarzenie
+     * @param categoryId numer id zmienionej kategorii
+     */
+    public QuestionBankChangedEvent(Object source, long categoryId) {
+        super(source);
+        this.categoryId = categoryId;
+    }
+
+    public long getCategoryId() {
+        return categoryId;
+    }
+}
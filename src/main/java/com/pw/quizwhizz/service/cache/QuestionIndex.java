@@ -0,0 +1,268 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.repository.game.QuestionRepository;
+import com.pw.quizwhizz.util.BloomFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Indeks id pytan w poszczegolnych kategoriach, przechowywany w pamięci jako posortowane tablice typu long.
+ * Indeks kategorii jest wczytywany przy pierwszym losowaniu (jednym zapytaniem o same id), a następnie
+ * aktualizowany przy dodawaniu i usuwaniu pytan. Tablice nie sa modyfikowane - kazda zmiana tworzy nowa kopię,
+ * dzięki czemu losowanie nie wymaga blokad. Indeks kategorii wczytywany jest poza mapa i odrzucany, jesli w trakcie
+ * wczytywania zmienil się numer generacji (indeks zostal zmieniony lub uniewazniony).
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.service.impl.QuestionServiceImpl#getRandomQuestionsByCategoryId(long, int)
+ */
+@Component
+public class QuestionIndex {
+    /**
+     * Liczba prob wylosowania niewidzianego pytania (na kazde losowane pytanie), po ktorej pytania wybierane sa
+     * z listy wszystkich niewidzianych pytan kategorii.
+     */
+    static final int MAX_ATTEMPTS_PER_QUESTION = 4;
+
+    private final QuestionRepository questionRepository;
+    private final ConcurrentMap<Long, long[]> questionIdsByCategory = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public QuestionIndex(QuestionRepository questionRepository) {
+        this.questionRepository = questionRepository;
+    }
+
+    /**
+     * @param categoryId numer id kategorii
+     * @return liczba pytan w kategorii
+     */
+    public int count(long categoryId) {
+        return idsOf(categoryId).length;
+    }
+
+    /**
+     * Zwraca kolejne id pytan kategorii, wiekszych niz podane id - strona listy stronicowanej kluczem.
+     *
+     * @param categoryId numer id kategorii
+     * @param afterId    id ostatniego pytania poprzedniej strony
+     * @param limit      maksymalna liczba id
+     * @return rosnaco uporzadkowane id pytan
+     */
+    public long[] idsAfter(long categoryId, long afterId, int limit) {
+        long[] ids = idsOf(categoryId);
+        int from = Arrays.binarySearch(ids, afterId);
+        from = from >= 0 ? from + 1 : -from - 1;
+        return Arrays.copyOfRange(ids, from, (int) Math.min(ids.length, (long) from + limit));
+    }
+
+    /**
+     * Losuje bez powtorzen id pytan z kategorii (algorytm Floyda) - koszt zalezy jedynie od liczby losowanych pytan.
+     *
+     * @param categoryId numer id kategorii
+     * @param number     ilosc losowanych pytan
+     * @param random     generator liczb losowych
+     * @return tablica wylosowanych id lub null, jesli w kategorii jest mniej pytan niz wymagana ilosc
+     */
+    public long[] sample(long categoryId, int number, Random random) {
+        long[] ids = idsOf(categoryId);
+        if (number <= 0 || ids.length < number) {
+            return null;
+        }
+        return sampleAll(ids, number, random);
+    }
+
+    /**
+     * Losuje bez powtorzen id pytan z kategorii, pomijajac pytania widziane juz przez gracza. Niewidziane pytania
+     * losowane sa z odrzuceniem, wiec koszt zalezy od liczby losowanych pytan; dopiero gdy wiekszosc pytan kategorii
+     * byla juz widziana, przegladana jest cala kategoria. Jesli niewidzianych pytan jest za malo, zestaw uzupelniany
+     * jest pytaniami widzianymi.
+     *
+     * @param categoryId numer id kategorii
+     * @param number     ilosc losowanych pytan
+     * @param random     generator liczb losowych
+     * @param excluded   filtr z numerami id pytan widzianych przez gracza (moze byc null)
+     * @return tablica wylosowanych id lub null, jesli w kategorii jest mniej pytan niz wymagana ilosc
+     */
+    public long[] sample(long categoryId, int number, Random random, BloomFilter excluded) {
+        long[] ids = idsOf(categoryId);
+        if (number <= 0 || ids.length < number) {
+            return null;
+        }
+        if (excluded == null || excluded.isEmpty()) {
+            return sampleAll(ids, number, random);
+        }
+
+        long[] sample = new long[number];
+        int count = 0;
+        for (int attempt = 0; attempt < number * MAX_ATTEMPTS_PER_QUESTION && count < number; attempt++) {
+            long id = ids[random.nextInt(ids.length)];
+            if (!isExcluded(excluded, id) && !contains(sample, count, id)) {
+                sample[count++] = id;
+            }
+        }
+        if (count < number) {
+            count = fill(ids, sample, count, random, excluded, false);
+        }
+        if (count < number) {
+            fill(ids, sample, count, random, excluded, true);
+        }
+        shuffle(sample, random);
+        return sample;
+    }
+
+    private long[] sampleAll(long[] ids, int number, Random random) {
+        int[] chosen = new int[number];
+        int count = 0;
+        for (int j = ids.length - number; j < ids.length; j++) {
+            int candidate = random.nextInt(j + 1);
+            chosen[count++] = contains(chosen, count - 1, candidate) ? j : candidate;
+        }
+
+        long[] sample = new long[number];
+        for (int i = 0; i < number; i++) {
+            sample[i] = ids[chosen[i]];
+        }
+        shuffle(sample, random);
+        return sample;
+    }
+
+    /**
+     * Dodaje pytanie do indeksu kategorii (jesli indeks kategorii zostal juz wczytany).
+     *
+     * @param categoryId numer id kategorii
+     * @param questionId numer id pytania
+     */
+    public void add(long categoryId, long questionId) {
+        generation.incrementAndGet();
+        questionIdsByCategory.computeIfPresent(categoryId, (id, ids) -> {
+            int position = Arrays.binarySearch(ids, questionId);
+            if (position >= 0) {
+                return ids;
+            }
+            int insertion = -position - 1;
+            long[] updated = new long[ids.length + 1];
+            System.arraycopy(ids, 0, updated, 0, insertion);
+            updated[insertion] = questionId;
+            System.arraycopy(ids, insertion, updated, insertion + 1, ids.length - insertion);
+            return updated;
+        });
+    }
+
+    /**
+     * Usuwa pytanie z indeksow wszystkich kategorii.
+     *
+     * @param questionId numer id pytania
+     */
+    public void remove(long questionId) {
+        generation.incrementAndGet();
+        for (Map.Entry<Long, long[]> entry : questionIdsByCategory.entrySet()) {
+            questionIdsByCategory.computeIfPresent(entry.getKey(), (id, ids) -> {
+                int position = Arrays.binarySearch(ids, questionId);
+                if (position < 0) {
+                    return ids;
+                }
+                long[] updated = new long[ids.length - 1];
+                System.arraycopy(ids, 0, updated, 0, position);
+                System.arraycopy(ids, position + 1, updated, position, ids.length - position - 1);
+                return updated;
+            });
+        }
+    }
+
+    /**
+     * Usuwa indeks kategorii - zostanie on wczytany ponownie przy kolejnym losowaniu.
+     *
+     * @param categoryId numer id kategorii
+     */
+    public void invalidate(long categoryId) {
+        generation.incrementAndGet();
+        questionIdsByCategory.remove(categoryId);
+    }
+
+    private long[] idsOf(long categoryId) {
+        long[] ids = questionIdsByCategory.get(categoryId);
+        if (ids != null) {
+            return ids;
+        }
+        long expectedGeneration = generation.get();
+        long[] loaded = load(categoryId);
+        long[] existing = questionIdsByCategory.putIfAbsent(categoryId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        if (generation.get() != expectedGeneration) {
+            questionIdsByCategory.remove(categoryId, loaded);
+        }
+        return loaded;
+    }
+
+    private long[] load(long categoryId) {
+        List<Long> ids = questionRepository.findIdsByCategoryId(categoryId);
+        long[] loaded = new long[ids.size()];
+        for (int i = 0; i < loaded.length; i++) {
+            loaded[i] = ids.get(i);
+        }
+        Arrays.sort(loaded);
+        return loaded;
+    }
+
+    /**
+     * Uzupelnia zestaw losowo wybranymi pytaniami niewidzianymi (lub widzianymi), ktorych nie ma jeszcze w zestawie.
+     *
+     * @return liczba pytan w zestawie po uzupelnieniu
+     */
+    private static int fill(long[] ids, long[] sample, int count, Random random, BloomFilter excluded, boolean seen) {
+        long[] candidates = new long[ids.length];
+        int size = 0;
+        for (long id : ids) {
+            if (isExcluded(excluded, id) == seen && !contains(sample, count, id)) {
+                candidates[size++] = id;
+            }
+        }
+        while (count < sample.length && size > 0) {
+            int index = random.nextInt(size);
+            sample[count++] = candidates[index];
+            candidates[index] = candidates[--size];
+        }
+        return count;
+    }
+
+    private static boolean isExcluded(BloomFilter excluded, long id) {
+        return excluded.mightContain(id);
+    }
+
+    private static boolean contains(long[] values, int length, long value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void shuffle(long[] values, Random random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.exception.IllegalNumberOfQuestionsException;
+import com.pw.quizwhizz.model.game.Answer;
+import com.pw.quizwhizz.model.game.Question;
+import com.pw.quizwhizz.service.QuestionService;
+import com.pw.quizwhizz.service.exception.NoQuestionsInDBException;
+import com.pw.quizwhizz.util.BloomFilter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pula gotowych zestawow pytan dla nowych gier. Dla kazdej kategorii przechowywany jest ograniczony bufor
+ * zestawow po 10 pytan, uzupelniany w tle przez watek producenta, dzięki czemu utworzenie gry sprowadza się
+ * do pobrania zestawu z bufora. Gdy bufor jest pusty, zestaw losowany jest od razu (tak jak wczesniej).
+ * Zmiana pytan kategorii ({@link QuestionBankChangedEvent}) oproznia bufor kategorii.
+ *
+ * @author Michał Nowiński
+ * @see QuestionService#getQuestionsForNewGame(long)
+ */
+@Component
+public class QuestionPackPool {
+    /**
+     * Liczba zestawow pytan przechowywanych dla jednej kategorii.
+     */
+    static final int PACKS_PER_CATEGORY = 8;
+    /**
+     * Liczba pytan w zestawie (liczba pytan w grze).
+     */
+    static final int QUESTIONS_IN_PACK = 10;
+    private static final Log log = LogFactory.getLog(QuestionPackPool.class);
+
+    private final QuestionService questionService;
+    private final ExecutorService producer;
+    private final ConcurrentMap<Long, PackBuffer> buffers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public QuestionPackPool(QuestionService questionService) {
+        this(questionService, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "question-pack-producer");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Konstruktor wykorzystywany w celach testowych, umozliwiajacy podanie wlasnego wykonawcy zadan producenta.
+     *
+     * @param questionService serwis pytan, z ktorego losowane sa zestawy
+     * @param producer        wykonawca zadan uzupelniajacych bufory
+     */
+    QuestionPackPool(QuestionService questionService, ExecutorService producer) {
+        this.questionService = questionService;
+        this.producer = producer;
+    }
+
+    /**
+     * Metoda zwracajaca zestaw pytan dla nowej gry. Zestaw pobierany jest z bufora kategorii, a bufor jest
+     * następnie uzupelniany w tle.
+     *
+     * @param categoryId numer id kategorii
+     * @return lista 10 pytan z kategorii
+     * @throws IllegalNumberOfQuestionsException gdy serwis pytan zwroci niewlasciwa liczbę pytan
+     * @throws NoQuestionsInDBException gdy w bazie jest za malo pytan dla danej kategorii
+     */
+    public List<Question> takePack(long categoryId) throws IllegalNumberOfQuestionsException, NoQuestionsInDBException {
+        PackBuffer buffer = bufferOf(categoryId);
+        List<Question> pack = buffer.packs.poll();
+        requestRefill(categoryId, buffer);
+        if (pack != null) {
+            return pack;
+        }
+        return questionService.getQuestionsForNewGame(categoryId);
+    }
+
+    /**
+     * Metoda zwracajaca zestaw pytan dla nowej gry, pomijajac w miarę mozliwosci pytania widziane juz przez zalozyciela gry.
+     * Zestaw z bufora jest wykorzystywany tylko wtedy, gdy nie zawiera zadnego widzianego pytania - w przeciwnym razie
+     * wraca do bufora (dla innych graczy), a pytania losowane sa od razu z pominięciem widzianych.
+     *
+     * @param categoryId    numer id kategorii
+     * @param seenQuestions filtr z numerami id pytan widzianych przez zalozyciela gry
+     * @return lista 10 pytan z kategorii
+     * @throws IllegalNumberOfQuestionsException gdy serwis pytan zwroci niewlasciwa liczbę pytan
+     * @throws NoQuestionsInDBException gdy w bazie jest za malo pytan dla danej kategorii
+     */
+    public List<Question> takePack(long categoryId, BloomFilter seenQuestions) throws IllegalNumberOfQuestionsException, NoQuestionsInDBException {
+        if (seenQuestions == null || seenQuestions.isEmpty()) {
+            return takePack(categoryId);
+        }
+        PackBuffer buffer = bufferOf(categoryId);
+        long generation;
+        synchronized (buffer) {
+            generation = buffer.generation;
+        }
+        List<Question> pack = buffer.packs.poll();
+        if (pack != null) {
+            if (!containsAny(pack, seenQuestions)) {
+                requestRefill(categoryId, buffer);
+                return pack;
+            }
+            synchronized (buffer) {
+                if (buffer.generation == generation) {
+                    buffer.packs.offer(pack);
+                }
+            }
+        }
+        return questionService.getQuestionsForNewGame(categoryId, seenQuestions);
+    }
+
+    /**
+     * @param categoryId numer id kategorii
+     * @return liczba gotowych zestawow w buforze kategorii
+     */
+    public int countPacks(long categoryId) {
+        PackBuffer buffer = buffers.get(categoryId);
+        return buffer == null ? 0 : buffer.packs.size();
+    }
+
+    /**
+     * Metoda oprozniajaca bufor kategorii po zmianie jej pytan. Bufor zostanie uzupelniony przy kolejnym utworzeniu gry.
+     *
+     * @param event zdarzenie zmiany pytan w kategorii
+     */
+    @EventListener
+    public void onQuestionBankChanged(QuestionBankChangedEvent event) {
+        PackBuffer buffer = buffers.get(event.getCategoryId());
+        if (buffer == null) {
+            return;
+        }
+        synchronized (buffer) {
+            buffer.generation++;
+            buffer.packs.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        producer.shutdownNow();
+    }
+
+    private PackBuffer bufferOf(long categoryId) {
+        PackBuffer buffer = buffers.get(categoryId);
+        if (buffer != null) {
+            return buffer;
+        }
+        return buffers.computeIfAbsent(categoryId, id -> new PackBuffer());
+    }
+
+    private void requestRefill(long categoryId, PackBuffer buffer) {
+        if (buffer.packs.remainingCapacity() == 0 || !buffer.refillPending.compareAndSet(false, true)) {
+            return;
+        }
+        producer.execute(() -> {
+            try {
+                refill(categoryId, buffer);
+            } finally {
+                buffer.refillPending.set(false);
+            }
+        });
+    }
+
+    private void refill(long categoryId, PackBuffer buffer) {
+        while (buffer.packs.remainingCapacity() > 0 && !Thread.currentThread().isInterrupted()) {
+            long generation;
+            synchronized (buffer) {
+                generation = buffer.generation;
+            }
+            List<Question> pack;
+            try {
+                pack = questionService.getQuestionsForNewGame(categoryId);
+            } catch (IllegalNumberOfQuestionsException | NoQuestionsInDBException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Nie udalo sie uzupelnic puli zestawow pytan kategorii " + categoryId, e);
+                return;
+            }
+            if (!isValid(pack)) {
+                return;
+            }
+            synchronized (buffer) {
+                // zestaw wylosowany przed zmiana pytan kategorii jest odrzucany
+                if (buffer.generation == generation) {
+                    buffer.packs.offer(pack);
+                }
+            }
+        }
+    }
+
+    /**
+     * Zestaw jest poprawny, jesli zawiera 10 roznych pytan, a kazde pytanie ma dokladnie jedna poprawna odpowiedz.
+     */
+    static boolean isValid(List<Question> pack) {
+        if (pack == null || pack.size() != QUESTIONS_IN_PACK) {
+            return false;
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Question question : pack) {
+            if (!ids.add(question.getId()) || question.getAnswers() == null) {
+                return false;
+            }
+            int correctAnswers = 0;
+            for (Answer answer : question.getAnswers()) {
+                if (answer.getIsCorrect()) {
+                    correctAnswers++;
+                }
+            }
+            if (correctAnswers != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsAny(List<Question> pack, BloomFilter seenQuestions) {
+        for (Question question : pack) {
+            if (seenQuestions.mightContain(question.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class PackBuffer {
+        private final BlockingQueue<List<Question>> packs = new ArrayBlockingQueue<>(PACKS_PER_CATEGORY);
+        private final AtomicBoolean refillPending = new AtomicBoolean();
+        private long generation;
+    }
+}
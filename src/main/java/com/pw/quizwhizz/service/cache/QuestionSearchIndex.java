@@ -0,0 +1,317 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.repository.impl.QuestionExportRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indeks pelnotekstowy (indeks odwrocony) tresci pytan i odpowiedzi, wykorzystywany do wyszukiwania pytan
+ * w panelu administratora. Dla kazdego slowa przechowywana jest posortowana lista id pytan, w ktorych ono występuje,
+ * wraz z waga (slowo w tresci pytania liczy się podwojnie). Slowa sa sprowadzane do malych liter bez polskich znakow
+ * diakrytycznych, wiec "żółw" i "zolw" sa tym samym slowem.
+ * <p>
+ * Indeks wczytywany jest przy pierwszym wyszukiwaniu (jednym strumieniowym zapytaniem), a następnie aktualizowany
+ * przy dodawaniu, edycji i usuwaniu pytan. Zmiany zgloszone w trakcie wczytywania sa kolejkowane i nakladane
+ * na wczytany indeks przed jego udostępnieniem, bo strumien moze ich juz nie zawierac.
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.service.impl.QuestionServiceImpl
+ */
+@Component
+public class QuestionSearchIndex {
+    /**
+     * Minimalna dlugosc indeksowanego slowa.
+     */
+    static final int MIN_TOKEN_LENGTH = 2;
+    /**
+     * Minimalna dlugosc ostatniego slowa zapytania, od ktorej traktowane jest ono jako poczatek slowa.
+     */
+    static final int MIN_PREFIX_LENGTH = 3;
+    private static final int QUESTION_WEIGHT = 2;
+    private static final int ANSWER_WEIGHT = 1;
+
+    private final QuestionExportRepository questionExportRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> postingsByTerm = new TreeMap<>();
+    private final Map<Long, String[]> termsByQuestion = new HashMap<>();
+    private final List<Runnable> pendingUpdates = new ArrayList<>();
+    private boolean loading;
+    private volatile boolean loaded;
+
+    @Autowired
+    public QuestionSearchIndex(QuestionExportRepository questionExportRepository) {
+        this.questionExportRepository = questionExportRepository;
+    }
+
+    /**
+     * Metoda wyszukujaca pytania pasujace do zapytania. Wynik uporzadkowany jest wg trafnosci (suma wag slow
+     * zapytania znalezionych w pytaniu, przemnozonych przez rzadkosc slowa w calej bazie pytan).
+     * Ostatnie slowo zapytania dopasowywane jest takze jako poczatek slowa.
+     *
+     * @param query tresc zapytania
+     * @param limit maksymalna liczba wynikow
+     * @return id najlepiej pasujacych pytan, od najtrafniejszego
+     */
+    public long[] search(String query, int limit) {
+        ensureLoaded();
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int numberOfQuestions = Math.max(1, termsByQuestion.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                Collection<Postings> matching;
+                if (i == tokens.size() - 1 && token.length() >= MIN_PREFIX_LENGTH) {
+                    matching = postingsByTerm.subMap(token, true, token + Character.MAX_VALUE, false).values();
+                } else {
+                    Postings postings = postingsByTerm.get(token);
+                    matching = postings == null ? Collections.emptyList() : Collections.singletonList(postings);
+                }
+                for (Postings postings : matching) {
+                    double idf = Math.log(1.0 + (double) numberOfQuestions / postings.size);
+                    for (int j = 0; j < postings.size; j++) {
+                        scores.merge(postings.ids[j], idf * postings.weights[j], Double::sum);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return topScores(scores, limit);
+    }
+
+    /**
+     * Metoda dodajaca pytanie do indeksu lub zastępujaca jego poprzednia tresc.
+     *
+     * @param questionId id pytania
+     * @param question   tresc pytania
+     * @param answers    tresci odpowiedzi
+     */
+    public void index(long questionId, String question, List<String> answers) {
+        List<String> answersCopy = new ArrayList<>(answers);
+        update(() -> {
+            removeQuestion(questionId);
+            addQuestion(questionId, question, answersCopy);
+        });
+    }
+
+    /**
+     * @param questionId id usuwanego pytania
+     */
+    public void remove(long questionId) {
+        update(() -> removeQuestion(questionId));
+    }
+
+    /**
+     * @return liczba zaindeksowanych pytan
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsByQuestion.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Dzieli tekst na slowa sprowadzone do malych liter, bez polskich znakow diakrytycznych.
+     *
+     * @param text tekst
+     * @return kolejne slowa tekstu (z powtorzeniami)
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= normalized.length(); i++) {
+            char c = i < normalized.length() ? normalized.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (c == 'ł') {
+                c = 'l';
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else {
+                if (token.length() >= MIN_TOKEN_LENGTH) {
+                    tokens.add(token.toString());
+                }
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Naklada zmiane na wczytany indeks. Przed wczytaniem indeksu zmiana jest pomijana (zostanie odczytana z bazy),
+     * a w trakcie wczytywania - kolejkowana do nalozenia po zakonczeniu strumienia.
+     */
+    private void update(Runnable update) {
+        if (!loaded) {
+            synchronized (pendingUpdates) {
+                if (!loaded) {
+                    if (loading) {
+                        pendingUpdates.add(update);
+                    }
+                    return;
+                }
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            synchronized (pendingUpdates) {
+                loading = true;
+            }
+            long[] currentQuestionId = {-1};
+            String[] currentQuestion = new String[1];
+            List<String> currentAnswers = new ArrayList<>();
+            questionExportRepository.forEachRow(row -> {
+                if (row.getQuestionId() != currentQuestionId[0]) {
+                    if (currentQuestion[0] != null) {
+                        addQuestion(currentQuestionId[0], currentQuestion[0], currentAnswers);
+                    }
+                    currentQuestionId[0] = row.getQuestionId();
+                    currentQuestion[0] = row.getQuestion();
+                    currentAnswers.clear();
+                }
+                currentAnswers.add(row.getAnswer());
+            });
+            if (currentQuestion[0] != null) {
+                addQuestion(currentQuestionId[0], currentQuestion[0], currentAnswers);
+            }
+            synchronized (pendingUpdates) {
+                pendingUpdates.forEach(Runnable::run);
+                pendingUpdates.clear();
+                loading = false;
+                loaded = true;
+            }
+        } catch (RuntimeException e) {
+            postingsByTerm.clear();
+            termsByQuestion.clear();
+            synchronized (pendingUpdates) {
+                pendingUpdates.clear();
+                loading = false;
+            }
+            throw e;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addQuestion(long questionId, String question, List<String> answers) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String token : tokenize(question)) {
+            weights.merge(token, QUESTION_WEIGHT, Integer::sum);
+        }
+        for (String answer : answers) {
+            for (String token : tokenize(answer)) {
+                weights.merge(token, ANSWER_WEIGHT, Integer::sum);
+            }
+        }
+        String[] terms = new String[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            terms[i++] = weight.getKey();
+            postingsByTerm.computeIfAbsent(weight.getKey(), term -> new Postings()).put(questionId, weight.getValue());
+        }
+        termsByQuestion.put(questionId, terms);
+    }
+
+    private void removeQuestion(long questionId) {
+        String[] terms = termsByQuestion.remove(questionId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings postings = postingsByTerm.get(term);
+            if (postings != null && postings.remove(questionId) && postings.size == 0) {
+                postingsByTerm.remove(term);
+            }
+        }
+    }
+
+    private static long[] topScores(Map<Long, Double> scores, int limit) {
+        Comparator<Map.Entry<Long, Double>> byScore = Map.Entry.comparingByValue();
+        byScore = byScore.thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(limit + 1, byScore);
+        for (Map.Entry<Long, Double> score : scores.entrySet()) {
+            top.add(score);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        long[] ids = new long[top.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = top.poll().getKey();
+        }
+        return ids;
+    }
+
+    /**
+     * Lista wystapien slowa - rosnaco posortowane id pytan wraz z wagami.
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        private void put(long questionId, int weight) {
+            int position = Arrays.binarySearch(ids, 0, size, questionId);
+            if (position >= 0) {
+                weights[position] = weight;
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(weights, position, weights, position + 1, size - position);
+            ids[position] = questionId;
+            weights[position] = weight;
+            size++;
+        }
+
+        private boolean remove(long questionId) {
+            int position = Arrays.binarySearch(ids, 0, size, questionId);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(weights, position + 1, weights, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
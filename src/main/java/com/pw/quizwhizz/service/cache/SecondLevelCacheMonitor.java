@@ -0,0 +1,84 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.entity.game.CategoryEntity;
+import com.pw.quizwhizz.model.dto.CacheRegionStatistics;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Udostępnia statystyki regionow pamięci podręcznej drugiego poziomu Hibernate (oraz pamięci podręcznych aplikacji)
+ * i uniewaznia regiony kategorii po zmianach wprowadzonych w panelu administratora.
+ *
+ * @author Michał Nowiński
+ * @see com.pw.quizwhizz.config.JpaConfig
+ */
+@Component
+public class SecondLevelCacheMonitor {
+    /**
+     * Region wynikow zapytania o pytania kategorii.
+     */
+    public static final String QUESTIONS_BY_CATEGORY_REGION = "questionsByCategory";
+
+    private final SessionFactory sessionFactory;
+    private final CategoryCache categoryCache;
+    private final QuestionBank questionBank;
+
+    @Autowired
+    public SecondLevelCacheMonitor(EntityManagerFactory entityManagerFactory, CategoryCache categoryCache, QuestionBank questionBank) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.categoryCache = categoryCache;
+        this.questionBank = questionBank;
+    }
+
+    /**
+     * @return statystyki wszystkich regionow, uporzadkowane wedlug nazwy regionu
+     */
+    public List<CacheRegionStatistics> findRegionStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+
+        List<CacheRegionStatistics> regions = new ArrayList<>();
+        for (String regionName : regionNames) {
+            SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(regionName);
+            if (region != null) {
+                regions.add(new CacheRegionStatistics(regionName, region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), region.getElementCountInMemory()));
+            }
+        }
+        regions.add(new CacheRegionStatistics("CategoryCache", categoryCache.getHits(), categoryCache.getMisses(),
+                categoryCache.getPuts(), categoryCache.findAll().size()));
+        regions.add(new CacheRegionStatistics("QuestionBank", questionBank.getHits(), questionBank.getMisses(),
+                questionBank.getPuts(), questionBank.size()));
+        return regions;
+    }
+
+    /**
+     * Usuwa z pamięci podręcznej drugiego poziomu zmieniona kategorię oraz wyniki zapytan o pytania kategorii.
+     * Zmiany encji wykonane przez Hibernate uniewazniaja regiony automatycznie - metoda zabezpiecza przed zmianami
+     * wykonanymi poza sesja (np. usunięciem przez zapytanie).
+     *
+     * @param event zdarzenie zmiany pytan w kategorii
+     */
+    @EventListener
+    public void onQuestionBankChanged(QuestionBankChangedEvent event) {
+        sessionFactory.getCache().evictEntity(CategoryEntity.class, event.getCategoryId());
+        sessionFactory.getCache().evictQueryRegion(QUESTIONS_BY_CATEGORY_REGION);
+    }
+
+    /**
+     * Czysci wszystkie regiony pamięci podręcznej drugiego poziomu.
+     */
+    public void evictAll() {
+        sessionFactory.getCache().evictAllRegions();
+    }
+}
@@ -0,0 +1,70 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.repository.impl.UserListRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Licznik uzytkownikow portalu. Wartosc jest odczytywana z bazy danych przy pierwszym uzyciu, a następnie
+ * aktualizowana przy rejestracji i usuwaniu uzytkownikow, zamiast wykonywac count(*) przy kazdym wyswietleniu listy.
+ * Zmiany wykonane w transakcji uwzględniane sa dopiero po jej zatwierdzeniu, wiec wycofana rejestracja nie zmienia licznika.
+ *
+ * @author Michał Nowiński
+ */
+@Component
+public class UserCounter {
+    private static final long UNKNOWN = -1;
+
+    private final UserListRepository userListRepository;
+    private final AtomicLong count = new AtomicLong(UNKNOWN);
+
+    @Autowired
+    public UserCounter(UserListRepository userListRepository) {
+        this.userListRepository = userListRepository;
+    }
+
+    /**
+     * @return liczba uzytkownikow
+     */
+    public long count() {
+        long current = count.get();
+        if (current != UNKNOWN) {
+            return current;
+        }
+        long loaded = userListRepository.count();
+        count.compareAndSet(UNKNOWN, loaded);
+        return loaded;
+    }
+
+    public void increment() {
+        afterCommit(() -> count.updateAndGet(current -> current == UNKNOWN ? UNKNOWN : current + 1));
+    }
+
+    public void decrement() {
+        afterCommit(() -> count.updateAndGet(current -> current == UNKNOWN ? UNKNOWN : Math.max(0, current - 1)));
+    }
+
+    /**
+     * Wymusza ponowne odczytanie liczby uzytkownikow z bazy danych.
+     */
+    public void invalidate() {
+        count.set(UNKNOWN);
+    }
+
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
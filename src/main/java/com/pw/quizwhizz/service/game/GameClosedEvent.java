@@ -0,0 +1,56 @@
+package com.pw.quizwhizz.service.game;
+
+import com.pw.quizwhizz.model.dto.FinalScore;
+import org.springframework.context.ApplicationEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Zdarzenie publikowane jednokrotnie po zamknięciu gry i ustaleniu wynikow graczy. Pozwala odbiorcom (np. rankingom
+ * przechowywanym w pamięci) aktualizowac swoje dane bez ponownego odczytu wynikow z bazy danych.
+ * Zdarzenie publikowane jest w transakcji zamykajacej grę - odbiorcy uwzględniaja je dopiero po jej zatwierdzeniu.
+ *
+ * @author Karolina Prusaczyk
+ * @see com.pw.quizwhizz.service.impl.GameServiceImpl
+ */
+public class GameClosedEvent extends ApplicationEvent {
+    private static final long serialVersionUID = 1L;
+    private final long gameId;
+    private final long categoryId;
+    private final Instant startTime;
+    private final List<FinalScore> scores;
+
+    /**
+     * Konstruktor przyjmujacy
+     *
+     * @param source     obiekt publikujacy zdarzenie
+     * @param gameId     id zamkniętej gry
+     * @param categoryId numer id kategorii gry
+     * @param startTime  czas rozpoczęcia gry (zapisany w bazie danych)
+     * @param scores     niezmienne wyniki graczy
+     */
+    public GameClosedEvent(Object source, long gameId, long categoryId, Instant startTime, List<FinalScore> scores) {
+        super(source);
+        this.gameId = gameId;
+        this.categoryId = categoryId;
+        this.startTime = startTime;
+        this.scores = scores;
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    public long getCategoryId() {
+        return categoryId;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public List<FinalScore> getScores() {
+        return scores;
+    }
+}
@@ -0,0 +1,75 @@
+package com.pw.quizwhizz.service.game;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Zbior zawieszonych zapytan graczy oczekujacych na zakonczenie gry (long polling).
+ * Zapytanie nie zajmuje watku serwera w trakcie oczekiwania - wszystkie zapytania danej gry sa konczone jednoczesnie,
+ * w momencie zamknięcia gry, lub pojedynczo, po uplywie czasu oczekiwania.
+ *
+ * @author Karolina Prusaczyk
+ * @see com.pw.quizwhizz.service.impl.GameServiceImpl#awaitGameClosed(Long)
+ */
+@Component
+public class GameClosureWaiters {
+    private final ConcurrentMap<Long, List<DeferredResult<String>>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * Metoda rejestrujaca nowe oczekujace zapytanie.
+     *
+     * @param gameId          id gry
+     * @param timeoutInMillis maksymalny czas oczekiwania
+     * @return wynik zapytania, ustawiany po zamknięciu gry
+     */
+    public DeferredResult<String> await(long gameId, long timeoutInMillis) {
+        DeferredResult<String> result = new DeferredResult<>(timeoutInMillis);
+        waiters.compute(gameId, (id, results) -> {
+            List<DeferredResult<String>> updated = results != null ? results : new CopyOnWriteArrayList<>();
+            updated.add(result);
+            return updated;
+        });
+        result.onCompletion(() -> waiters.computeIfPresent(gameId, (id, results) -> {
+            results.remove(result);
+            return results.isEmpty() ? null : results;
+        }));
+        return result;
+    }
+
+    /**
+     * Metoda konczaca wszystkie zapytania oczekujace na zamknięcie danej gry.
+     *
+     * @param gameId id zamkniętej gry
+     */
+    public void wakeUp(long gameId) {
+        List<DeferredResult<String>> results = waiters.remove(gameId);
+        if (results == null) {
+            return;
+        }
+        for (DeferredResult<String> result : results) {
+            result.setResult(toJson(true));
+        }
+    }
+
+    /**
+     * @param gameId id gry
+     * @return liczba zapytan oczekujacych na zamknięcie gry
+     */
+    public int countWaiters(long gameId) {
+        List<DeferredResult<String>> results = waiters.get(gameId);
+        return results == null ? 0 : results.size();
+    }
+
+    /**
+     * @param isClosed informacja, czy gra jest zamknięta
+     * @return obiekt JSON skladajacy się z pola "isClosed" oraz wartosci true lub false
+     */
+    public static String toJson(boolean isClosed) {
+        return "{ \"isClosed\" : " + isClosed + " }";
+    }
+}
@@ -0,0 +1,102 @@
+package com.pw.quizwhizz.service.game;
+
+import com.pw.quizwhizz.util.HashedTimerWheel;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Planista terminow rozpoczętych gier. Terminy przejscia gry w stan oceniania odpowiedzi oraz w stan zamknięty
+ * sa rejestrowane w jednym kole czasowym, a po ich uplywie zadanie zmieniajace stan gry jest przekazywane
+ * do niewielkiej puli watkow (zapis do bazy danych nie blokuje watku kola).
+ *
+ * @author Karolina Prusaczyk
+ * @see HashedTimerWheel
+ */
+@Component
+public class GameDeadlineScheduler {
+    /**
+     * Dlugosc taktu kola czasowego w milisekundach.
+     */
+    static final long TICK_IN_MILLIS = 100;
+    /**
+     * Liczba przegrodek kola - jeden obrot kola trwa ok. 51 sekund.
+     */
+    static final int WHEEL_SIZE = 512;
+    /**
+     * Liczba watkow wykonujacych zadania po uplywie terminu.
+     */
+    static final int WORKER_THREADS = 2;
+
+    private final HashedTimerWheel timerWheel = new HashedTimerWheel(TICK_IN_MILLIS, WHEEL_SIZE);
+    private final ConcurrentMap<Long, List<HashedTimerWheel.Timeout>> deadlines = new ConcurrentHashMap<>();
+    private final ExecutorService workers = Executors.newFixedThreadPool(WORKER_THREADS, new DaemonThreadFactory());
+
+    @PostConstruct
+    public void start() {
+        timerWheel.start("game-deadline-timer");
+    }
+
+    @PreDestroy
+    public void stop() {
+        timerWheel.stop();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Metoda planujaca wykonanie zadania dla gry w podanym momencie.
+     *
+     * @param gameId   id gry
+     * @param deadline moment wykonania zadania
+     * @param task     zadanie, np. zmiana stanu gry
+     */
+    public void schedule(long gameId, Instant deadline, Runnable task) {
+        HashedTimerWheel.Timeout timeout = timerWheel.schedule(() -> workers.execute(task), deadline.toEpochMilli());
+        deadlines.compute(gameId, (id, timeouts) -> {
+            List<HashedTimerWheel.Timeout> updated = timeouts != null ? timeouts : new ArrayList<>();
+            updated.add(timeout);
+            return updated;
+        });
+    }
+
+    /**
+     * Metoda anulujaca wszystkie niewykonane jeszcze zadania gry. Wywolywana przy zamknięciu gry.
+     *
+     * @param gameId id gry
+     */
+    public void cancel(long gameId) {
+        List<HashedTimerWheel.Timeout> timeouts = deadlines.remove(gameId);
+        if (timeouts == null) {
+            return;
+        }
+        timeouts.forEach(HashedTimerWheel.Timeout::cancel);
+    }
+
+    /**
+     * @return liczba zaplanowanych i niewykonanych jeszcze zadan
+     */
+    public int countScheduled() {
+        return timerWheel.size();
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "game-deadline-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.pw.quizwhizz.service.game;
+
+import com.pw.quizwhizz.model.dto.FinalScore;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pamięc podręczna wynikow ostatnio zakonczonych gier. Wyniki trafiaja do niej przy zamknięciu gry
+ * (lub przy pierwszym odczycie z bazy danych) - kolejne wyswietlenia strony wynikow nie wykonuja zadnych zapisow.
+ * Przechowywanych jest najwyzej {@link #CAPACITY} gier; najdawniej odczytywane sa usuwane.
+ *
+ * @author Karolina Prusaczyk
+ * @see com.pw.quizwhizz.service.impl.GameServiceImpl#checkScores(long)
+ */
+@Component
+public class GameResultCache {
+    static final int CAPACITY = 1024;
+
+    private final Map<Long, List<FinalScore>> results = new LinkedHashMap<Long, List<FinalScore>>(64, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<FinalScore>> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    /**
+     * @param gameId id gry
+     * @return niemodyfikowalna lista wynikow lub null, jesli wynikow gry nie ma w pamięci
+     */
+    public synchronized List<FinalScore> find(long gameId) {
+        return results.get(gameId);
+    }
+
+    /**
+     * @param gameId id gry
+     * @param scores wyniki gry uporzadkowane od najwyzszego
+     * @return niemodyfikowalna lista zapisanych wynikow
+     */
+    public synchronized List<FinalScore> put(long gameId, List<FinalScore> scores) {
+        List<FinalScore> snapshot = Collections.unmodifiableList(scores);
+        results.put(gameId, snapshot);
+        return snapshot;
+    }
+}
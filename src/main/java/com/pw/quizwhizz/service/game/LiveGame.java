@@ -0,0 +1,119 @@
+package com.pw.quizwhizz.service.game;
+
+import com.pw.quizwhizz.model.game.AnswerKey;
+import com.pw.quizwhizz.model.game.Game;
+import com.pw.quizwhizz.model.game.Player;
+import com.pw.quizwhizz.model.game.Score;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Gra przechowywana w rejestrze aktywnych gier wraz z pomocniczymi informacjami potrzebnymi w trakcie rozgrywki.
+ * Instancja stanowi jednoczesnie monitor - wszystkie operacje zmieniajace stan gry nalezy wykonywac
+ * w bloku synchronized na obiekcie LiveGame.
+ *
+ * @author Karolina Prusaczyk
+ * @see LiveGameRegistry
+ */
+@Getter
+public class LiveGame {
+    private final Game game;
+    private final AnswerKey answerKey;
+    private volatile boolean closed;
+    private volatile SubmissionTracker submissionTracker;
+    private volatile long lastAccessMillis;
+
+    /**
+     * Konstruktor przyjmujacy
+     *
+     * @param game gre, ktorej listy graczy i wynikow zostaja zastapione listami bezpiecznymi dla odczytu
+     *             z wielu watkow (np. podczas renderowania widoku); z pytan gry budowany jest klucz odpowiedzi
+     */
+    public LiveGame(Game game) {
+        this.game = game;
+        this.answerKey = new AnswerKey(game.getQuestions() != null ? game.getQuestions() : Collections.emptyList());
+        game.setPlayers(new CopyOnWriteArrayList<>(game.getPlayers()));
+        game.setScores(new CopyOnWriteArrayList<>(game.getScores()));
+    }
+
+    /**
+     * Metoda oznaczajaca grę jako zamknięta.
+     *
+     * @return true, jesli gra zostala zamknięta przez to wywolanie (zamknięcie i ustalenie wynikow odbywa się raz)
+     */
+    public boolean markClosed() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        return true;
+    }
+
+    /**
+     * Metoda ustalajaca zbior graczy, od ktorych oczekiwane sa odpowiedzi - wywolywana przy starcie gry
+     * (lub po odtworzeniu rozpoczętej gry z bazy danych, wtedy zapisane juz wyniki sa od razu odnotowywane).
+     *
+     * @return licznik wyslanych odpowiedzi
+     */
+    public SubmissionTracker trackSubmissions() {
+        List<Long> playerIds = new ArrayList<>();
+        for (Player player : game.getPlayers()) {
+            playerIds.add(player.getId());
+        }
+        SubmissionTracker tracker = new SubmissionTracker(playerIds);
+        for (Score score : game.getScores()) {
+            tracker.markSubmitted(score.getPlayer().getId());
+        }
+        submissionTracker = tracker;
+        return tracker;
+    }
+
+    /**
+     * @return licznik wyslanych odpowiedzi; tworzony, jesli gra nie byla jeszcze sledzona
+     */
+    public SubmissionTracker getSubmissionTracker() {
+        SubmissionTracker tracker = submissionTracker;
+        return tracker != null ? tracker : trackSubmissions();
+    }
+
+    /**
+     * Metoda odnotowujaca odczyt gry z rejestru.
+     *
+     * @param nowMillis biezaca chwila w milisekundach
+     */
+    public void touch(long nowMillis) {
+        lastAccessMillis = nowMillis;
+    }
+
+    public long getId() {
+        return game.getId();
+    }
+
+    /**
+     * @param userId id uzytkownika
+     * @return gracz o podanym id lub null, jesli uzytkownik nie dolaczyl do gry
+     */
+    public Player findPlayer(long userId) {
+        for (Player player : game.getPlayers()) {
+            if (player.getId() == userId) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return imiona graczy w kolejnosci dolaczania do gry
+     */
+    public List<String> getNamesOfPlayers() {
+        List<String> names = new ArrayList<>();
+        for (Player player : game.getPlayers()) {
+            names.add(player.getName());
+        }
+        return names;
+    }
+}
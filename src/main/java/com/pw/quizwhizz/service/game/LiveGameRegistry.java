@@ -0,0 +1,113 @@
+package com.pw.quizwhizz.service.game;
+
+import com.pw.quizwhizz.model.game.GameState;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejestr gier w stanie OPEN, STARTED oraz EVALUATING_ANSWERS przechowywanych w pamieci.
+ * Dla aktywnych gier rejestr jest zrodlem prawdy - serwis gry odczytuje z niego gre zamiast odtwarzac ja z bazy danych
+ * przy kazdym zadaniu, a zmiany zapisuje rownolegle do repozytoriow. Gra jest usuwana z rejestru po przejsciu w stan CLOSED.
+ * <p>
+ * Gry w stanie OPEN, ktore nie zostaly rozpoczęte ani odczytane przez {@link #IDLE_OPEN_GAME_TTL_IN_MILLIS}, sa usuwane
+ * z rejestru (sprawdzenie odbywa się przy odczycie lub rejestracji gry, nie czesciej niz co
+ * {@link #SWEEP_INTERVAL_IN_MILLIS}). Gra pozostaje w bazie danych i zostanie odtworzona przy kolejnym odczycie.
+ *
+ * @author Karolina Prusaczyk
+ * @see com.pw.quizwhizz.service.impl.GameServiceImpl
+ */
+@Component
+public class LiveGameRegistry {
+    /**
+     * Czas bezczynnosci, po ktorym nierozpoczęta gra jest usuwana z rejestru.
+     */
+    static final long IDLE_OPEN_GAME_TTL_IN_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    /**
+     * Minimalny odstęp pomiędzy kolejnymi sprawdzeniami bezczynnych gier.
+     */
+    static final long SWEEP_INTERVAL_IN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ConcurrentMap<Long, LiveGame> games = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepMillis = new AtomicLong();
+    private final Clock clock;
+
+    public LiveGameRegistry() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * Konstruktor wykorzystywany w celach testowych, umozliwiajacy podanie wlasnego zrodla czasu.
+     *
+     * @param clock zegar wyznaczajacy czas ostatniego odczytu gry
+     */
+    public LiveGameRegistry(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @param gameId id gry
+     * @return aktywna gra lub null, jesli gry nie ma w rejestrze
+     */
+    public LiveGame find(long gameId) {
+        long now = clock.millis();
+        LiveGame liveGame = games.get(gameId);
+        if (liveGame != null) {
+            liveGame.touch(now);
+        }
+        evictIdleOpenGamesIfDue(now);
+        return liveGame;
+    }
+
+    /**
+     * Metoda dodajaca grę do rejestru. Jesli inny watek zarejestrowal juz grę o tym samym id,
+     * zwracana jest instancja z rejestru, a przekazana gra zostaje porzucona.
+     *
+     * @param liveGame gra odczytana z bazy danych lub dopiero utworzona
+     * @return gra obecna w rejestrze
+     */
+    public LiveGame register(LiveGame liveGame) {
+        long now = clock.millis();
+        liveGame.touch(now);
+        LiveGame existing = games.putIfAbsent(liveGame.getId(), liveGame);
+        if (existing != null) {
+            existing.touch(now);
+        }
+        evictIdleOpenGamesIfDue(now);
+        return existing != null ? existing : liveGame;
+    }
+
+    /**
+     * Metoda usuwajaca grę z rejestru.
+     *
+     * @param gameId id gry
+     * @return true, jesli gra zostala usunięta przez to wywolanie
+     */
+    public boolean evict(long gameId) {
+        return games.remove(gameId) != null;
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    private void evictIdleOpenGamesIfDue(long now) {
+        long due = nextSweepMillis.get();
+        if (now < due || !nextSweepMillis.compareAndSet(due, now + SWEEP_INTERVAL_IN_MILLIS)) {
+            return;
+        }
+        long idleSince = now - IDLE_OPEN_GAME_TTL_IN_MILLIS;
+        for (LiveGame liveGame : games.values()) {
+            synchronized (liveGame) {
+                if (liveGame.getLastAccessMillis() < idleSince
+                        && liveGame.getGame().getGameStateMachine().getCurrentState() == GameState.OPEN) {
+                    games.remove(liveGame.getId(), liveGame);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.pw.quizwhizz.service.game;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Kanal zdarzen poczekalni gry (Server-Sent Events). Gracze oczekujacy na rozpoczęcie gry subskrybuja kanal danej gry
+ * i otrzymuja zdarzenie "players" po dolaczeniu kolejnego gracza oraz "started" po rozpoczęciu gry przez wlasciciela,
+ * zamiast co sekundę odpytywac serwer. Polaczenia sa podtrzymywane komentarzem wysylanym co kilkanascie sekund,
+ * a po uplywie czasu zycia zamykane - przegladarka nawiazuje je wtedy ponownie.
+ *
+ * @author Karolina Prusaczyk
+ * @see com.pw.quizwhizz.service.impl.GameServiceImpl
+ */
+@Component
+public class LobbyEventChannel {
+    /**
+     * Czas zycia pojedynczego polaczenia w milisekundach.
+     */
+    static final long SUBSCRIPTION_TIMEOUT_IN_MILLIS = 5 * 60 * 1000L;
+    /**
+     * Odstęp pomiędzy kolejnymi komunikatami podtrzymujacymi polaczenie w sekundach.
+     */
+    static final long HEARTBEAT_INTERVAL_IN_SECONDS = 15;
+
+    private final ConcurrentMap<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lobby-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LobbyEventChannel() {
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat,
+                HEARTBEAT_INTERVAL_IN_SECONDS, HEARTBEAT_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Metoda rejestrujaca nowego subskrybenta poczekalni gry.
+     *
+     * @param gameId id gry oczekujacej na start
+     * @return emiter, przez ktory wysylane będa zdarzenia
+     */
+    public SseEmitter subscribe(long gameId) {
+        SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT_IN_MILLIS);
+        subscribers.compute(gameId, (id, emitters) -> {
+            List<SseEmitter> updated = emitters != null ? emitters : new CopyOnWriteArrayList<>();
+            updated.add(emitter);
+            return updated;
+        });
+
+        emitter.onCompletion(() -> unsubscribe(gameId, emitter));
+        emitter.onTimeout(() -> unsubscribe(gameId, emitter));
+        return emitter;
+    }
+
+    /**
+     * Metoda wysylajaca do pojedynczego subskrybenta aktualna listę graczy (np. zaraz po nawiazaniu polaczenia).
+     *
+     * @param gameId  id gry
+     * @param emitter emiter subskrybenta
+     * @param names   imiona graczy
+     */
+    public void sendPlayers(long gameId, SseEmitter emitter, List<String> names) {
+        send(gameId, emitter, SseEmitter.event().name("players").data(playersToJson(names)));
+    }
+
+    /**
+     * Metoda wysylajaca do pojedynczego subskrybenta informację o rozpoczęciu gry i zamykajaca polaczenie.
+     *
+     * @param gameId  id gry
+     * @param emitter emiter subskrybenta
+     */
+    public void sendStarted(long gameId, SseEmitter emitter) {
+        if (send(gameId, emitter, SseEmitter.event().name("started").data(gameId))) {
+            emitter.complete();
+        }
+    }
+
+    /**
+     * Metoda rozsylajaca wszystkim subskrybentom gry aktualna listę graczy.
+     *
+     * @param gameId id gry
+     * @param names  imiona graczy
+     */
+    public void publishPlayers(long gameId, List<String> names) {
+        List<SseEmitter> emitters = subscribers.get(gameId);
+        if (emitters == null) {
+            return;
+        }
+        String json = playersToJson(names);
+        for (SseEmitter emitter : emitters) {
+            send(gameId, emitter, SseEmitter.event().name("players").data(json));
+        }
+    }
+
+    /**
+     * Metoda rozsylajaca wszystkim subskrybentom informację o rozpoczęciu gry. Kanal gry zostaje następnie zamknięty.
+     *
+     * @param gameId id gry
+     */
+    public void publishStarted(long gameId) {
+        List<SseEmitter> emitters = subscribers.remove(gameId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            sendStarted(gameId, emitter);
+        }
+    }
+
+    /**
+     * @param gameId id gry
+     * @return liczba aktywnych subskrybentow poczekalni gry
+     */
+    public int countSubscribers(long gameId) {
+        List<SseEmitter> emitters = subscribers.get(gameId);
+        return emitters == null ? 0 : emitters.size();
+    }
+
+    /**
+     * Metoda zamieniajaca imiona graczy na obiekt JSON w formacie [{ "name" : "..." }, ...].
+     *
+     * @param names imiona graczy
+     * @return napis w formacie JSON
+     */
+    public static String playersToJson(List<String> names) {
+        StringBuilder json = new StringBuilder("[");
+        for (String name : names) {
+            if (json.length() > 1) {
+                json.append(", ");
+            }
+            json.append("{ \"name\" : \"")
+                    .append(name.replace("\\", "\\\\").replace("\"", "\\\""))
+                    .append("\" }");
+        }
+        return json.append("]").toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        for (List<SseEmitter> emitters : subscribers.values()) {
+            emitters.forEach(SseEmitter::complete);
+        }
+        subscribers.clear();
+    }
+
+    private void sendHeartbeat() {
+        for (ConcurrentMap.Entry<Long, List<SseEmitter>> entry : subscribers.entrySet()) {
+            for (SseEmitter emitter : entry.getValue()) {
+                send(entry.getKey(), emitter, SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+
+    /**
+     * Wysyla zdarzenie do subskrybenta. Emiter, do ktorego nie udalo się pisac (np. po zamknięciu karty przegladarki),
+     * zostaje usunięty z kanalu.
+     *
+     * @return true, jesli zdarzenie zostalo wyslane
+     */
+    private boolean send(long gameId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            synchronized (emitter) {
+                emitter.send(event);
+            }
+            return true;
+        } catch (IOException e) {
+            unsubscribe(gameId, emitter);
+            emitter.completeWithError(e);
+            return false;
+        } catch (IllegalStateException e) {
+            unsubscribe(gameId, emitter);
+            return false;
+        }
+    }
+
+    private void unsubscribe(long gameId, SseEmitter emitter) {
+        subscribers.computeIfPresent(gameId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package com.pw.quizwhizz.service.game;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Licznik odpowiedzi wyslanych w rozpoczętej grze. Zbior oczekiwanych graczy jest ustalany w chwili startu gry;
+ * kazdy gracz ma przypisany bit, a liczba brakujacych odpowiedzi jest przechowywana w liczniku atomowym.
+ * Sprawdzenie, czy wszyscy gracze odpowiedzieli, kosztuje O(1), a dokladnie jedno wywolanie
+ * {@link #markSubmitted(long)} (to, ktore zamyka zbior odpowiedzi) zwraca true - rowniez przy rownoleglych wywolaniach.
+ *
+ * @author Karolina Prusaczyk
+ * @see LiveGame
+ */
+public class SubmissionTracker {
+    private final long[] playerIds;
+    private final AtomicLongArray submitted;
+    private final AtomicInteger remaining;
+
+    /**
+     * Konstruktor przyjmujacy
+     *
+     * @param expectedPlayerIds id graczy, od ktorych oczekiwane sa odpowiedzi
+     */
+    public SubmissionTracker(Collection<Long> expectedPlayerIds) {
+        this.playerIds = expectedPlayerIds.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+        this.submitted = new AtomicLongArray((playerIds.length + 63) >>> 6);
+        this.remaining = new AtomicInteger(playerIds.length);
+    }
+
+    /**
+     * Metoda odnotowujaca wyslanie odpowiedzi przez gracza.
+     *
+     * @param playerId id gracza
+     * @return true, jesli byla to ostatnia brakujaca odpowiedz
+     */
+    public boolean markSubmitted(long playerId) {
+        int index = Arrays.binarySearch(playerIds, playerId);
+        if (index < 0) {
+            return false;
+        }
+        int word = index >>> 6;
+        long bit = 1L << index;
+        while (true) {
+            long current = submitted.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (submitted.compareAndSet(word, current, current | bit)) {
+                return remaining.decrementAndGet() == 0;
+            }
+        }
+    }
+
+    /**
+     * @param playerId id gracza
+     * @return true, jesli gracz wyslal juz odpowiedzi
+     */
+    public boolean hasSubmitted(long playerId) {
+        int index = Arrays.binarySearch(playerIds, playerId);
+        return index >= 0 && (submitted.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * @param playerId id gracza
+     * @return true, jesli gracz nalezal do gry w chwili jej rozpoczęcia
+     */
+    public boolean isExpected(long playerId) {
+        return Arrays.binarySearch(playerIds, playerId) >= 0;
+    }
+
+    /**
+     * @return true, jesli wszyscy oczekiwani gracze wyslali odpowiedzi
+     */
+    public boolean allSubmitted() {
+        return remaining.get() == 0;
+    }
+
+    /**
+     * @return liczba graczy, ktorzy nie wyslali jeszcze odpowiedzi
+     */
+    public int countRemaining() {
+        return remaining.get();
+    }
+}
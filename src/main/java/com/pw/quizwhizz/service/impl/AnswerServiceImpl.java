@@ -10,7 +10,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Serwis domenowy udostepniajacy funkcjonalnosci dla domeny Answer
@@ -47,6 +49,12 @@ public class AnswerServiceImpl implements AnswerService {
         return answers;
     }
 
+    /**
+     * Zapisuje odpowiedzi jednym wywolaniem repozytorium - id przydzielane sa z puli generatora, a zapytania INSERT
+     * wysylane paczka przy zakonczeniu transakcji
+     * @param answers odpowiedzi do zapisania
+     * @return zapisane encje odpowiedzi
+     */
     @Transactional
     @Override
     public List<AnswerEntity> saveAnswers(List<Answer> answers) {
@@ -55,10 +63,12 @@ public class AnswerServiceImpl implements AnswerService {
             AnswerEntity answerEntity = new AnswerEntity();
             answerEntity.setAnswer(answer.getAnswer());
             answerEntity.setCorrect(answer.getIsCorrect());
-            answerRepository.save(answerEntity);
-            answer.setId(answerEntity.getId());
             answersEntity.add(answerEntity);
         }
+        answerRepository.save(answersEntity);
+        for (int i = 0; i < answers.size(); i++) {
+            answers.get(i).setId(answersEntity.get(i).getId());
+        }
         return answersEntity;
     }
 
@@ -73,18 +83,29 @@ public class AnswerServiceImpl implements AnswerService {
         return answers;
     }
 
+    /**
+     * Aktualizuje odpowiedzi - encje pobierane sa jednym zapytaniem, a zapytania UPDATE wysylane paczka przy zakonczeniu transakcji
+     * @param answers zmienione odpowiedzi
+     */
     @Transactional
     @Override
     public void updateAnswers(List<Answer> answers) {
-        List<AnswerEntity> answersEntity = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
         for (Answer answer : answers) {
-            AnswerEntity answerEntity = new AnswerEntity();
-            answerEntity.setAnswer(answer.getAnswer());
-            answerEntity.setCorrect(answer.getIsCorrect());
-            answerEntity.setId(answer.getId());
-            answerRepository.saveAndFlush(answerEntity);
-            answersEntity.add(answerEntity);
+            ids.add(answer.getId());
+        }
+        Map<Long, AnswerEntity> answersEntity = new HashMap<>();
+        for (AnswerEntity answerEntity : answerRepository.findAll(ids)) {
+            answersEntity.put(answerEntity.getId(), answerEntity);
+        }
+        for (Answer answer : answers) {
+            AnswerEntity answerEntity = answersEntity.get(answer.getId());
+            if (answerEntity != null) {
+                answerEntity.setAnswer(answer.getAnswer());
+                answerEntity.setCorrect(answer.getIsCorrect());
+            }
         }
+        answerRepository.save(answersEntity.values());
     }
 
     private Answer convertToAnswer(AnswerEntity answerEntity) {
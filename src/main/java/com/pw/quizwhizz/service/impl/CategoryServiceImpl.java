@@ -4,6 +4,7 @@ import com.pw.quizwhizz.entity.game.CategoryEntity;
 import com.pw.quizwhizz.model.game.Category;
 import com.pw.quizwhizz.repository.game.CategoryRepository;
 import com.pw.quizwhizz.service.CategoryService;
+import com.pw.quizwhizz.service.cache.CategoryCache;
 import com.pw.quizwhizz.util.ImageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.Modifying;
@@ -16,11 +17,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Serwis domenowy udostepniajacy funkcjonalnosci dla domeny Category
+ * Serwis domenowy udostepniajacy funkcjonalnosci dla domeny Category.
+ * Odczyty kategorii obslugiwane sa przez pamięc podręczna {@link CategoryCache}, uniewaznana przy kazdej zmianie kategorii.
  * @author Michał Nowiński, Karolina Prusaczyk
  * @see CategoryService
  */
@@ -29,36 +30,39 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ImageUtil imageUtil;
+    private final CategoryCache categoryCache;
 
     @Autowired
-    public CategoryServiceImpl(CategoryRepository categoryRepository, ImageUtil imageUtil) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository, ImageUtil imageUtil, CategoryCache categoryCache) {
         this.categoryRepository = categoryRepository;
         this.imageUtil = imageUtil;
+        this.categoryCache = categoryCache;
     }
 
+    /**
+     * @return niemodyfikowalna lista wspoldzielonych instancji kategorii
+     */
     @Override
     public List<Category> findAll() {
-        List<CategoryEntity> categoriesEntity = categoryRepository.findAll();
-        List<Category> categories = new ArrayList<>();
-        for (CategoryEntity categoryEntity : categoriesEntity) {
-            Category category = convertToCategory(categoryEntity);
-            categories.add(category);
-        }
-        return categories;
+        return categoryCache.findAll();
     }
 
+    /**
+     * @param id numer id kategorii
+     * @return wspoldzielona instancja kategorii lub null, jesli kategoria nie istnieje
+     */
     @Override
     public Category findById(Long id) {
-        CategoryEntity categoryEntity =  categoryRepository.findOne(id);
-        Category category = convertToCategory(categoryEntity);
-        return category;
+        return categoryCache.findById(id);
     }
 
+    /**
+     * @param categoryName nazwa kategorii
+     * @return wspoldzielona instancja kategorii lub null, jesli kategoria nie istnieje
+     */
     @Override
     public Category findByName(String categoryName) {
-        CategoryEntity categoryEntity =  categoryRepository.findByName(categoryName);
-        Category category = convertToCategory(categoryEntity);
-        return category;
+        return categoryCache.findByName(categoryName);
     }
 
     @Override
@@ -70,6 +74,7 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     public void deleteById(Long id) {
         categoryRepository.deleteById(id);
+        categoryCache.invalidate();
     }
 
     /**
@@ -121,6 +126,7 @@ public class CategoryServiceImpl implements CategoryService {
 
         CategoryEntity updatedCategoryEntity = getCategoryEntity(updatedCategory);
         categoryRepository.saveAndFlush(updatedCategoryEntity);
+        categoryCache.invalidate();
     }
 
     /**
@@ -133,6 +139,7 @@ public class CategoryServiceImpl implements CategoryService {
     public void updateCategory(Category updatedCategory){
         CategoryEntity updatedCategoryEntity = getCategoryEntity(updatedCategory);
         categoryRepository.saveAndFlush(updatedCategoryEntity);
+        categoryCache.invalidate();
     }
 
     /**
@@ -148,6 +155,7 @@ public class CategoryServiceImpl implements CategoryService {
         updatedCategoryEntity.setDescription(description);
         updatedCategoryEntity.setUrlImage(urlImage);
         categoryRepository.saveAndFlush(updatedCategoryEntity);
+        categoryCache.invalidate();
     }
 
     private CategoryEntity getCategoryEntity(Category updatedCategory) {
@@ -158,15 +166,6 @@ public class CategoryServiceImpl implements CategoryService {
         return updatedCategoryEntity;
     }
 
-    private Category convertToCategory(CategoryEntity categoryEntity) {
-        Category category = new Category();
-        category.setId(categoryEntity.getId());
-        category.setName(categoryEntity.getName());
-        category.setDescription(categoryEntity.getDescription());
-        category.setUrlImage(categoryEntity.getUrlImage());
-        return category;
-    }
-
     private void saveAsCategoryEntity(Category category) {
         CategoryEntity updatedCategoryEntity = new CategoryEntity();
         updatedCategoryEntity.setName(category.getName());
@@ -175,5 +174,6 @@ public class CategoryServiceImpl implements CategoryService {
         CategoryEntity categoryEntity = updatedCategoryEntity;
         categoryRepository.save(categoryEntity);
         category.setId(categoryEntity.getId());
+        categoryCache.invalidate();
     }
 }
@@ -2,42 +2,87 @@ package com.pw.quizwhizz.service.impl;
 
 import com.pw.quizwhizz.entity.game.*;
 import com.pw.quizwhizz.model.account.User;
+import com.pw.quizwhizz.model.dto.FinalScore;
+import com.pw.quizwhizz.model.dto.GameDTO;
 import com.pw.quizwhizz.model.exception.IllegalNumberOfQuestionsException;
 import com.pw.quizwhizz.model.exception.IllegalTimeOfAnswerSubmissionException;
 import com.pw.quizwhizz.model.exception.ScoreCannotBeRetrievedBeforeGameIsClosedException;
 import com.pw.quizwhizz.model.game.*;
 import com.pw.quizwhizz.repository.game.*;
-import com.pw.quizwhizz.service.AnswerService;
+import com.pw.quizwhizz.repository.impl.OpenGameRepository;
 import com.pw.quizwhizz.service.CategoryService;
 import com.pw.quizwhizz.service.GameService;
 import com.pw.quizwhizz.service.QuestionService;
+import com.pw.quizwhizz.service.SeenQuestionService;
+import com.pw.quizwhizz.service.cache.GeneralLeaderboard;
+import com.pw.quizwhizz.service.game.GameClosedEvent;
+import com.pw.quizwhizz.service.game.GameClosureWaiters;
+import com.pw.quizwhizz.service.game.GameDeadlineScheduler;
+import com.pw.quizwhizz.service.game.GameResultCache;
+import com.pw.quizwhizz.service.game.LiveGame;
+import com.pw.quizwhizz.service.game.LiveGameRegistry;
+import com.pw.quizwhizz.service.game.LobbyEventChannel;
+import com.pw.quizwhizz.service.game.SubmissionTracker;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.annotation.PostConstruct;
 import java.time.Instant;
 import java.util.*;
 
 /**
  * Implementacja serwisu gry stanowiąca most pomiędzy elementami logiki biznesowej a warstwą persystencji danych.
  * Operacje serwisu są wykorzystywane przez kontroler gry.
+ * Aktywne gry sa przechowywane w rejestrze {@link LiveGameRegistry} - serwis odtwarza grę z bazy danych jedynie raz,
+ * a kazda zmiana stanu gry jest zapisywana rownolegle w repozytoriach. Dolaczenie gracza i start gry sa rozsylane
+ * do poczekalni przez {@link LobbyEventChannel}, a terminy rozpoczętych gier obsluguje {@link GameDeadlineScheduler}.
  *
  * @author Karolina Prusaczyk
  */
 
 @Service
 public class GameServiceImpl implements GameService {
+    /**
+     * Bonus punktow doswiadczenia dla zwycięzcy gry wieloosobowej.
+     *
+     * @see Score#markAsHighest()
+     */
+    static final int WINNER_BONUS_XP = 30;
+    /**
+     * Maksymalny czas zawieszenia zapytania o zamknięcie gry, po ktorym przegladarka ponawia zapytanie.
+     */
+    static final long MAX_CLOSURE_WAIT_IN_MILLIS = 30_000;
+    /**
+     * Opoznienie sprawdzenia stanu gry wzgledem terminu zmiany stanu (maszyna stanu porownuje czas scisle).
+     */
+    static final long DEADLINE_DELAY_IN_MILLIS = 200;
+    private static final Log log = LogFactory.getLog(GameServiceImpl.class);
     private final GameRepository gameRepository;
     private final PlayerInGameRepository playerInGameRepository;
     private final QuestionInGameRepository questionInGameRepository;
     private final QuestionService questionService;
     private final CategoryService categoryService;
-    private final AnswerService answerService;
     private final PlayerRepository playerRepository;
     private final GameFactory gameFactory;
     private final GameEntityBuilder gameEntityBuilder;
     private final ScoreRepository scoreRepository;
     private final ScoreBuilder scoreBuilder;
+    private final LiveGameRegistry liveGameRegistry;
+    private final OpenGameRepository openGameRepository;
+    private final LobbyEventChannel lobbyEventChannel;
+    private final GameClosureWaiters gameClosureWaiters;
+    private final GameDeadlineScheduler gameDeadlineScheduler;
+    private final GameResultCache gameResultCache;
+    private final SeenQuestionService seenQuestionService;
+    private final GeneralLeaderboard generalLeaderboard;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public GameServiceImpl(GameRepository gameRepository,
@@ -45,19 +90,51 @@ public class GameServiceImpl implements GameService {
                            PlayerRepository playerRepository, ScoreRepository scoreRepository, QuestionInGameRepository questionInGameRepository,
                            QuestionService questionService,
                            CategoryService categoryService,
-                           AnswerService answerService, GameFactory gameFactory,
-                           GameEntityBuilder gameEntityBuilder, ScoreBuilder scoreBuilder) {
+                           GameFactory gameFactory,
+                           GameEntityBuilder gameEntityBuilder, ScoreBuilder scoreBuilder,
+                           LiveGameRegistry liveGameRegistry, OpenGameRepository openGameRepository,
+                           LobbyEventChannel lobbyEventChannel, GameClosureWaiters gameClosureWaiters,
+                           GameDeadlineScheduler gameDeadlineScheduler, GameResultCache gameResultCache,
+                           SeenQuestionService seenQuestionService, GeneralLeaderboard generalLeaderboard,
+                           ApplicationEventPublisher eventPublisher) {
         this.gameRepository = gameRepository;
         this.playerRepository = playerRepository;
         this.questionInGameRepository = questionInGameRepository;
         this.questionService = questionService;
         this.categoryService = categoryService;
-        this.answerService = answerService;
         this.gameFactory = gameFactory;
         this.gameEntityBuilder = gameEntityBuilder;
         this.playerInGameRepository = playerInGameRepository;
         this.scoreRepository = scoreRepository;
         this.scoreBuilder = scoreBuilder;
+        this.liveGameRegistry = liveGameRegistry;
+        this.openGameRepository = openGameRepository;
+        this.lobbyEventChannel = lobbyEventChannel;
+        this.gameClosureWaiters = gameClosureWaiters;
+        this.gameDeadlineScheduler = gameDeadlineScheduler;
+        this.gameResultCache = gameResultCache;
+        this.seenQuestionService = seenQuestionService;
+        this.generalLeaderboard = generalLeaderboard;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Przywraca terminy gier rozpoczętych przed uruchomieniem aplikacji. Terminy rejestrowane sa w planiscie jedynie
+     * w pamięci, wiec bez tego gry, ktorych nikt ponownie nie odczyta, pozostalyby w bazie danych rozpoczęte na zawsze.
+     * Kazda taka gra jest odtwarzana i rejestrowana wraz z terminami - gra, ktorej termin juz minal, zostanie zamknięta
+     * przez planistę w najblizszym takcie.
+     */
+    @PostConstruct
+    public void recoverStartedGames() {
+        List<Long> gameIds = gameRepository.findStartedIdsByCurrentStateIn(
+                Arrays.asList(GameState.STARTED, GameState.EVALUATING_ANSWERS));
+        for (Long gameId : gameIds) {
+            try {
+                findGameById(gameId);
+            } catch (IllegalNumberOfQuestionsException | RuntimeException e) {
+                log.error("Nie udalo się przywrocic terminow gry " + gameId, e);
+            }
+        }
     }
 
     @Transactional
@@ -69,45 +146,74 @@ public class GameServiceImpl implements GameService {
         gameRepository.save(gameEntity);
         game.setId(gameEntity.getId());
         saveQuestionsInGame(questions, game.getId());
-        return game;
+        return liveGameRegistry.register(new LiveGame(game)).getGame();
     }
 
     @Transactional
     @Override
     public void addOwnerToGame(Game game, User user) {
-        PlayerInGameEntity playerInGameEntity = createPlayerInGameEntityWithCompositeKey(game, user);
-        playerInGameEntity.setOwner(true);
-        playerInGameRepository.save(playerInGameEntity);
+        LiveGame liveGame = getLiveGame(game);
+        synchronized (liveGame) {
+            PlayerInGameEntity playerInGameEntity = createPlayerInGameEntityWithCompositeKey(game, user);
+            playerInGameEntity.setOwner(true);
+            playerInGameRepository.save(playerInGameEntity);
+
+            if (liveGame.findPlayer(user.getId()) == null) {
+                Player owner = findPlayerByIdAndGame(user.getId(), liveGame.getGame());
+                owner.setOwner(true);
+            }
+        }
     }
 
     @Override
     public void addPlayerToGame(Game game, User user) {
-        PlayerInGameKey key = getPlayerInGameKey(game.getId(), user.getId());
-        Optional<PlayerInGameEntity> optionalPlayer = Optional.ofNullable(playerInGameRepository.findOne(key));
-        if (optionalPlayer.isPresent()) {
-            return;
-        } else {
-            Player player = new Player(user.getFirstName());
-            player.setGame(game);
+        LiveGame liveGame = getLiveGame(game);
+        List<String> namesOfPlayers;
+        synchronized (liveGame) {
+            if (liveGame.findPlayer(user.getId()) != null) {
+                return;
+            }
+            Player player = findPlayerByIdAndGame(user.getId(), liveGame.getGame());
+            player.setOwner(false);
             PlayerInGameEntity playerInGameEntity = createPlayerInGameEntityWithCompositeKey(game, user);
             playerInGameEntity.setOwner(player.isOwner());
             playerInGameRepository.save(playerInGameEntity);
+            namesOfPlayers = liveGame.getNamesOfPlayers();
         }
+        lobbyEventChannel.publishPlayers(liveGame.getId(), namesOfPlayers);
     }
 
+    /**
+     * Zwraca aktywna grę z rejestru. Gra nieobecna w rejestrze zostaje odtworzona z bazy danych
+     * i - jesli nie jest jeszcze zamknięta - zarejestrowana.
+     *
+     * @param gameId id gry
+     * @return gra wraz z pytaniami, graczami i wynikami
+     */
     @Override
     public Game findGameById(Long gameId) throws IllegalNumberOfQuestionsException {
-        GameEntity gameEntity = gameRepository.findOne(gameId);
-        List<QuestionInGameEntity> questionsInGame = getQuestionInGameEntityList(gameId);
-        List<Question> questions = convertToQuestions(questionsInGame);
-        Category category = categoryService.findById(gameEntity.getCategory().getId());
-        Game game = fillGameWithInformation(gameEntity, questions, category);
-        return game;
+        LiveGame liveGame = liveGameRegistry.find(gameId);
+        if (liveGame != null) {
+            return liveGame.getGame();
+        }
+        liveGame = hydrateGame(gameId);
+        if (liveGame.getGame().getGameStateMachine().getCurrentState() != GameState.CLOSED) {
+            LiveGame registered = liveGameRegistry.register(liveGame);
+            if (registered == liveGame) {
+                scheduleDeadlines(liveGame);
+            }
+            liveGame = registered;
+        }
+        return liveGame.getGame();
     }
 
     @Override
     @Transactional
     public boolean isGameStarted(Long gameId) {
+        LiveGame liveGame = liveGameRegistry.find(gameId);
+        if (liveGame != null) {
+            return liveGame.getGame().getGameStateMachine().getCurrentState() == GameState.STARTED;
+        }
         GameEntity game = gameRepository.getOne(gameId);
         return game.getCurrentState() == GameState.STARTED;
     }
@@ -115,20 +221,30 @@ public class GameServiceImpl implements GameService {
     @Override
     @Transactional
     public void startGame(Game game, User user) throws IllegalNumberOfQuestionsException {
-        PlayerInGameEntity playerInGameEntity = getPlayerInGameEntity(game, user);
-        Player player = new Player(user.getFirstName(), game);
-        player.setOwner(playerInGameEntity.isOwner());
-
-        if (player.isOwner()) {
+        LiveGame liveGame = getLiveGame(game);
+        synchronized (liveGame) {
+            Game liveInstance = liveGame.getGame();
+            Player player = liveGame.findPlayer(user.getId());
+            boolean gameIsOpen = liveInstance.getGameStateMachine().getCurrentState() == GameState.OPEN;
+
+            if (player == null || !player.isOwner() || !gameIsOpen) {
+                return;
+            }
             player.startGame();
+            updateGame(liveInstance);
+            liveGame.trackSubmissions();
+            scheduleDeadlines(liveGame);
         }
-        GameEntity gameEntity = convertToGameEntity(game);
-        gameEntity.setId(game.getId());
-        gameRepository.saveAndFlush(gameEntity);
+        lobbyEventChannel.publishStarted(liveGame.getId());
     }
 
     @Override
     public boolean isPlayerGameOwner(Long userId, Long gameId) {
+        LiveGame liveGame = liveGameRegistry.find(gameId);
+        if (liveGame != null) {
+            Player player = liveGame.findPlayer(userId);
+            return player != null && player.isOwner();
+        }
         PlayerInGameKey key = getPlayerInGameKey(gameId, userId);
         PlayerInGameEntity playerInGameEntity = playerInGameRepository.findOne(key);
         return playerInGameEntity.isOwner();
@@ -138,70 +254,78 @@ public class GameServiceImpl implements GameService {
     @Override
     public void submitAnswers(Game game, User user, List<Long> answerIds) throws
             IllegalTimeOfAnswerSubmissionException, IllegalNumberOfQuestionsException {
-        Player player = retrievePlayer(game, user);
-        List<Answer> answers = answerService.findAnswersByIds(answerIds);
-        player.submitAnswers(answers);
-        updateGame(game);
-        updatePlayer(player);
-
-        getAndSavePlayersScore(game, player);
-        closeGameIfAllPlayersSubmittedAnswers(game);
+        LiveGame liveGame = getLiveGame(game);
+        synchronized (liveGame) {
+            Game liveInstance = liveGame.getGame();
+            Player player = liveGame.findPlayer(user.getId());
+            SubmissionTracker submissionTracker = liveGame.getSubmissionTracker();
+            if (player == null || submissionTracker.hasSubmitted(player.getId())) {
+                return;
+            }
+            List<Answer> answers = liveGame.getAnswerKey().resolve(answerIds);
+            player.submitAnswers(answers);
+            updateGame(liveInstance);
+            Score score = getAndSavePlayersScore(liveInstance, player);
+            updatePlayer(player, score.getPoints());
+
+            if (submissionTracker.markSubmitted(player.getId())) {
+                closeGame(liveGame);
+            }
+            updateGeneralLeaderboard(player, score.getPoints());
+        }
     }
 
     @Transactional
     @Override
     public void saveScore(Score score) {
-        ScoreKey key = getScoreKey(score);
-        ScoreEntity scoreEntity = new ScoreEntity();
-        scoreEntity.setId(key);
-        scoreEntity.setPoints(score.getPoints());
-        scoreEntity.setIsHighest(score.isHighest());
-        scoreRepository.save(scoreEntity);
+        scoreRepository.save(convertToScoreEntity(score));
     }
 
+    /**
+     * Zwraca wyniki zakonczonej gry. Wyniki ustalane sa jednorazowo przy zamknięciu gry - metoda jedynie je odczytuje
+     * (z pamięci podręcznej lub z bazy danych) i nie wykonuje zadnych zapisow.
+     *
+     * @param gameId id gry
+     * @return wyniki uporzadkowane od najwyzszego
+     * @throws ScoreCannotBeRetrievedBeforeGameIsClosedException jesli gra jeszcze trwa
+     */
     @Override
-    public List<Score> checkScores(long gameId) throws IllegalNumberOfQuestionsException, ScoreCannotBeRetrievedBeforeGameIsClosedException {
-        Game game = findGameById(gameId);
-        updateGame(game);
-        List<ScoreEntity> scoreEntityList = scoreRepository.findAllById_GameId(gameId);
-        List<Score> scores = new ArrayList<>();
-
-        for (ScoreEntity scoreEntity : scoreEntityList) {
-            Player player = findPlayerByIdAndGame(scoreEntity.getId().getUserId(), game);
-            Score score = buildScore(scoreEntity, player);
-            scores.add(score);
+    public List<FinalScore> checkScores(long gameId) throws IllegalNumberOfQuestionsException, ScoreCannotBeRetrievedBeforeGameIsClosedException {
+        List<FinalScore> finalScores = gameResultCache.find(gameId);
+        if (finalScores != null) {
+            return finalScores;
         }
-        game.setScores(scores);
-        game.checkScores();
 
-        for (Score score : scores) {
-            updateScore(score);
-            updatePlayer(score.getPlayer());
+        GameEntity gameEntity = gameRepository.findOne(gameId);
+        if (gameEntity.getCurrentState() != GameState.CLOSED) {
+            LiveGame liveGame = getLiveGame(findGameById(gameId));
+            synchronized (liveGame) {
+                GameStateMachine gameStateMachine = liveGame.getGame().getGameStateMachine();
+                gameStateMachine.determineCurrentState();
+                if (gameStateMachine.getCurrentState() != GameState.CLOSED) {
+                    throw new ScoreCannotBeRetrievedBeforeGameIsClosedException();
+                }
+                closeGame(liveGame);
+            }
+            finalScores = gameResultCache.find(gameId);
+            if (finalScores != null) {
+                return finalScores;
+            }
         }
-        scores.sort(Comparator.comparing(Score::getPoints).reversed());
-        return scores;
+        return gameResultCache.put(gameId, loadFinalScores(gameId));
     }
 
-    @Transactional
     @Override
-    public List<Game> getAllOpenGames() throws IllegalNumberOfQuestionsException {
-        List<Game> games = new ArrayList<>();
-        List<GameEntity> gameEntities = gameRepository.findAllByCurrentState(GameState.OPEN);
-        for (GameEntity gameEntity : gameEntities) {
-            Category category = categoryService.findById(gameEntity.getCategory().getId());
-            List<QuestionInGameEntity> questionsInGame = getQuestionInGameEntityList(gameEntity.getId());
-            List<Question> questions = convertToQuestions(questionsInGame);
-            List<PlayerInGameEntity> playersInGame = getPlayerInGameEntityList(gameEntity.getId());
-            Game game = buildGame(gameEntity, category, questions);
-            List<Player> players = convertToPlayers(playersInGame, game);
-            game.setPlayers(players);
-            games.add(game);
-        }
-        return games;
+    public List<GameDTO> getAllOpenGames() {
+        return openGameRepository.findAllOpen();
     }
 
     @Override
     public List<String> getNamesOfPlayersInGame(Long gameId) {
+        LiveGame liveGame = liveGameRegistry.find(gameId);
+        if (liveGame != null) {
+            return liveGame.getNamesOfPlayers();
+        }
         List<PlayerInGameEntity> playerInGameEntities = getPlayerInGameEntityList(gameId);
         List<Long> playerIds = new ArrayList<>();
 
@@ -219,6 +343,18 @@ public class GameServiceImpl implements GameService {
 
     @Override
     public boolean isGameClosed(Long gameId) {
+        LiveGame liveGame = liveGameRegistry.find(gameId);
+        if (liveGame != null) {
+            synchronized (liveGame) {
+                GameStateMachine gameStateMachine = liveGame.getGame().getGameStateMachine();
+                gameStateMachine.determineCurrentState();
+                if (gameStateMachine.getCurrentState() == GameState.CLOSED) {
+                    closeGame(liveGame);
+                    return true;
+                }
+                return false;
+            }
+        }
         GameEntity gameEntity = gameRepository.findOne(gameId);
         GameState gameState = gameEntity.getCurrentState();
         if(gameState == GameState.CLOSED) {
@@ -232,6 +368,89 @@ public class GameServiceImpl implements GameService {
         }
     }
 
+    /**
+     * Zawiesza zapytanie do momentu zamknięcia gry. Gra zamykana jest po wyslaniu odpowiedzi przez wszystkich graczy
+     * lub przez planistę terminow, a wraz z nia konczone sa wszystkie oczekujace zapytania.
+     *
+     * @param gameId id gry
+     * @return wynik w postaci obiektu JSON z polem "isClosed"
+     */
+    @Override
+    public DeferredResult<String> awaitGameClosed(Long gameId) {
+        DeferredResult<String> result = gameClosureWaiters.await(gameId, MAX_CLOSURE_WAIT_IN_MILLIS);
+        result.onTimeout(() -> result.setResult(GameClosureWaiters.toJson(isGameClosed(gameId))));
+
+        if (isGameClosed(gameId)) {
+            gameClosureWaiters.wakeUp(gameId);
+        }
+        return result;
+    }
+
+    /**
+     * Rejestruje w planiscie terminy przejscia rozpoczętej gry w stan oceniania odpowiedzi oraz w stan zamknięty.
+     */
+    private void scheduleDeadlines(LiveGame liveGame) {
+        GameStateMachine gameStateMachine = liveGame.getGame().getGameStateMachine();
+        if (gameStateMachine.getStartTime() == null) {
+            return;
+        }
+        long gameId = liveGame.getId();
+        gameDeadlineScheduler.schedule(gameId, gameStateMachine.getAnswerEvaluationTime().plusMillis(DEADLINE_DELAY_IN_MILLIS),
+                () -> applyDeadline(gameId));
+        gameDeadlineScheduler.schedule(gameId, gameStateMachine.getClosureTime().plusMillis(DEADLINE_DELAY_IN_MILLIS),
+                () -> applyDeadline(gameId));
+    }
+
+    /**
+     * Wywolywana przez planistę po uplywie terminu - ustala aktualny stan gry i zapisuje go w bazie danych.
+     * Gra, ktora przeszla w stan zamknięty, jest zamykana (wraz z obudzeniem oczekujacych graczy).
+     */
+    private void applyDeadline(long gameId) {
+        LiveGame liveGame = liveGameRegistry.find(gameId);
+        if (liveGame == null) {
+            return;
+        }
+        synchronized (liveGame) {
+            GameStateMachine gameStateMachine = liveGame.getGame().getGameStateMachine();
+            GameState previousState = gameStateMachine.getCurrentState();
+            gameStateMachine.determineCurrentState();
+
+            if (gameStateMachine.getCurrentState() == GameState.CLOSED) {
+                closeGame(liveGame);
+            } else if (gameStateMachine.getCurrentState() != previousState) {
+                updateGame(liveGame.getGame());
+            }
+        }
+    }
+
+    private LiveGame getLiveGame(Game game) {
+        LiveGame liveGame = liveGameRegistry.find(game.getId());
+        return liveGame != null ? liveGame : new LiveGame(game);
+    }
+
+    /**
+     * Odtwarza grę z bazy danych wraz z pytaniami, graczami i zapisanymi juz wynikami.
+     * Liczba zapytan nie zalezy od liczby pytan ani graczy w grze. Zwrocona gra nie jest jeszcze zarejestrowana.
+     */
+    private LiveGame hydrateGame(Long gameId) throws IllegalNumberOfQuestionsException {
+        GameEntity gameEntity = gameRepository.findOne(gameId);
+        List<Question> questions = questionService.findAllByGameId(gameId);
+        Category category = categoryService.findById(gameEntity.getCategory().getId());
+        LiveGame liveGame = new LiveGame(fillGameWithInformation(gameEntity, questions, category));
+
+        convertToPlayers(getPlayerInGameEntityList(gameId), liveGame.getGame());
+        for (ScoreEntity scoreEntity : scoreRepository.findAllById_GameId(gameId)) {
+            Player player = liveGame.findPlayer(scoreEntity.getId().getUserId());
+            if (player != null) {
+                liveGame.getGame().getScores().add(buildScore(scoreEntity, player));
+            }
+        }
+        if (gameEntity.getStartTime() != null) {
+            liveGame.trackSubmissions();
+        }
+        return liveGame;
+    }
+
     private PlayerInGameKey getPlayerInGameKey(long gameId, long userId) {
         PlayerInGameKey key = new PlayerInGameKey();
         key.setUserId(userId);
@@ -243,10 +462,6 @@ public class GameServiceImpl implements GameService {
         game.getGameStateMachine().setStartTime(gameEntity.getStartTime());
     }
 
-    private List<QuestionInGameEntity> getQuestionInGameEntityList(Long gameId) {
-        return questionInGameRepository.findAllById_GameId(gameId);
-    }
-
     private List<PlayerInGameEntity> getPlayerInGameEntityList(Long gameId) {
         return playerInGameRepository.findAllById_GameId(gameId);
     }
@@ -258,64 +473,152 @@ public class GameServiceImpl implements GameService {
         return game;
     }
 
-    private Player retrievePlayer(Game game, User user) {
-        PlayerInGameEntity playerInGameEntity = getPlayerInGameEntity(game, user);
-        Player player = findPlayerByIdAndGame(user.getId(), game);
-        player.setOwner(playerInGameEntity.isOwner());
-        return player;
-    }
-
-    private void closeGameIfAllPlayersSubmittedAnswers(Game game) throws IllegalNumberOfQuestionsException {
-        List<PlayerInGameEntity> playersInGame = getPlayerInGameEntityList(game.getId());
-        List<Player> players = convertToPlayers(playersInGame, game);
-        List<ScoreEntity> scoreEntities = scoreRepository.findAllById_GameId(game.getId());
-        List<Score> scores = convertToScores(scoreEntities, game);
+    /**
+     * Zapisuje stan zamkniętej gry, ustala wyniki, oznacza pytania gry jako widziane przez graczy, usuwa grę z rejestru
+     * aktywnych gier i budzi graczy oczekujacych na wyniki. Kolejne wywolania dla tej samej gry nie maja efektu.
+     * <p>
+     * Wywolana w transakcji usuwa grę z rejestru dopiero po zakonczeniu transakcji - do tego momentu zamknięta gra
+     * pozostaje w rejestrze, wiec rownolegle zapytanie nie odtworzy jej z bazy danych jako wciaz rozpoczętej.
+     */
+    private void closeGame(LiveGame liveGame) {
+        if (!liveGame.markClosed()) {
+            return;
+        }
+        Game game = liveGame.getGame();
+        game.getGameStateMachine().setCurrentState(GameState.CLOSED);
+        updateGame(game);
+        finalizeScores(liveGame);
+        markQuestionsAsSeen(game);
+        long gameId = game.getId();
+        afterCompletion(() -> {
+            liveGameRegistry.evict(gameId);
+            gameDeadlineScheduler.cancel(gameId);
+            gameClosureWaiters.wakeUp(gameId);
+        });
+    }
+
+    /**
+     * Wykonuje zadanie po zatwierdzeniu biezacej transakcji (wycofana transakcja pomija zadanie), a poza transakcja - od razu.
+     */
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Wykonuje zadanie po zakonczeniu biezacej transakcji (zatwierdzonej lub wycofanej), a poza transakcja - od razu.
+     */
+    private void afterCompletion(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Jednorazowo ustala zwycięzcow gry, przyznaje im bonus punktow doswiadczenia, zapisuje wyniki jednym wywolaniem
+     * repozytorium, umieszcza niezmienna kopię wynikow w pamięci podręcznej i publikuje zdarzenie zamknięcia gry.
+     * Bonus doliczany jest do rankingu generalnego dopiero po zatwierdzeniu transakcji.
+     */
+    private void finalizeScores(LiveGame liveGame) {
+        Game game = liveGame.getGame();
+        List<Score> scores;
+        try {
+            scores = new ArrayList<>(game.checkScores());
+        } catch (ScoreCannotBeRetrievedBeforeGameIsClosedException e) {
+            return;
+        }
 
-        List<Player> playersWithCalculatedScores = getListOfPlayersWhoSubmittedAnswers(game, scores);
-        boolean allPlayersSubmittedAnswers = playersWithCalculatedScores.containsAll(players);
+        List<ScoreEntity> scoreEntities = new ArrayList<>();
+        List<FinalScore> finalScores = new ArrayList<>();
+        List<Long> winnerIds = new ArrayList<>();
+        for (Score score : scores) {
+            score.setGameId(game.getId());
+            scoreEntities.add(convertToScoreEntity(score));
+            if (score.isHighest()) {
+                playerRepository.addXp(score.getPlayer().getId(), WINNER_BONUS_XP);
+                winnerIds.add(score.getPlayer().getId());
+            }
+            Player player = score.getPlayer();
+            finalScores.add(new FinalScore(player.getId(), player.getName(), score.getPoints(), score.isHighest(), player.getXp()));
+        }
+        scoreRepository.save(scoreEntities);
+        afterCommit(() -> winnerIds.forEach(winnerId -> generalLeaderboard.addXp(winnerId, WINNER_BONUS_XP)));
+        finalScores.sort(Comparator.comparing(FinalScore::getPoints).reversed());
+        List<FinalScore> cachedScores = gameResultCache.put(game.getId(), finalScores);
+        eventPublisher.publishEvent(new GameClosedEvent(this, game.getId(), game.getCategory().getId(),
+                game.getGameStateMachine().getStartTime(), cachedScores));
+    }
 
-        if (allPlayersSubmittedAnswers) {
-            game.getGameStateMachine().setCurrentState(GameState.CLOSED);
-            updateGame(game);
+    private void markQuestionsAsSeen(Game game) {
+        List<Long> playerIds = new ArrayList<>();
+        for (Player player : game.getPlayers()) {
+            playerIds.add(player.getId());
+        }
+        List<Long> questionIds = new ArrayList<>();
+        for (Question question : game.getQuestions()) {
+            questionIds.add(question.getId());
         }
+        seenQuestionService.markAsSeen(playerIds, questionIds);
     }
 
-    private List<Player> getListOfPlayersWhoSubmittedAnswers(Game game, List<Score> scores) {
-        List<Player> playersWithCalculatedScores = new ArrayList<>();
-        for (Score s : scores) {
-            Player playerWithScore = s.getPlayer();
-            playerWithScore.setGame(game);
-            playerWithScore.setOwner(s.getPlayer().isOwner());
-            playersWithCalculatedScores.add(playerWithScore);
+    /**
+     * Odczytuje wyniki zamkniętej gry z bazy danych (np. po ponownym uruchomieniu aplikacji).
+     */
+    private List<FinalScore> loadFinalScores(long gameId) {
+        List<ScoreEntity> scoreEntities = scoreRepository.findAllById_GameId(gameId);
+        List<Long> playerIds = new ArrayList<>();
+        for (ScoreEntity scoreEntity : scoreEntities) {
+            playerIds.add(scoreEntity.getId().getUserId());
+        }
+        Map<Long, PlayerEntity> playerEntities = new HashMap<>();
+        for (PlayerEntity playerEntity : playerRepository.findAll(playerIds)) {
+            playerEntities.put(playerEntity.getId(), playerEntity);
         }
-        return playersWithCalculatedScores;
+
+        List<FinalScore> finalScores = new ArrayList<>();
+        for (ScoreEntity scoreEntity : scoreEntities) {
+            PlayerEntity playerEntity = playerEntities.get(scoreEntity.getId().getUserId());
+            int points = scoreEntity.getPoints() != null ? scoreEntity.getPoints() : 0;
+            boolean isHighest = scoreEntity.getIsHighest() != null && scoreEntity.getIsHighest();
+            int xp = playerEntity.getXp() != null ? playerEntity.getXp() : 0;
+            finalScores.add(new FinalScore(playerEntity.getId(), playerEntity.getName(), points, isHighest, xp));
+        }
+        finalScores.sort(Comparator.comparing(FinalScore::getPoints).reversed());
+        return finalScores;
     }
 
-    private void getAndSavePlayersScore(Game game, Player player) {
+    private Score getAndSavePlayersScore(Game game, Player player) {
         Score score = game.getScores().stream()
                 .filter(s -> s.getPlayer().equals(player))
                 .findFirst()
                 .orElse(null);
         score.setGameId(game.getId());
         saveScore(score);
+        return score;
     }
 
-    private List<Score> convertToScores(List<ScoreEntity> scoreEntities, Game game) {
-        List<Score> scores = new ArrayList<>();
-        for (ScoreEntity scoreEntity : scoreEntities) {
-            Player player = findPlayerByIdAndGame(scoreEntity.getId().getUserId(), game);
-            boolean isOwner = isPlayerGameOwner(player.getId(), game.getId());
-            player.setOwner(isOwner);
-            Score score = buildScore(scoreEntity, player);
-            scores.add(score);
-        }
-        return scores;
+    private Player findPlayerByIdAndGame(Long id, Game game) {
+        return convertToPlayer(playerRepository.findOne(id), game);
     }
 
-    private Player findPlayerByIdAndGame(Long id, Game game) {
-        PlayerEntity playerEntity = playerRepository.findOne(id);
+    private Player convertToPlayer(PlayerEntity playerEntity, Game game) {
         Player player = new Player(playerEntity.getName(), game);
-        player.setId(id);
+        player.setId(playerEntity.getId());
         if (playerEntity.getGamesPlayed() != null) {
             player.setGamesPlayed(playerEntity.getGamesPlayed());
         }
@@ -325,12 +628,24 @@ public class GameServiceImpl implements GameService {
         return player;
     }
 
-    @Transactional
-    private void updatePlayer(Player player) {
-        PlayerEntity playerEntity = playerRepository.findOne(player.getId());
-        playerEntity.setGamesPlayed(player.getGamesPlayed());
-        playerEntity.setXp(player.getXp());
-        playerRepository.saveAndFlush(playerEntity);
+    /**
+     * Dolicza graczowi punkty zdobyte w grze i rozegrana grę jednym zapytaniem UPDATE (przyrostowo), nie nadpisujac
+     * punktow zdobytych w tym czasie w innych grach ani bonusow za wygrana.
+     */
+    private void updatePlayer(Player player, int points) {
+        playerRepository.addGameResult(player.getId(), points);
+    }
+
+    /**
+     * Dolicza wynik gracza do rankingu generalnego po zatwierdzeniu transakcji - wycofany zapis wyniku nie zmienia
+     * rankingu. Wywolywana po ewentualnym zamknięciu gry, wiec bonus za wygrana (doliczany tylko graczom obecnym
+     * w rankingu) jest uwzględniany wczesniej, a gracz spoza rankingu dodawany jest z danymi odczytanymi juz
+     * po zatwierdzeniu, obejmujacymi zarowno wynik, jak i bonus.
+     */
+    private void updateGeneralLeaderboard(Player player, int points) {
+        long playerId = player.getId();
+        String name = player.getName();
+        afterCommit(() -> generalLeaderboard.addGameResult(playerId, name, points));
     }
 
     private Game buildGame(GameEntity gameEntity, Category category, List<Question> questions) throws IllegalNumberOfQuestionsException {
@@ -343,24 +658,24 @@ public class GameServiceImpl implements GameService {
         return game;
     }
 
-    private List<Question> convertToQuestions(List<QuestionInGameEntity> questionsInGame) {
-        List<Question> questions = new ArrayList<>();
-        for (QuestionInGameEntity questionInGame : questionsInGame) {
-            Question question = questionService.findById(questionInGame.getId().getQuestionId());
-            questions.add(question);
+    /**
+     * Dodaje do gry graczy (wlasciciel jako pierwszy), pobierajac ich dane jednym zapytaniem.
+     */
+    private List<Player> convertToPlayers(List<PlayerInGameEntity> playersInGame, Game game) {
+        List<Long> playerIds = new ArrayList<>();
+        for (PlayerInGameEntity playerInGameEntity : playersInGame) {
+            playerIds.add(playerInGameEntity.getId().getUserId());
+        }
+        Map<Long, PlayerEntity> playerEntities = new HashMap<>();
+        for (PlayerEntity playerEntity : playerRepository.findAll(playerIds)) {
+            playerEntities.put(playerEntity.getId(), playerEntity);
         }
-        return questions;
-    }
-
-    private PlayerInGameEntity getPlayerInGameEntity(Game game, User user) {
-        PlayerInGameKey compositeKey = getPlayerInGameKey(game.getId(), user.getId());
-        return playerInGameRepository.findOne(compositeKey);
-    }
 
-    private List<Player> convertToPlayers(List<PlayerInGameEntity> playersInGame, Game game) {
+        List<PlayerInGameEntity> ownerFirst = new ArrayList<>(playersInGame);
+        ownerFirst.sort(Comparator.comparing(playerInGameEntity -> !playerInGameEntity.isOwner()));
         List<Player> players = new ArrayList<>();
-        for (PlayerInGameEntity playerInGameEntity : playersInGame) {
-            Player player = findPlayerByIdAndGame(playerInGameEntity.getId().getUserId(), game);
+        for (PlayerInGameEntity playerInGameEntity : ownerFirst) {
+            Player player = convertToPlayer(playerEntities.get(playerInGameEntity.getId().getUserId()), game);
             player.setOwner(playerInGameEntity.isOwner());
             players.add(player);
         }
@@ -409,11 +724,10 @@ public class GameServiceImpl implements GameService {
 
     private void updateGame(Game game) {
         GameEntity gameEntity = gameRepository.findOne(game.getId());
-        if (game.getGameStateMachine().getStartTime() != null) {
-            game.getGameStateMachine().determineCurrentState();
-        }
-        GameState state = game.getGameStateMachine().getCurrentState();
-        gameEntity.setCurrentState(state);
+        GameStateMachine gameStateMachine = game.getGameStateMachine();
+        gameStateMachine.determineCurrentState();
+        gameEntity.setCurrentState(gameStateMachine.getCurrentState());
+        gameEntity.setStartTime(gameStateMachine.getStartTime());
         gameRepository.saveAndFlush(gameEntity);
     }
 
@@ -438,12 +752,11 @@ public class GameServiceImpl implements GameService {
         return key;
     }
 
-    @Transactional
-    private void updateScore(Score score) {
-        ScoreKey key = getScoreKey(score);
-        ScoreEntity scoreEntity = scoreRepository.findOne(key);
+    private ScoreEntity convertToScoreEntity(Score score) {
+        ScoreEntity scoreEntity = new ScoreEntity();
+        scoreEntity.setId(getScoreKey(score));
         scoreEntity.setPoints(score.getPoints());
         scoreEntity.setIsHighest(score.isHighest());
-        scoreRepository.saveAndFlush(scoreEntity);
+        return scoreEntity;
     }
 }
@@ -0,0 +1,177 @@
+package com.pw.quizwhizz.service.impl;
+
+import com.pw.quizwhizz.model.dto.QuestionBankRow;
+import com.pw.quizwhizz.repository.impl.QuestionExportRepository;
+import com.pw.quizwhizz.service.QuestionExportService;
+import com.pw.quizwhizz.util.CsvWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Serwis eksportujacy cala bazę pytan. Wiersze odczytywane strumieniowo z repozytorium sa grupowane w pytania
+ * (odpowiedzi jednego pytania następuja po sobie) i od razu zapisywane - w pamięci znajduje się tylko biezace pytanie.
+ * <p>
+ * Eksport CSV ma format importu ({@link QuestionImportServiceImpl}), co pozwala przeniesc bazę pytan do innej instancji:
+ * {@code kategoria;pytanie;odpowiedz1;...;poprawna}. Eksport JSON Lines zawiera jedno pytanie w wierszu,
+ * wraz z nazwa kategorii oraz id pytania i odpowiedzi.
+ *
+ * @author Michał Nowiński
+ * @see QuestionExportService
+ */
+@Service
+public class QuestionExportServiceImpl implements QuestionExportService {
+    static final List<String> CSV_HEADER = Arrays.asList(
+            "kategoria", "pytanie", "odpowiedz1", "odpowiedz2", "odpowiedz3", "odpowiedz4", "poprawna");
+    private static final char CSV_SEPARATOR = ';';
+
+    private final QuestionExportRepository questionExportRepository;
+
+    @Autowired
+    public QuestionExportServiceImpl(QuestionExportRepository questionExportRepository) {
+        this.questionExportRepository = questionExportRepository;
+    }
+
+    /**
+     * @param writer miejsce zapisu pliku CSV
+     * @throws IOException w przypadku bledu zapisu
+     */
+    @Override
+    public void exportCsv(Writer writer) throws IOException {
+        CsvWriter csvWriter = new CsvWriter(writer, CSV_SEPARATOR);
+        csvWriter.writeRecord(CSV_HEADER);
+        export(question -> {
+            List<String> fields = new ArrayList<>(question.answers.size() + 3);
+            fields.add(String.valueOf(question.categoryId));
+            fields.add(question.question);
+            int correct = 0;
+            for (int i = 0; i < question.answers.size(); i++) {
+                QuestionBankRow answer = question.answers.get(i);
+                fields.add(answer.getAnswer());
+                if (answer.isCorrect()) {
+                    correct = i + 1;
+                }
+            }
+            fields.add(String.valueOf(correct));
+            csvWriter.writeRecord(fields);
+        });
+        writer.flush();
+    }
+
+    /**
+     * @param writer miejsce zapisu pliku JSON Lines
+     * @throws IOException w przypadku bledu zapisu
+     */
+    @Override
+    public void exportJsonLines(Writer writer) throws IOException {
+        export(question -> {
+            writer.write("{\"categoryId\":" + question.categoryId +
+                    ",\"category\":" + toJsonString(question.categoryName) +
+                    ",\"questionId\":" + question.questionId +
+                    ",\"question\":" + toJsonString(question.question) +
+                    ",\"answers\":[");
+            for (int i = 0; i < question.answers.size(); i++) {
+                QuestionBankRow answer = question.answers.get(i);
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write("{\"id\":" + answer.getAnswerId() +
+                        ",\"answer\":" + toJsonString(answer.getAnswer()) +
+                        ",\"correct\":" + answer.isCorrect() + "}");
+            }
+            writer.write("]}\n");
+        });
+        writer.flush();
+    }
+
+    /**
+     * Grupuje kolejne wiersze repozytorium w pytania i przekazuje kazde kompletne pytanie do zapisu.
+     */
+    private void export(QuestionWriter questionWriter) throws IOException {
+        ExportedQuestion[] current = new ExportedQuestion[1];
+        try {
+            questionExportRepository.forEachRow(row -> {
+                if (current[0] != null && current[0].questionId != row.getQuestionId()) {
+                    write(questionWriter, current[0]);
+                    current[0] = null;
+                }
+                if (current[0] == null) {
+                    current[0] = new ExportedQuestion(row);
+                }
+                current[0].answers.add(row);
+            });
+            if (current[0] != null) {
+                write(questionWriter, current[0]);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void write(QuestionWriter questionWriter, ExportedQuestion question) {
+        try {
+            questionWriter.write(question);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String toJsonString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private interface QuestionWriter {
+        void write(ExportedQuestion question) throws IOException;
+    }
+
+    private static class ExportedQuestion {
+        private final long categoryId;
+        private final String categoryName;
+        private final long questionId;
+        private final String question;
+        private final List<QuestionBankRow> answers = new ArrayList<>(4);
+
+        private ExportedQuestion(QuestionBankRow row) {
+            this.categoryId = row.getCategoryId();
+            this.categoryName = row.getCategoryName();
+            this.questionId = row.getQuestionId();
+            this.question = row.getQuestion();
+        }
+    }
+}
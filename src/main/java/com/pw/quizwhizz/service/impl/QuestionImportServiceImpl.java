@@ -0,0 +1,240 @@
+package com.pw.quizwhizz.service.impl;
+
+import com.pw.quizwhizz.entity.game.AnswerEntity;
+import com.pw.quizwhizz.entity.game.QuestionEntity;
+import com.pw.quizwhizz.model.dto.ImportProgress;
+import com.pw.quizwhizz.model.game.Category;
+import com.pw.quizwhizz.repository.game.CategoryRepository;
+import com.pw.quizwhizz.repository.game.QuestionRepository;
+import com.pw.quizwhizz.service.CategoryService;
+import com.pw.quizwhizz.service.QuestionImportService;
+import com.pw.quizwhizz.service.cache.QuestionBankChangedEvent;
+import com.pw.quizwhizz.service.cache.QuestionIndex;
+import com.pw.quizwhizz.service.cache.QuestionSearchIndex;
+import com.pw.quizwhizz.util.CsvReader;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Serwis importujacy pytania z plikow CSV. Plik odczytywany jest strumieniowo (w pamięci znajduje się jedynie biezacy
+ * rekord oraz jedna paczka pytan), poprawne wiersze zapisywane sa paczkami po {@link #BATCH_SIZE} pytan - kazda paczka
+ * w osobnej transakcji - a indeksy i pamięci podręczne pytan odswiezane sa jednokrotnie po zakonczeniu importu (indeks
+ * pelnotekstowy - po zapisie kazdej paczki).
+ * <p>
+ * Format pliku (pierwszy wiersz to naglowek, separator ; lub ,):
+ * {@code kategoria;pytanie;odpowiedz1;odpowiedz2;odpowiedz3;odpowiedz4;poprawna}, gdzie kategoria to id kategorii,
+ * a poprawna to numer poprawnej odpowiedzi (1-4).
+ *
+ * @author Michał Nowiński
+ * @see QuestionImportService
+ */
+@Service
+public class QuestionImportServiceImpl implements QuestionImportService {
+    /**
+     * Liczba pytan zapisywanych w jednej transakcji.
+     */
+    static final int BATCH_SIZE = 500;
+    private static final int NUMBER_OF_COLUMNS = 7;
+    private static final int NUMBER_OF_ANSWERS = 4;
+    private static final Log log = LogFactory.getLog(QuestionImportServiceImpl.class);
+
+    private final QuestionRepository questionRepository;
+    private final CategoryRepository categoryRepository;
+    private final CategoryService categoryService;
+    private final QuestionIndex questionIndex;
+    private final QuestionSearchIndex questionSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private volatile ImportProgress currentProgress;
+
+    @Autowired
+    public QuestionImportServiceImpl(QuestionRepository questionRepository, CategoryRepository categoryRepository,
+                                     CategoryService categoryService, QuestionIndex questionIndex,
+                                     QuestionSearchIndex questionSearchIndex, ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.questionRepository = questionRepository;
+        this.categoryRepository = categoryRepository;
+        this.categoryService = categoryService;
+        this.questionIndex = questionIndex;
+        this.questionSearchIndex = questionSearchIndex;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Importuje pytania z pliku CSV. Niepoprawne wiersze sa pomijane i opisywane w raporcie. Blad odczytu pliku
+     * (np. niezamknięty cudzyslow) przerywa import - poprawne pytania odczytane przed blędem sa zapisywane, a raport
+     * zawiera opis blędu wraz z numerem wiersza.
+     *
+     * @param fileName    nazwa pliku (do raportu)
+     * @param inputStream zawartosc pliku w kodowaniu UTF-8
+     * @return raport z importu
+     * @throws IOException w przypadku bledu zamknięcia pliku
+     */
+    @Override
+    public ImportProgress importCsv(String fileName, InputStream inputStream) throws IOException {
+        ImportProgress progress = new ImportProgress(fileName);
+        currentProgress = progress;
+        Set<Long> categoryIds = new HashSet<>();
+        for (Category category : categoryService.findAll()) {
+            categoryIds.add(category.getId());
+        }
+        Set<Long> importedCategoryIds = new HashSet<>();
+
+        try (CsvReader csvReader = new CsvReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            List<ImportedQuestion> batch = new ArrayList<>(BATCH_SIZE);
+            try {
+                if (csvReader.readHeader() == null) {
+                    return progress;
+                }
+                List<String> record;
+                while ((record = csvReader.readRecord()) != null) {
+                    progress.rowProcessed();
+                    String error = validate(record, categoryIds);
+                    if (error != null) {
+                        progress.rowRejected(csvReader.getRecordLineNumber(), error);
+                        continue;
+                    }
+                    batch.add(new ImportedQuestion(csvReader.getRecordLineNumber(), record));
+                    if (batch.size() == BATCH_SIZE) {
+                        saveBatch(batch, progress, importedCategoryIds);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+            } catch (IOException e) {
+                progress.failed(Math.max(1, csvReader.getRecordLineNumber()), "blad odczytu pliku - " + e.getMessage());
+            }
+            saveBatch(batch, progress, importedCategoryIds);
+        } finally {
+            progress.finish();
+            refreshCaches(importedCategoryIds);
+        }
+        return progress;
+    }
+
+    /**
+     * @return postęp ostatniego (lub trwajacego) importu albo null, jesli nie bylo importu
+     */
+    @Override
+    public ImportProgress findCurrentProgress() {
+        return currentProgress;
+    }
+
+    private String validate(List<String> record, Set<Long> categoryIds) {
+        if (record.size() < NUMBER_OF_COLUMNS) {
+            return "oczekiwano " + NUMBER_OF_COLUMNS + " kolumn, odczytano " + record.size();
+        }
+        long categoryId;
+        try {
+            categoryId = Long.parseLong(record.get(0).trim());
+        } catch (NumberFormatException e) {
+            return "niepoprawne id kategorii '" + record.get(0) + "'";
+        }
+        if (!categoryIds.contains(categoryId)) {
+            return "kategoria o id " + categoryId + " nie istnieje";
+        }
+        for (int i = 1; i <= NUMBER_OF_ANSWERS + 1; i++) {
+            if (record.get(i).trim().isEmpty()) {
+                return i == 1 ? "brak tresci pytania" : "brak tresci odpowiedzi " + (i - 1);
+            }
+        }
+        String correct = record.get(NUMBER_OF_COLUMNS - 1).trim();
+        if (!correct.matches("[1-" + NUMBER_OF_ANSWERS + "]")) {
+            return "numer poprawnej odpowiedzi musi byc liczba od 1 do " + NUMBER_OF_ANSWERS;
+        }
+        return null;
+    }
+
+    /**
+     * Zapisuje paczkę pytan w jednej transakcji. Jesli zapis się nie powiedzie, wszystkie wiersze paczki sa odrzucane.
+     */
+    private void saveBatch(List<ImportedQuestion> batch, ImportProgress progress, Set<Long> importedCategoryIds) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            List<QuestionEntity> savedQuestions = transactionTemplate.execute(status -> {
+                List<QuestionEntity> questionEntities = new ArrayList<>(batch.size());
+                for (ImportedQuestion importedQuestion : batch) {
+                    questionEntities.add(convertToQuestionEntity(importedQuestion.record));
+                }
+                return questionRepository.save(questionEntities);
+            });
+            progress.questionsImported(batch.size());
+            for (QuestionEntity questionEntity : savedQuestions) {
+                List<String> answers = new ArrayList<>(NUMBER_OF_ANSWERS);
+                for (AnswerEntity answerEntity : questionEntity.getAnswers()) {
+                    answers.add(answerEntity.getAnswer());
+                }
+                questionSearchIndex.index(questionEntity.getId(), questionEntity.getQuestion(), answers);
+            }
+            for (ImportedQuestion importedQuestion : batch) {
+                importedCategoryIds.add(Long.parseLong(importedQuestion.record.get(0).trim()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Nie udalo sie zapisac paczki " + batch.size() + " pytan z importu", e);
+            String reason = "blad zapisu do bazy danych: " + describe(e);
+            for (ImportedQuestion importedQuestion : batch) {
+                progress.rowRejected(importedQuestion.lineNumber, reason);
+            }
+        }
+    }
+
+    /**
+     * @return komunikat najglebszej przyczyny wyjatku (np. komunikat bazy danych), a w razie jego braku nazwa wyjatku
+     */
+    private static String describe(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private QuestionEntity convertToQuestionEntity(List<String> record) {
+        QuestionEntity questionEntity = new QuestionEntity();
+        questionEntity.setCategory(categoryRepository.getOne(Long.parseLong(record.get(0).trim())));
+        questionEntity.setQuestion(record.get(1).trim());
+        int correct = Integer.parseInt(record.get(NUMBER_OF_COLUMNS - 1).trim());
+
+        List<AnswerEntity> answers = new ArrayList<>(NUMBER_OF_ANSWERS);
+        for (int i = 1; i <= NUMBER_OF_ANSWERS; i++) {
+            AnswerEntity answerEntity = new AnswerEntity();
+            answerEntity.setAnswer(record.get(i + 1).trim());
+            answerEntity.setCorrect(i == correct);
+            answers.add(answerEntity);
+        }
+        questionEntity.setAnswers(answers);
+        return questionEntity;
+    }
+
+    /**
+     * Odswieza jednokrotnie indeksy i pamięci podręczne kategorii, do ktorych dodano pytania.
+     */
+    private void refreshCaches(Set<Long> importedCategoryIds) {
+        for (Long categoryId : importedCategoryIds) {
+            questionIndex.invalidate(categoryId);
+            eventPublisher.publishEvent(new QuestionBankChangedEvent(this, categoryId));
+        }
+    }
+
+    private static class ImportedQuestion {
+        private final long lineNumber;
+        private final List<String> record;
+
+        private ImportedQuestion(long lineNumber, List<String> record) {
+            this.lineNumber = lineNumber;
+            this.record = record;
+        }
+    }
+}
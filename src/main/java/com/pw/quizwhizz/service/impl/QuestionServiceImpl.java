@@ -1,7 +1,9 @@
 package com.pw.quizwhizz.service.impl;
 
 import com.pw.quizwhizz.entity.game.AnswerEntity;
+import com.pw.quizwhizz.entity.game.CategoryEntity;
 import com.pw.quizwhizz.entity.game.QuestionEntity;
+import com.pw.quizwhizz.model.dto.KeysetPage;
 import com.pw.quizwhizz.model.game.Category;
 import com.pw.quizwhizz.model.game.Question;
 import com.pw.quizwhizz.model.game.Answer;
@@ -11,13 +13,20 @@ import com.pw.quizwhizz.repository.game.QuestionRepository;
 import com.pw.quizwhizz.service.AnswerService;
 import com.pw.quizwhizz.service.CategoryService;
 import com.pw.quizwhizz.service.QuestionService;
+import com.pw.quizwhizz.service.cache.QuestionBank;
+import com.pw.quizwhizz.service.cache.QuestionIndex;
+import com.pw.quizwhizz.service.cache.QuestionSearchIndex;
 import com.pw.quizwhizz.service.exception.NoQuestionsInDBException;
+import com.pw.quizwhizz.util.BloomFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -35,13 +44,19 @@ public class QuestionServiceImpl implements QuestionService {
     private final CategoryRepository categoryRepository;
     private final CategoryService categoryService;
     private final AnswerService answerService;
+    private final QuestionIndex questionIndex;
+    private final QuestionBank questionBank;
+    private final QuestionSearchIndex questionSearchIndex;
 
     @Autowired
-    public QuestionServiceImpl(QuestionRepository questionRepository, AnswerRepository answerRepository, AnswerService answerService, CategoryService categoryService, CategoryRepository categoryRepository) {
+    public QuestionServiceImpl(QuestionRepository questionRepository, AnswerRepository answerRepository, AnswerService answerService, CategoryService categoryService, CategoryRepository categoryRepository, QuestionIndex questionIndex, QuestionBank questionBank, QuestionSearchIndex questionSearchIndex) {
         this.questionRepository = questionRepository;
         this.answerService = answerService;
         this.categoryService = categoryService;
         this.categoryRepository = categoryRepository;
+        this.questionIndex = questionIndex;
+        this.questionBank = questionBank;
+        this.questionSearchIndex = questionSearchIndex;
     }
 
     @Transactional
@@ -51,32 +66,58 @@ public class QuestionServiceImpl implements QuestionService {
     }
 
     /**
-     * Zwraca wybrane losowo pytania dla danej kategorii
+     * @param categoryId numer id kategorii
+     * @param seenQuestions pytania widziane juz przez zalozyciela gry, pomijane w miarę mozliwosci
+     * @return zwraca liste 10 losowych pytan dla podanej kategorii
+     * @throws NoQuestionsInDBException gdy w bazie jest mniej niz 10 pytan dla danej kategorii
+     */
+    @Transactional
+    @Override
+    public List<Question> getQuestionsForNewGame(long categoryId, BloomFilter seenQuestions) throws NoQuestionsInDBException {
+        return getRandomQuestionsByCategoryId(categoryId, 10, seenQuestions);
+    }
+
+    /**
+     * Zwraca wybrane losowo pytania dla danej kategorii. Id pytan losowane sa bez powtorzen z indeksu kategorii
+     * przechowywanego w pamięci, a następnie wybrane pytania pobierane sa z bazy danych jednym zapytaniem.
      * @param categoryId numer id kategorii
      * @param number ilosc losowanych pytan
      * @return zwraca liste losowych pytan dla podanej kategorii
-     * @throws NoQuestionsInDBException gdy w bazie nie ma pytan dla danej kategorii
+     * @throws NoQuestionsInDBException gdy w bazie jest mniej pytan dla danej kategorii niz wymagana ilosc
+     * @see QuestionIndex#sample(long, int, Random)
      */
+    @Transactional
     @Override
     public List<Question> getRandomQuestionsByCategoryId(long categoryId, int number) throws NoQuestionsInDBException {
-        List<Question> questions = new ArrayList<>();
-
-        List<QuestionEntity> allQuestions = questionRepository.findAllByCategory_Id(categoryId);
-        int size = allQuestions.size();
+        return getRandomQuestionsByCategoryId(categoryId, number, null);
+    }
 
-        if (size == 0){
+    /**
+     * Zwraca wybrane losowo pytania dla danej kategorii, pomijajac w miarę mozliwosci pytania widziane juz przez gracza.
+     * @param categoryId numer id kategorii
+     * @param number ilosc losowanych pytan
+     * @param seenQuestions filtr z numerami id pytan widzianych przez gracza (moze byc null)
+     * @return zwraca liste losowych pytan dla podanej kategorii
+     * @throws NoQuestionsInDBException gdy w bazie jest mniej pytan dla danej kategorii niz wymagana ilosc
+     * @see QuestionIndex#sample(long, int, Random, BloomFilter)
+     */
+    @Transactional
+    @Override
+    public List<Question> getRandomQuestionsByCategoryId(long categoryId, int number, BloomFilter seenQuestions) throws NoQuestionsInDBException {
+        long[] sample = questionIndex.sample(categoryId, number, random, seenQuestions);
+        if (sample == null) {
             throw new NoQuestionsInDBException();
         }
 
-        for (int i = 0; i < number; i++) {
-            QuestionEntity questionEntity = allQuestions.get(random.nextInt(size));
-            Question question = convertToQuestion(questionEntity);
-
-            if (!questions.contains(question)) {
-                questions.add(question);
-            } else {
-                i--;
-            }
+        List<Long> ids = new ArrayList<>(sample.length);
+        for (long id : sample) {
+            ids.add(id);
+        }
+        List<Question> questions = questionBank.findAllById(ids);
+        if (questions.size() < sample.length) {
+            // indeks rozni się od bazy danych (np. pytanie usunięto poza aplikacja) - zostanie wczytany ponownie
+            questionIndex.invalidate(categoryId);
+            throw new NoQuestionsInDBException();
         }
         return questions;
     }
@@ -97,32 +138,77 @@ public class QuestionServiceImpl implements QuestionService {
         List<QuestionEntity> questionsEntity = questionRepository.findAllByCategory_Id(categoryId);
 
         for (QuestionEntity questionEntity : questionsEntity) {
-            Question question = new Question();
-            question.setId(questionEntity.getId());
-            question.setCategory(categoryService.findById(categoryId));
-            question.setQuestion(questionEntity.getQuestion());
-            question.setAnswers(answerService.getAnswersByQuestionId(questionEntity.getId()));
-            questions.add(question);
+            questions.add(convertToQuestion(questionEntity));
         }
         return questions;
     }
 
+    /**
+     * Metoda zwracajaca strone listy pytan kategorii. Id pytan strony pochodza z indeksu pytan, a same pytania
+     * z pamięci podręcznej pytan, wiec odczyt kolejnych stron nie wymaga zapytan o cala kategorie.
+     *
+     * @param categoryId numer id kategorii
+     * @param after      id ostatniego pytania poprzedniej strony lub null dla pierwszej strony
+     * @param pageSize   liczba pytan na stronie
+     * @return strona listy pytan wraz z liczba wszystkich pytan kategorii
+     */
+    @Override
+    public KeysetPage<Question> findPageByCategoryId(long categoryId, Long after, int pageSize) {
+        long[] ids = questionIndex.idsAfter(categoryId, after == null ? Long.MIN_VALUE : after, pageSize + 1);
+        List<Long> pageIds = new ArrayList<>(Math.min(ids.length, pageSize));
+        for (int i = 0; i < ids.length && i < pageSize; i++) {
+            pageIds.add(ids[i]);
+        }
+        Long nextCursor = ids.length > pageSize ? pageIds.get(pageSize - 1) : null;
+        return new KeysetPage<>(questionBank.findAllById(pageIds), nextCursor, pageSize, questionIndex.count(categoryId));
+    }
+
+    /**
+     * Metoda wyszukujaca pytania po tresci pytania i odpowiedzi w indeksie pelnotekstowym.
+     *
+     * @param query tresc zapytania
+     * @param limit maksymalna liczba wynikow
+     * @return pytania uporzadkowane od najlepiej pasujacego
+     * @see QuestionSearchIndex#search(String, int)
+     */
+    @Override
+    public List<Question> searchQuestions(String query, int limit) {
+        long[] ids = questionSearchIndex.search(query, limit);
+        List<Long> questionIds = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            questionIds.add(id);
+        }
+        return questionBank.findAllById(questionIds);
+    }
+
+    /**
+     * Odtwarza pytania gry - pobiera z bazy danych jedynie id pytan, a same pytania (wspoldzielone przez gry)
+     * pochodza z pamięci podręcznej pytan
+     * @param gameId numer id gry
+     * @return lista pytan w kolejnosci, w jakiej pojawiaja się w grze
+     * @see QuestionBank#findAllById(List)
+     */
+    @Transactional
+    @Override
+    public List<Question> findAllByGameId(long gameId) {
+        return questionBank.findAllById(questionRepository.findIdsInGameOrderBySequence(gameId));
+    }
+
     @Transactional
     @Override
     public Question findById(Long id) {
-       QuestionEntity questionEntity = questionRepository.getOne(id);
-        Question question = new Question();
-        question.setId(id);
-        question.setCategory(categoryService.findById(questionEntity.getCategory().getId()));
-        question.setQuestion(questionEntity.getQuestion());
-        question.setAnswers(answerService.getAnswersByQuestionId(questionEntity.getId()));
-        return question;
+        return convertToQuestion(questionRepository.findOne(id));
     }
 
     @Transactional
     @Override
     public void deleteById(Long id) {
         questionRepository.deleteById(id);
+        questionBank.invalidate(id);
+        afterCommit(() -> {
+            questionIndex.remove(id);
+            questionSearchIndex.remove(id);
+        });
     }
 
     @Transactional
@@ -142,6 +228,11 @@ public class QuestionServiceImpl implements QuestionService {
         questionEntity.setAnswers(answersEntity);
         questionRepository.save(questionEntity);
         question.setId(questionEntity.getId());
+        long questionId = questionEntity.getId();
+        afterCommit(() -> {
+            questionIndex.add(categoryIdL, questionId);
+            questionSearchIndex.index(questionId, inputQuestion, Arrays.asList(inputAnswer1, inputAnswer2, inputAnswer3, inputAnswer4));
+        });
     }
 
     //TODO: Test if correct (esp. doubled values in DB)
@@ -159,6 +250,26 @@ public class QuestionServiceImpl implements QuestionService {
         QuestionEntity questionEntity = questionRepository.findOne(questionId);
         assignValuesFromQuestion(question, questionEntity);
         questionRepository.saveAndFlush(questionEntity);
+        questionBank.invalidate(questionId);
+        afterCommit(() -> questionSearchIndex.index(questionId, inputQuestion,
+                Arrays.asList(inputAnswer1, inputAnswer2, inputAnswer3, inputAnswer4)));
+    }
+
+    /**
+     * Aktualizuje indeksy pytan dopiero po zatwierdzeniu transakcji, aby wycofana zmiana nie pozostawila w nich
+     * nieistniejacych pytan (poza transakcja - od razu).
+     */
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
     }
 
     private void assignValuesFromQuestion(Question question, QuestionEntity questionEntity) {
@@ -166,15 +277,47 @@ public class QuestionServiceImpl implements QuestionService {
         questionEntity.setQuestion(question.getQuestion());
     }
 
+    /**
+     * Konwertuje encję pytania na obiekt domenowy, korzystajac z pobranych juz wraz z encja kategorii i odpowiedzi
+     * (bez dodatkowych zapytan do bazy danych).
+     */
     private Question convertToQuestion(QuestionEntity questionEntity) {
         Question question = new Question();
         question.setId(questionEntity.getId());
-        question.setCategory(categoryService.findById(questionEntity.getCategory().getId()));
+        question.setCategory(convertToCategory(questionEntity.getCategory()));
         question.setQuestion(questionEntity.getQuestion());
-        question.setAnswers(answerService.getAnswersByQuestionId(questionEntity.getId()));
+        question.setAnswers(convertToAnswers(questionEntity.getAnswers()));
         return question;
     }
 
+    /**
+     * Zwraca wspoldzielona instancję kategorii z pamięci podręcznej kategorii (tworzona jest nowa tylko, gdy jej tam brak).
+     */
+    private Category convertToCategory(CategoryEntity categoryEntity) {
+        Category cachedCategory = categoryService.findById(categoryEntity.getId());
+        if (cachedCategory != null) {
+            return cachedCategory;
+        }
+        Category category = new Category();
+        category.setId(categoryEntity.getId());
+        category.setName(categoryEntity.getName());
+        category.setDescription(categoryEntity.getDescription());
+        category.setUrlImage(categoryEntity.getUrlImage());
+        return category;
+    }
+
+    private List<Answer> convertToAnswers(List<AnswerEntity> answersEntity) {
+        List<Answer> answers = new ArrayList<>();
+        for (AnswerEntity answerEntity : answersEntity) {
+            Answer answer = new Answer();
+            answer.setId(answerEntity.getId());
+            answer.setAnswer(answerEntity.getAnswer());
+            answer.setCorrect(answerEntity.getIsCorrect());
+            answers.add(answer);
+        }
+        return answers;
+    }
+
     private List<Answer> addAnswers(String inputAnswer1, String inputAnswer2, String inputAnswer3, String inputAnswer4, String answerCorrect) {
         Answer answer1 = new Answer();
         answer1.setAnswer(inputAnswer1);
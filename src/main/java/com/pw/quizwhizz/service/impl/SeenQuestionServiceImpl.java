@@ -0,0 +1,132 @@
+package com.pw.quizwhizz.service.impl;
+
+import com.pw.quizwhizz.entity.game.SeenQuestionsEntity;
+import com.pw.quizwhizz.repository.game.SeenQuestionsRepository;
+import com.pw.quizwhizz.service.SeenQuestionService;
+import com.pw.quizwhizz.util.BloomFilter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Serwis przechowujacy pytania widziane juz przez graczy. Kazdy gracz ma jeden filtr Blooma z numerami id pytan
+ * o stalym rozmiarze (niezaleznym od wartosci id), dzięki czemu sprawdzenie, czy pytanie bylo widziane, nie wymaga
+ * przegladania historii gier gracza. Rzadkie wyniki falszywie pozytywne oznaczaja jedynie, ze pytanie zostanie
+ * potraktowane jak widziane.
+ *
+ * @author Karolina Prusaczyk
+ * @see SeenQuestionService
+ * @see BloomFilter
+ */
+@Service
+public class SeenQuestionServiceImpl implements SeenQuestionService {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Log log = LogFactory.getLog(SeenQuestionServiceImpl.class);
+    private final SeenQuestionsRepository seenQuestionsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public SeenQuestionServiceImpl(SeenQuestionsRepository seenQuestionsRepository, PlatformTransactionManager transactionManager) {
+        this.seenQuestionsRepository = seenQuestionsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @param userId id gracza
+     * @return filtr z numerami id pytan widzianych przez gracza (pusty, jesli gracz nie rozegral jeszcze gry)
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public BloomFilter findSeenQuestions(long userId) {
+        SeenQuestionsEntity seenQuestionsEntity = seenQuestionsRepository.findOne(userId);
+        return BloomFilter.valueOf(seenQuestionsEntity == null ? null : seenQuestionsEntity.getQuestionBits());
+    }
+
+    /**
+     * Oznacza pytania jako widziane przez graczy. Zapis wykonywany jest dopiero po zatwierdzeniu biezacej transakcji,
+     * w osobnej transakcji blokujacej wiersze graczy, dzięki czemu rownolegle gry tych samych graczy nie nadpisuja
+     * swoich zmian, a blad zapisu nie wycofuje zapisu odpowiedzi. Konflikty (np. jednoczesne utworzenie wiersza
+     * nowego gracza) ponawiane sa do {@value #MAX_ATTEMPTS} razy.
+     *
+     * @param userIds     id graczy
+     * @param questionIds id pytan
+     */
+    @Override
+    public void markAsSeen(Collection<Long> userIds, Collection<Long> questionIds) {
+        if (userIds.isEmpty() || questionIds.isEmpty()) {
+            return;
+        }
+        List<Long> sortedUserIds = new ArrayList<>(new TreeSet<>(userIds));
+        List<Long> questionIdList = new ArrayList<>(questionIds);
+        afterCommit(() -> saveWithRetry(sortedUserIds, questionIdList));
+    }
+
+    private void saveWithRetry(List<Long> userIds, List<Long> questionIds) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.execute(status -> {
+                    save(userIds, questionIds);
+                    return null;
+                });
+                return;
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    log.warn("Nie udalo sie oznaczyc pytan jako widziane przez graczy " + userIds, e);
+                    return;
+                }
+            } catch (DataAccessException e) {
+                log.warn("Nie udalo sie oznaczyc pytan jako widziane przez graczy " + userIds, e);
+                return;
+            }
+        }
+    }
+
+    private void save(List<Long> userIds, List<Long> questionIds) {
+        Map<Long, SeenQuestionsEntity> entitiesByUser = new HashMap<>();
+        for (SeenQuestionsEntity seenQuestionsEntity : seenQuestionsRepository.findAllForUpdate(userIds)) {
+            entitiesByUser.put(seenQuestionsEntity.getUserId(), seenQuestionsEntity);
+        }
+
+        List<SeenQuestionsEntity> updated = new ArrayList<>();
+        for (Long userId : userIds) {
+            SeenQuestionsEntity seenQuestionsEntity = entitiesByUser.get(userId);
+            if (seenQuestionsEntity == null) {
+                seenQuestionsEntity = new SeenQuestionsEntity();
+                seenQuestionsEntity.setUserId(userId);
+            }
+            BloomFilter seen = BloomFilter.valueOf(seenQuestionsEntity.getQuestionBits());
+            for (Long questionId : questionIds) {
+                seen.add(questionId);
+            }
+            seenQuestionsEntity.setQuestionBits(seen.toByteArray());
+            updated.add(seenQuestionsEntity);
+        }
+        seenQuestionsRepository.save(updated);
+    }
+
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
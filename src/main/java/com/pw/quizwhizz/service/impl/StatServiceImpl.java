@@ -1,16 +1,21 @@
 package com.pw.quizwhizz.service.impl;
 
 import com.pw.quizwhizz.model.dto.Ranking;
+import com.pw.quizwhizz.model.dto.RankingPeriod;
 import com.pw.quizwhizz.model.dto.Statistics;
 import com.pw.quizwhizz.repository.UserRepository;
 import com.pw.quizwhizz.repository.game.QuestionRepository;
 import com.pw.quizwhizz.repository.impl.RankingRepository;
-import com.pw.quizwhizz.repository.impl.StatisticsRepository;
 import com.pw.quizwhizz.service.StatService;
+import com.pw.quizwhizz.service.cache.CategoryLeaderboards;
+import com.pw.quizwhizz.service.cache.GeneralLeaderboard;
+import com.pw.quizwhizz.service.cache.PeriodLeaderboards;
+import com.pw.quizwhizz.service.cache.PortalStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Serwis udostepniajacy dane statystyczne dla portalu (statystyki, rankingi)
@@ -20,16 +25,22 @@ import java.util.List;
 @Service
 public class StatServiceImpl implements StatService {
     final private RankingRepository rankingRepository;
-    final private StatisticsRepository statisticsRepository;
+    final private PortalStatistics portalStatistics;
     final private UserRepository userRepository;
     final private QuestionRepository questionRepository;
+    final private GeneralLeaderboard generalLeaderboard;
+    final private CategoryLeaderboards categoryLeaderboards;
+    final private PeriodLeaderboards periodLeaderboards;
 
     @Autowired
-    public StatServiceImpl(RankingRepository rankingRepository, StatisticsRepository statisticsRepository, UserRepository userRepository, QuestionRepository questionRepository) {
+    public StatServiceImpl(RankingRepository rankingRepository, PortalStatistics portalStatistics, UserRepository userRepository, QuestionRepository questionRepository, GeneralLeaderboard generalLeaderboard, CategoryLeaderboards categoryLeaderboards, PeriodLeaderboards periodLeaderboards) {
         this.rankingRepository = rankingRepository;
-        this.statisticsRepository = statisticsRepository;
+        this.portalStatistics = portalStatistics;
         this.userRepository = userRepository;
         this.questionRepository = questionRepository;
+        this.generalLeaderboard = generalLeaderboard;
+        this.categoryLeaderboards = categoryLeaderboards;
+        this.periodLeaderboards = periodLeaderboards;
     }
 
     @Override
@@ -42,18 +53,87 @@ public class StatServiceImpl implements StatService {
         return questionRepository.countAll();
     }
 
+    /**
+     * @return statystyki portalu z licznikow przechowywanych w pamięci
+     * @see PortalStatistics
+     */
     @Override
     public Statistics findStatistic(){
-        return statisticsRepository.findStatistic();
+        return portalStatistics.findStatistic();
     }
 
+    /**
+     * @param limitSearch ilosc zwracanych wynikow (dla ilu graczy)
+     * @return najlepsi gracze z rankingu generalnego przechowywanego w pamięci
+     * @see GeneralLeaderboard
+     */
     @Override
     public List<Ranking> findGeneralRank(int limitSearch){
-        return rankingRepository.findGeneralRank(limitSearch);
+        return generalLeaderboard.findTop(limitSearch);
     }
 
+    /**
+     * @param period okres rankingu
+     * @param limitSearch ilosc zwracanych wynikow (dla ilu graczy)
+     * @return najlepsi gracze okresu - dla {@link RankingPeriod#ALL} ranking generalny, dla pozostalych okresow
+     * ranking sum punktow z ostatnich dni przechowywany w pamięci
+     * @see PeriodLeaderboards
+     */
+    @Override
+    public List<Ranking> findRankForPeriod(RankingPeriod period, int limitSearch) {
+        if (period == RankingPeriod.ALL) {
+            return findGeneralRank(limitSearch);
+        }
+        return periodLeaderboards.findTop(period, limitSearch);
+    }
+
+    /**
+     * @param limitSearch ilosc zwracanych wynikow (dla ilu graczy)
+     * @param categoryId numer id kategorii
+     * @return najlepsi gracze kategorii z rankingu przechowywanego w pamięci
+     * @see CategoryLeaderboards
+     */
     @Override
     public List<Ranking> findFiveByCategory(int limitSearch , Long categoryId){
-        return rankingRepository.findByCategory(limitSearch, categoryId);
+        return categoryLeaderboards.findTop(categoryId, limitSearch);
+    }
+
+    /**
+     * @param userId numer id gracza
+     * @return miejsce gracza w rankingu generalnym (od 1) lub 0, jesli gracz nie ma punktow doswiadczenia
+     */
+    @Override
+    public int findGeneralRankPosition(long userId) {
+        return generalLeaderboard.findPosition(userId);
+    }
+
+    /**
+     * @param userId numer id gracza
+     * @param radius liczba graczy przed i za graczem
+     * @return fragment rankingu generalnego wokol gracza
+     */
+    @Override
+    public List<Ranking> findGeneralRankAround(long userId, int radius) {
+        return generalLeaderboard.findAround(userId, radius);
+    }
+
+    /**
+     * @param userId numer id gracza
+     * @return miejsca gracza w rankingach kategorii, w ktorych gral - wg numeru id kategorii
+     */
+    @Override
+    public Map<Long, Integer> findCategoryRankPositions(long userId) {
+        return categoryLeaderboards.findPositions(userId);
+    }
+
+    /**
+     * @param categoryId numer id kategorii
+     * @param userId numer id gracza
+     * @param radius liczba graczy przed i za graczem
+     * @return fragment rankingu kategorii wokol gracza
+     */
+    @Override
+    public List<Ranking> findCategoryRankAround(long categoryId, long userId, int radius) {
+        return categoryLeaderboards.findAround(categoryId, userId, radius);
     }
 }
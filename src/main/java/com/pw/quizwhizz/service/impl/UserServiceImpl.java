@@ -4,14 +4,21 @@ import com.pw.quizwhizz.entity.game.PlayerEntity;
 import com.pw.quizwhizz.model.account.Role;
 import com.pw.quizwhizz.model.account.User;
 import com.pw.quizwhizz.model.account.UserProfileType;
+import com.pw.quizwhizz.model.dto.KeysetPage;
 import com.pw.quizwhizz.model.dto.UserAllStats;
+import com.pw.quizwhizz.model.dto.UserListDTO;
 import com.pw.quizwhizz.model.game.Player;
 import com.pw.quizwhizz.repository.RoleRepository;
 import com.pw.quizwhizz.repository.UserRepository;
 import com.pw.quizwhizz.repository.game.PlayerRepository;
 import com.pw.quizwhizz.repository.impl.UserAllScoresRepository;
+import com.pw.quizwhizz.repository.impl.UserListRepository;
 import com.pw.quizwhizz.service.RandomProfileImageService;
 import com.pw.quizwhizz.service.UserService;
+import com.pw.quizwhizz.service.cache.CategoryLeaderboards;
+import com.pw.quizwhizz.service.cache.GeneralLeaderboard;
+import com.pw.quizwhizz.service.cache.PeriodLeaderboards;
+import com.pw.quizwhizz.service.cache.UserCounter;
 import com.pw.quizwhizz.util.FileTool;
 import com.pw.quizwhizz.util.ImageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,9 +54,14 @@ public class UserServiceImpl implements UserService {
 	final private ImageUtil imageUtil;
 	final private RandomProfileImageService randomProfileImageService;
 	final private FileTool fileTool;
+	final private UserListRepository userListRepository;
+	final private UserCounter userCounter;
+	final private GeneralLeaderboard generalLeaderboard;
+	final private CategoryLeaderboards categoryLeaderboards;
+	final private PeriodLeaderboards periodLeaderboards;
 
 	@Autowired
-	public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder, PlayerRepository playerRepository, UserAllScoresRepository userAllScoresRepository, ImageUtil imageUtil, RandomProfileImageServiceImpl randomProfileImageService, FileTool fileTool) {
+	public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder, PlayerRepository playerRepository, UserAllScoresRepository userAllScoresRepository, ImageUtil imageUtil, RandomProfileImageServiceImpl randomProfileImageService, FileTool fileTool, UserListRepository userListRepository, UserCounter userCounter, GeneralLeaderboard generalLeaderboard, CategoryLeaderboards categoryLeaderboards, PeriodLeaderboards periodLeaderboards) {
 		this.userRepository = userRepository;
 		this.roleRepository = roleRepository;
 		this.passwordEncoder = passwordEncoder;
@@ -58,16 +70,42 @@ public class UserServiceImpl implements UserService {
 		this.imageUtil = imageUtil;
 		this.randomProfileImageService = randomProfileImageService;
 		this.fileTool = fileTool;
+		this.userListRepository = userListRepository;
+		this.userCounter = userCounter;
+		this.generalLeaderboard = generalLeaderboard;
+		this.categoryLeaderboards = categoryLeaderboards;
+		this.periodLeaderboards = periodLeaderboards;
 	}
 
 	public List<User> findAll(){
 		return userRepository.findAll();
 	}
 
+	/**
+	 * Metoda zwracajaca strone listy uzytkownikow (bez encji i rol ladowanych przez Hibernate)
+	 * @param after id ostatniego uzytkownika poprzedniej strony lub null dla pierwszej strony
+	 * @param pageSize liczba uzytkownikow na stronie
+	 * @return strona listy uzytkownikow wraz z liczba wszystkich uzytkownikow
+	 */
+	@Override
+	public KeysetPage<UserListDTO> findPage(Long after, int pageSize) {
+		List<UserListDTO> users = userListRepository.findAllAfterId(after == null ? Long.MIN_VALUE : after, pageSize + 1);
+		Long nextCursor = null;
+		if (users.size() > pageSize) {
+			users = users.subList(0, pageSize);
+			nextCursor = users.get(pageSize - 1).getId();
+		}
+		return new KeysetPage<>(users, nextCursor, pageSize, userCounter.count());
+	}
+
 	@Transactional
 	@Override
 	public void deleteById(Long id) {
 		userRepository.deleteById(id);
+		userCounter.invalidate();
+		generalLeaderboard.remove(id);
+		categoryLeaderboards.remove(id);
+		periodLeaderboards.remove(id);
 	}
 
 	@Override
@@ -140,6 +178,9 @@ public class UserServiceImpl implements UserService {
 			updateUser.setPassword(passwordEncoder.encode(user.getPassword()));
 
 		userRepository.save(updateUser);
+		generalLeaderboard.updateProfile(updateUser.getId(), updateUser.getFirstName(), updateUser.getUrlImage());
+		categoryLeaderboards.updateProfile(updateUser.getId(), updateUser.getFirstName(), updateUser.getUrlImage());
+		periodLeaderboards.updateProfile(updateUser.getId(), updateUser.getFirstName(), updateUser.getUrlImage());
 	}
 
 	/**
@@ -167,6 +208,9 @@ public class UserServiceImpl implements UserService {
 			updateUser.setPassword(passwordEncoder.encode(user.getPassword()));
 
 		userRepository.save(updateUser);
+		generalLeaderboard.updateProfile(updateUser.getId(), updateUser.getFirstName(), updateUser.getUrlImage());
+		categoryLeaderboards.updateProfile(updateUser.getId(), updateUser.getFirstName(), updateUser.getUrlImage());
+		periodLeaderboards.updateProfile(updateUser.getId(), updateUser.getFirstName(), updateUser.getUrlImage());
 	}
 
 	/**
@@ -184,6 +228,7 @@ public class UserServiceImpl implements UserService {
 
 		user.setPassword(passwordEncoder.encode(user.getPassword()));
 		userRepository.save(user);
+		userCounter.increment();
 		user = userRepository.findById(user.getId()); // wyciaganie id zapisywanego user'a
 
 		File file = randomProfileImageService.getRandomProfileImage();
@@ -0,0 +1,101 @@
+package com.pw.quizwhizz.util;
+
+import java.util.BitSet;
+
+/**
+ * Filtr Blooma o stalym rozmiarze - zbior liczb (np. numerow id pytan) zapisany w tablicy {@link #SIZE_IN_BITS} bitow,
+ * niezaleznie od wartosci i rozproszenia dodawanych liczb. Kazda liczba ustawia {@link #HASHES} bitow wyznaczonych
+ * z jednej 64-bitowej funkcji skrotu (double hashing). Sprawdzenie moze dac wynik falszywie pozytywny
+ * (z prawdopodobienstwem rosnacym wraz z liczba elementow), nigdy falszywie negatywny.
+ * <p>
+ * Klasa nie jest bezpieczna watkowo.
+ *
+ * @author Michał Nowiński
+ */
+public class BloomFilter {
+    /**
+     * Rozmiar filtra w bitach (potęga dwojki) - zapisany filtr zajmuje co najwyzej 8 KB.
+     */
+    public static final int SIZE_IN_BITS = 1 << 16;
+    /**
+     * Liczba bitow ustawianych dla kazdego elementu.
+     */
+    static final int HASHES = 3;
+
+    private final BitSet bits;
+
+    public BloomFilter() {
+        this(new BitSet(SIZE_IN_BITS));
+    }
+
+    private BloomFilter(BitSet bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * @param bytes filtr zapisany metoda {@link #toByteArray()} (moze byc null)
+     * @return odczytany filtr (pusty dla null); bity spoza rozmiaru filtra sa pomijane
+     */
+    public static BloomFilter valueOf(byte[] bytes) {
+        if (bytes == null) {
+            return new BloomFilter();
+        }
+        BitSet bits = BitSet.valueOf(bytes);
+        if (bits.length() > SIZE_IN_BITS) {
+            bits.clear(SIZE_IN_BITS, bits.length());
+        }
+        return new BloomFilter(bits);
+    }
+
+    /**
+     * @param value dodawana liczba
+     */
+    public void add(long value) {
+        long hash = mix(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            bits.set((first + i * second) & (SIZE_IN_BITS - 1));
+        }
+    }
+
+    /**
+     * @param value sprawdzana liczba
+     * @return false, jesli liczba na pewno nie zostala dodana; true, jesli prawdopodobnie zostala dodana
+     */
+    public boolean mightContain(long value) {
+        long hash = mix(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            if (!bits.get((first + i * second) & (SIZE_IN_BITS - 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true, jesli do filtra nie dodano zadnej liczby
+     */
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    /**
+     * @return filtr w postaci tablicy bajtow (bez koncowych bajtow zerowych)
+     */
+    public byte[] toByteArray() {
+        return bits.toByteArray();
+    }
+
+    /**
+     * Funkcja mieszajaca bity liczby (finalizator SplitMix64), aby kolejne numery id trafialy w odlegle bity.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,164 @@
+package com.pw.quizwhizz.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strumieniowy czytnik plikow CSV (RFC 4180). Odczytuje plik rekord po rekordzie, dzięki czemu w pamięci
+ * znajduje się tylko biezacy rekord. Obsluguje pola w cudzyslowach, podwojone cudzyslowy oraz znaki nowej linii
+ * wewnatrz pol. Separator pol jest ustalany na podstawie pierwszego wiersza (naglowka) - srednik lub przecinek.
+ *
+ * @author Michał Nowiński
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int END_OF_STREAM = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private char separator;
+    private long lineNumber = 1;
+    private long recordLineNumber;
+
+    /**
+     * Konstruktor przyjmujacy
+     *
+     * @param reader zrodlo znakow (czytnik nie jest dodatkowo buforowany)
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Metoda odczytujaca naglowek pliku i ustalajaca na jego podstawie separator pol.
+     *
+     * @return nazwy kolumn lub null, jesli plik jest pusty
+     * @throws IOException w przypadku bledu odczytu
+     */
+    public List<String> readHeader() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = read()) != END_OF_STREAM && c != '\n') {
+            line.append((char) c);
+        }
+        if (c == END_OF_STREAM && line.length() == 0) {
+            return null;
+        }
+        lineNumber++;
+        if (line.length() > 0 && line.charAt(0) == '\uFEFF') {
+            line.deleteCharAt(0);
+        }
+        separator = line.indexOf(";") >= 0 ? ';' : ',';
+
+        List<String> header = new ArrayList<>();
+        for (String column : line.toString().trim().split(String.valueOf(separator), -1)) {
+            header.add(column.trim());
+        }
+        return header;
+    }
+
+    /**
+     * Metoda odczytujaca kolejny rekord. Puste wiersze sa pomijane.
+     *
+     * @return pola rekordu lub null po osiagnięciu konca pliku
+     * @throws IOException w przypadku bledu odczytu lub niezamkniętego cudzyslowu
+     */
+    public List<String> readRecord() throws IOException {
+        if (separator == 0) {
+            separator = ',';
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStarted = false;
+        recordLineNumber = lineNumber;
+
+        while (true) {
+            int c = read();
+            if (c == END_OF_STREAM) {
+                if (quoted) {
+                    throw new IOException("Niezamknięty cudzyslow w rekordzie z wiersza " + recordLineNumber);
+                }
+                if (!fieldStarted && fields.isEmpty()) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+                fieldStarted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStarted = true;
+            } else if (c == '\n') {
+                lineNumber++;
+                if (!fieldStarted && fields.isEmpty()) {
+                    recordLineNumber = lineNumber;
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+                fieldStarted = true;
+            }
+        }
+    }
+
+    /**
+     * @return numer wiersza pliku, w ktorym rozpoczal się ostatnio odczytany rekord
+     */
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return END_OF_STREAM;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return END_OF_STREAM;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
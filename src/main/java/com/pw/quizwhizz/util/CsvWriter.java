@@ -0,0 +1,59 @@
+package com.pw.quizwhizz.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Zapis rekordow CSV (RFC 4180) zgodnych z {@link CsvReader}. Pola zawierajace separator, cudzyslow lub znak nowej linii
+ * sa ujmowane w cudzyslowy, a cudzyslowy wewnatrz pola podwajane.
+ *
+ * @author Michał Nowiński
+ */
+public class CsvWriter {
+    private final Writer writer;
+    private final char separator;
+
+    /**
+     * Konstruktor przyjmujacy
+     *
+     * @param writer    miejsce zapisu (zalecany jest strumien buforowany)
+     * @param separator separator pol
+     */
+    public CsvWriter(Writer writer, char separator) {
+        this.writer = writer;
+        this.separator = separator;
+    }
+
+    /**
+     * @param fields pola rekordu
+     * @throws IOException w przypadku bledu zapisu
+     */
+    public void writeRecord(List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(separator);
+            }
+            writeField(fields.get(i));
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeField(String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < field.length() && !quoted; i++) {
+            char c = field.charAt(i);
+            quoted = c == separator || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,284 @@
+package com.pw.quizwhizz.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashowane kolo czasowe (hashed timer wheel) - planista zadan jednorazowych obslugiwany przez jeden watek.
+ * Dodanie i anulowanie zadania kosztuje O(1) niezaleznie od liczby zaplanowanych zadan; dokladnosc wykonania
+ * jest ograniczona dlugoscia pojedynczego taktu. Zadania wykonywane sa w watku kola, dlatego powinny byc krotkie
+ * (dluzsze operacje nalezy przekazac do osobnej puli watkow).
+ *
+ * @author Michał Nowiński
+ */
+public class HashedTimerWheel {
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    private static final Log log = LogFactory.getLog(HashedTimerWheel.class);
+
+    private final long tickInMillis;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final LongSupplier clock;
+    private final long startTime;
+    private final Queue<Task> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<Task> cancelledTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger scheduledTasks = new AtomicInteger();
+    private long tick;
+    private volatile Thread worker;
+
+    /**
+     * Konstruktor przyjmujacy
+     *
+     * @param tickInMillis dlugosc taktu w milisekundach
+     * @param wheelSize    liczbę przegrodek kola (zaokraglana w gore do potęgi dwojki)
+     */
+    public HashedTimerWheel(long tickInMillis, int wheelSize) {
+        this(tickInMillis, wheelSize, System::currentTimeMillis);
+    }
+
+    /**
+     * Konstruktor wykorzystywany w celach testowych, umozliwiajacy podanie wlasnego zrodla czasu.
+     *
+     * @param tickInMillis dlugosc taktu w milisekundach
+     * @param wheelSize    liczbę przegrodek kola (zaokraglana w gore do potęgi dwojki)
+     * @param clock        zrodlo aktualnego czasu w milisekundach
+     */
+    public HashedTimerWheel(long tickInMillis, int wheelSize, LongSupplier clock) {
+        if (tickInMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("HashedTimerWheel: takt i rozmiar kola musza byc dodatnie");
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickInMillis = tickInMillis;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.clock = clock;
+        this.startTime = clock.getAsLong();
+    }
+
+    /**
+     * Metoda planujaca wykonanie zadania. Moze byc wywolywana z dowolnego watku.
+     *
+     * @param task           zadanie
+     * @param deadlineMillis moment wykonania zadania w milisekundach (czas zrodla zegara)
+     * @return uchwyt pozwalajacy anulowac zadanie
+     */
+    public Timeout schedule(Runnable task, long deadlineMillis) {
+        Task timeout = new Task(task, deadlineMillis);
+        scheduledTasks.incrementAndGet();
+        pendingTasks.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Metoda uruchamiajaca watek kola. Wywolanie na juz uruchomionym kole nie ma efektu.
+     *
+     * @param threadName nazwa watku
+     */
+    public synchronized void start(String threadName) {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::run, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Metoda zatrzymujaca watek kola. Zadania, ktore nie zostaly wykonane, sa porzucane.
+     */
+    public synchronized void stop() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * @return liczba zaplanowanych zadan, ktore nie zostaly jeszcze wykonane ani anulowane
+     */
+    public int size() {
+        return scheduledTasks.get();
+    }
+
+    /**
+     * Metoda przesuwajaca kolo do podanego momentu i wykonujaca wszystkie zadania, ktorych czas minal.
+     * Wywolywana przez watek kola; w testach moze byc wywolywana bezposrednio (bez uruchamiania watku).
+     *
+     * @param nowMillis aktualny czas w milisekundach
+     */
+    public void advanceTo(long nowMillis) {
+        while (tickDeadline(tick) <= nowMillis) {
+            transferPendingTasks();
+            removeCancelledTasks();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    private void run() {
+        while (worker == Thread.currentThread()) {
+            long sleepTime = tickDeadline(tick) - clock.getAsLong();
+            if (sleepTime > 0) {
+                try {
+                    Thread.sleep(sleepTime);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            advanceTo(clock.getAsLong());
+        }
+    }
+
+    private long tickDeadline(long tick) {
+        return startTime + (tick + 1) * tickInMillis;
+    }
+
+    private void transferPendingTasks() {
+        Task task;
+        while ((task = pendingTasks.poll()) != null) {
+            if (task.state.get() != INIT) {
+                continue;
+            }
+            long calculatedTick = Math.max(0, (task.deadline - startTime) / tickInMillis);
+            long targetTick = Math.max(calculatedTick, tick);
+            task.remainingRounds = (targetTick - tick) / wheel.length;
+            wheel[(int) (targetTick & mask)].add(task);
+        }
+    }
+
+    private void removeCancelledTasks() {
+        Task task;
+        while ((task = cancelledTasks.poll()) != null) {
+            if (task.bucket != null) {
+                task.bucket.remove(task);
+            }
+        }
+    }
+
+    /**
+     * Uchwyt zaplanowanego zadania.
+     */
+    public interface Timeout {
+        /**
+         * @return true, jesli zadanie zostalo anulowane przez to wywolanie (tzn. nie zostalo jeszcze wykonane)
+         */
+        boolean cancel();
+
+        boolean isExpired();
+
+        boolean isCancelled();
+    }
+
+    private final class Task implements Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private long remainingRounds;
+        private Bucket bucket;
+        private Task previous;
+        private Task next;
+
+        private Task(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            scheduledTasks.decrementAndGet();
+            cancelledTasks.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            scheduledTasks.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.error("Zadanie kola czasowego zakonczylo się bledem", t);
+            }
+        }
+    }
+
+    /**
+     * Przegrodka kola - dwukierunkowa lista zadan umozliwiajaca usunięcie zadania w czasie O(1).
+     * Dostęp wylacznie z watku kola.
+     */
+    private static final class Bucket {
+        private Task head;
+        private Task tail;
+
+        private void add(Task task) {
+            task.bucket = this;
+            if (head == null) {
+                head = tail = task;
+            } else {
+                tail.next = task;
+                task.previous = tail;
+                tail = task;
+            }
+        }
+
+        private void remove(Task task) {
+            if (task.previous != null) {
+                task.previous.next = task.next;
+            } else {
+                head = task.next;
+            }
+            if (task.next != null) {
+                task.next.previous = task.previous;
+            } else {
+                tail = task.previous;
+            }
+            task.previous = null;
+            task.next = null;
+            task.bucket = null;
+        }
+
+        private void expire() {
+            Task task = head;
+            while (task != null) {
+                Task next = task.next;
+                if (task.remainingRounds <= 0) {
+                    remove(task);
+                    task.expire();
+                } else if (task.isCancelled()) {
+                    remove(task);
+                } else {
+                    task.remainingRounds--;
+                }
+                task = next;
+            }
+        }
+    }
+}
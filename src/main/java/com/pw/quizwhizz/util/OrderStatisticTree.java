@@ -0,0 +1,234 @@
+package com.pw.quizwhizz.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Drzewo statystyk pozycyjnych - zbior uporzadkowany wg komparatora, zaimplementowany jako drzewo-kopiec (treap),
+ * w ktorym kazdy węzel przechowuje rozmiar swojego poddrzewa. Dodanie, usunięcie, wyznaczenie pozycji elementu
+ * oraz odczyt elementu o podanej pozycji kosztuja O(log n); odczyt k kolejnych elementow od dowolnej pozycji
+ * kosztuje O(log n + k).
+ * <p>
+ * Klasa nie jest bezpieczna watkowo - dostęp z wielu watkow wymaga zewnętrznej synchronizacji.
+ *
+ * @param <E> typ elementow
+ * @author Michał Nowiński
+ */
+public class OrderStatisticTree<E> {
+    private final Comparator<? super E> comparator;
+    private Node<E> root;
+    private long seed = 0x2545F4914F6CDD1DL;
+
+    /**
+     * Konstruktor przyjmujacy
+     *
+     * @param comparator porzadek elementow; elementy rowne wg komparatora sa traktowane jako ten sam element
+     */
+    public OrderStatisticTree(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * @param element dodawany element
+     * @return true, jesli element zostal dodany (false, jesli rowny element juz istnieje)
+     */
+    public boolean add(E element) {
+        if (contains(element)) {
+            return false;
+        }
+        Node<E>[] parts = split(root, element, false);
+        root = merge(merge(parts[0], new Node<>(element, nextPriority())), parts[1]);
+        return true;
+    }
+
+    /**
+     * @param element usuwany element
+     * @return true, jesli element zostal usunięty
+     */
+    public boolean remove(E element) {
+        if (!contains(element)) {
+            return false;
+        }
+        Node<E>[] lower = split(root, element, false);
+        Node<E>[] upper = split(lower[1], element, true);
+        root = merge(lower[0], upper[1]);
+        return true;
+    }
+
+    /**
+     * @param element szukany element
+     * @return true, jesli drzewo zawiera rowny element
+     */
+    public boolean contains(E element) {
+        Node<E> node = root;
+        while (node != null) {
+            int comparison = comparator.compare(element, node.value);
+            if (comparison == 0) {
+                return true;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * @param element element
+     * @return liczba elementow mniejszych od podanego, tzn. pozycja elementu (liczona od 0), jesli nalezy on do drzewa
+     */
+    public int rank(E element) {
+        int rank = 0;
+        Node<E> node = root;
+        while (node != null) {
+            int comparison = comparator.compare(element, node.value);
+            if (comparison < 0) {
+                node = node.left;
+            } else if (comparison > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * @param index pozycja elementu (liczona od 0)
+     * @return element na podanej pozycji
+     * @throws IndexOutOfBoundsException jesli pozycja jest spoza drzewa
+     */
+    public E get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("OrderStatisticTree: pozycja " + index + ", rozmiar " + size());
+        }
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * @param from  pozycja pierwszego elementu (liczona od 0)
+     * @param count maksymalna liczba elementow
+     * @return kolejne elementy od podanej pozycji, w porzadku drzewa
+     */
+    public List<E> range(int from, int count) {
+        from = Math.max(0, from);
+        List<E> result = new ArrayList<>(Math.max(0, Math.min(count, size() - from)));
+        Deque<Node<E>> path = new ArrayDeque<>();
+        Node<E> node = root;
+        int index = from;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                path.push(node);
+                node = node.left;
+            } else if (index == leftSize) {
+                path.push(node);
+                break;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        while (!path.isEmpty() && result.size() < count) {
+            Node<E> current = path.pop();
+            result.add(current.value);
+            for (Node<E> next = current.right; next != null; next = next.left) {
+                path.push(next);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Dzieli drzewo na elementy mniejsze od podanego i pozostale (inclusive = false) lub na elementy
+     * mniejsze lub rowne podanemu i pozostale (inclusive = true).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Node<E>[] split(Node<E> node, E element, boolean inclusive) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        int comparison = comparator.compare(node.value, element);
+        if (comparison < 0 || (inclusive && comparison == 0)) {
+            Node<E>[] parts = split(node.right, element, inclusive);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        }
+        Node<E>[] parts = split(node.left, element, inclusive);
+        node.left = parts[1];
+        node.update();
+        parts[1] = node;
+        return parts;
+    }
+
+    /**
+     * Laczy dwa drzewa, z ktorych wszystkie elementy pierwszego sa mniejsze od elementow drugiego.
+     */
+    private Node<E> merge(Node<E> lower, Node<E> upper) {
+        if (lower == null) {
+            return upper;
+        }
+        if (upper == null) {
+            return lower;
+        }
+        if (lower.priority > upper.priority) {
+            lower.right = merge(lower.right, upper);
+            lower.update();
+            return lower;
+        }
+        upper.left = merge(lower, upper.left);
+        upper.update();
+        return upper;
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (seed >>> 32);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node<E> {
+        private final E value;
+        private final int priority;
+        private int size = 1;
+        private Node<E> left;
+        private Node<E> right;
+
+        private Node(E value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+
+        private void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.pw.quizwhizz.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ograniczony zbior ostatnio odnotowanych identyfikatorow (np. id zamkniętych gier), pozwalajacy odbiorcom zdarzen
+ * pominac zdarzenie dostarczone ponownie. Po przekroczeniu pojemnosci usuwane sa najstarsze identyfikatory.
+ * Bezpieczny dla wielu watkow.
+ *
+ * @author Michał Nowiński
+ */
+public class RecentIdSet {
+    private final Set<Long> ids;
+
+    /**
+     * Konstruktor przyjmujacy
+     *
+     * @param capacity maksymalna liczbę pamiętanych identyfikatorow
+     */
+    public RecentIdSet(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("RecentIdSet: pojemnosc musi byc dodatnia");
+        }
+        this.ids = Collections.newSetFromMap(new LinkedHashMap<Long, Boolean>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * @param id identyfikator
+     * @return true, jesli identyfikator nie byl dotad odnotowany (i zostal dodany)
+     */
+    public synchronized boolean add(long id) {
+        return ids.add(id);
+    }
+
+    public synchronized boolean contains(long id) {
+        return ids.contains(id);
+    }
+
+    public synchronized void clear() {
+        ids.clear();
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+}
@@ -52,3 +52,6 @@ INSERT INTO `player_in_game` VALUES (1,1,1),(1,2,0),(2,1,1),(3,2,1),(4,1,1),(4,2
 INSERT INTO `question_in_game` VALUES (1,108,8),(1,116,0),(1,123,1),(1,124,7),(1,131,9),(1,133,5),(1,136,6),(1,144,3),(1,145,2),(1,161,4),(2,174,9),(2,181,6),(2,201,4),(2,213,2),(2,236,5),(2,238,3),(2,244,1),(2,248,8),(2,249,0),(2,264,7),(3,168,5),(3,174,9),(3,175,4),(3,196,3),(3,208,6),(3,225,7),(3,234,0),(3,244,2),(3,257,8),(3,260,1),(4,114,0),(4,123,2),(4,125,4),(4,128,9),(4,142,6),(4,148,5),(4,152,1),(4,162,7),(4,163,8),(4,164,3),(5,108,1),(5,125,2),(5,126,9),(5,135,8),(5,136,5),(5,140,7),(5,150,4),(5,152,0),(5,153,6),(5,155,3),(6,289,6),(6,293,9),(6,294,7),(6,296,2),(6,298,3),(6,299,8),(6,301,0),(6,306,1),(6,307,4),(6,308,5),(7,310,2),(7,312,3),(7,313,9),(7,315,7),(7,316,8),(7,318,5),(7,320,1),(7,325,4),(7,326,6),(7,327,0),(8,1,8),(8,3,9),(8,16,3),(8,24,0),(8,28,7),(8,37,6),(8,47,5),(8,81,4),(8,92,2),(8,104,1),(9,7,0),(9,17,7),(9,26,1),(9,29,5),(9,38,2),(9,41,6),(9,43,9),(9,65,8),(9,69,3),(9,78,4),(10,269,5),(10,273,4),(10,275,6),(10,277,0),(10,279,1),(10,281,2),(10,282,3),(10,284,8),(10,285,7),(10,286,9),(11,170,4),(11,176,7),(11,180,6),(11,185,3),(11,199,2),(11,209,5),(11,230,0),(11,231,1),(11,238,8),(11,268,9),(12,166,3),(12,188,8),(12,200,2),(12,212,0),(12,217,7),(12,220,1),(12,231,5),(12,238,6),(12,255,4),(12,261,9),(13,309,6),(13,310,4),(13,311,2),(13,312,9),(13,316,5),(13,318,7),(13,321,1),(13,324,3),(13,326,0),(13,327,8),(14,1,2),(14,12,1),(14,26,9),(14,33,7),(14,53,6),(14,56,4),(14,58,3),(14,65,5),(14,95,8),(14,99,0),(15,310,0),(15,312,3),(15,314,5),(15,316,6),(15,317,1),(15,320,7),(15,321,2),(15,326,8),(15,327,4),(15,328,9),(16,309,0),(16,311,4),(16,315,8),(16,316,6),(16,317,9),(16,322,3),(16,324,1),(16,325,2),(16,326,5),(16,328,7);
 
 INSERT INTO `score` VALUES (1,1,0,20),(1,2,1,70),(2,1,0,20),(3,2,0,10),(4,1,1,40),(4,2,0,10),(5,1,0,10),(5,2,1,20),(6,2,0,10),(7,1,0,20),(8,1,0,10),(8,2,1,40),(9,1,1,30),(9,2,0,10),(10,1,1,30),(10,2,0,20),(11,2,0,40),(12,1,0,10),(13,5,0,20),(13,6,1,30),(14,5,0,20),(14,6,1,30),(15,5,0,40),(16,6,0,20);
+
+-- wartosci generatora id (optymalizator pooled, increment_size = 50): kolejne id zaczynaja się od next_val - 49
+INSERT INTO `id_generator` (`sequence_name`, `next_val`) VALUES ('answer',1362),('question',378),('game',66);
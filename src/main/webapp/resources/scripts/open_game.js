@@ -1,21 +1,35 @@
 /**
  * Skrypty odpowiedzialne za wyswietlanie listy obecnych graczy,
- * sprawdzanie, czy gra juz się rozpoczela oraz przekierowanie na stronę rozpoczętej gry
+ * sprawdzanie, czy gra juz się rozpoczela oraz przekierowanie na stronę rozpoczętej gry.
+ * Zmiany w poczekalni odbierane sa ze strumienia zdarzen serwera (Server-Sent Events);
+ * przegladarki bez obslugi EventSource odpytuja serwer co sekundę.
  * @author Karolina Prusaczyk
  */
 
 
 $(document).ready(function () {
     var gameId = $('#game-id').text();
+    const joinStartedUrl = "/game/" + gameId + "/joinStarted";
 
-    setInterval(function () {
-        isGameStarted();
-        getGamePlayers();
-    }, 1000);
+    if (window.EventSource) {
+        const lobby = new EventSource(window.location.origin + "/game/" + gameId + "/lobby");
+
+        lobby.addEventListener("players", function (event) {
+            showGamePlayers(JSON.parse(event.data));
+        });
+        lobby.addEventListener("started", function () {
+            lobby.close();
+            window.location.href = joinStartedUrl;
+        });
+    } else {
+        setInterval(function () {
+            isGameStarted();
+            getGamePlayers();
+        }, 1000);
+    }
 
     function isGameStarted() {
         const isStartedUrl = window.location.origin + "/game/" + gameId + "/isStarted";
-        const joinStartedUrl = "/game/" + gameId + "/joinStarted";
 
         $.get(isStartedUrl, function (responseData) {
 
@@ -28,15 +42,15 @@ $(document).ready(function () {
     function getGamePlayers() {
         const getPlayersUrl = window.location.origin + "/game/" + gameId + "/getNamesOfPlayers";
 
-        $.get(getPlayersUrl, function (responseData) {
+        $.get(getPlayersUrl, showGamePlayers);
+    }
 
-            var playerList = $('#players-container');
-            playerList.empty();
-            for (let player of responseData) {
-                let playerListItem = $('<li class="list-inline-item label label-success player-name"></li>').text(player.name);
-                playerList.append(playerListItem);
-            }
-            ;
-        });
+    function showGamePlayers(players) {
+        var playerList = $('#players-container');
+        playerList.empty();
+        for (let player of players) {
+            let playerListItem = $('<li class="list-inline-item label label-success player-name"></li>').text(player.name);
+            playerList.append(playerListItem);
+        }
     }
-});
\ No newline at end of file
+});
@@ -1,7 +1,8 @@
 /**
- * Skrypty wywolujace metodę sprawdzajaca, czy gra się skonczyla,
+ * Skrypty wywolujace metodę oczekujaca na zakonczenie gry,
  * w celu uzyskania wynikow; odpowiedzialna za przekierowanie na stronę z wynikami,
- * kiedy sa one dostępne.
+ * kiedy sa one dostępne. Serwer zawiesza zapytanie do momentu zamknięcia gry,
+ * a odpowiedz z wartoscia false oznacza jedynie koniecznosc ponowienia zapytania.
  * @author Karolina Prusaczyk
  */
 
@@ -9,19 +10,20 @@
 $(document).ready(function () {
     var gameId = $('#game-id').text();
 
-    setInterval(function () {
-        isGameClosed();
-    }, 2000);
+    awaitGameClosed();
 
-    function isGameClosed() {
-        const isClosedUrl = window.location.origin + "/game/" + gameId + "/isClosed";
+    function awaitGameClosed() {
+        const awaitClosedUrl = window.location.origin + "/game/" + gameId + "/awaitClosed";
         const checkScoresUrl = "/game/" + gameId + "/checkScores";
 
-        $.get(isClosedUrl, function (responseData) {
-            console.log("Checking if the game is closed");
+        $.get(awaitClosedUrl, function (responseData) {
             if (responseData.isClosed === true) {
                 window.location.href = checkScoresUrl;
+            } else {
+                awaitGameClosed();
             }
+        }).fail(function () {
+            setTimeout(awaitGameClosed, 2000);
         });
     }
-});
\ No newline at end of file
+});
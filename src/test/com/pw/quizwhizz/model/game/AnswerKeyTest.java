@@ -0,0 +1,112 @@
+package com.pw.quizwhizz.model.game;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Klasa testująca klucz odpowiedzi gry.
+ *
+ * @author Karolina Prusaczyk
+ * @see AnswerKey
+ */
+public class AnswerKeyTest {
+    private List<Question> questions;
+    private AnswerKey answerKey;
+
+    /**
+     * Inicjalizacja 10 pytan po 4 odpowiedzi; odpowiedz o id 100 * (nr pytania) + 1 jest poprawna.
+     */
+    @Before
+    public void setUp() {
+        questions = new ArrayList<>();
+        for (int q = 1; q <= 10; q++) {
+            List<Answer> answers = new ArrayList<>();
+            for (int a = 1; a <= 4; a++) {
+                Answer answer = new Answer("odpowiedz " + a, a == 1);
+                answer.setId(100L * q + a);
+                answers.add(answer);
+            }
+            Question question = new Question();
+            question.setId(q);
+            question.setAnswers(answers);
+            questions.add(question);
+        }
+        answerKey = new AnswerKey(questions);
+    }
+
+    /**
+     * Test weryfikujacy, ze klucz zawiera wszystkie odpowiedzi gry wraz z informacja o ich poprawnosci.
+     */
+    @Test
+    public void givenQuestionsOfGame_WhenKeyIsBuilt_ThenAllAnswersAreKnown() {
+        assertThat(answerKey.size()).isEqualTo(40);
+        assertThat(answerKey.contains(101)).isTrue();
+        assertThat(answerKey.contains(1004)).isTrue();
+        assertThat(answerKey.isCorrect(501)).isTrue();
+        assertThat(answerKey.isCorrect(502)).isFalse();
+        assertThat(answerKey.contains(105)).isFalse();
+        assertThat(answerKey.isCorrect(9999)).isFalse();
+    }
+
+    /**
+     * Test weryfikujacy, ze zwracane sa instancje odpowiedzi z pytan gry, w kolejnosci wyslania.
+     */
+    @Test
+    public void givenAnswerIds_WhenResolved_ThenAnswersOfGameAreReturned() {
+        List<Answer> resolved = answerKey.resolve(Arrays.asList(201L, 302L, 1001L));
+
+        assertThat(resolved).containsExactly(
+                questions.get(1).getAnswers().get(0),
+                questions.get(2).getAnswers().get(1),
+                questions.get(9).getAnswers().get(0));
+    }
+
+    /**
+     * Test weryfikujacy odrzucenie odpowiedzi spoza gry oraz wielokrotnych odpowiedzi na to samo pytanie.
+     */
+    @Test
+    public void givenForeignAndDuplicateAnswerIds_WhenResolved_ThenOnlyFirstAnswerPerQuestionIsAccepted() {
+        List<Answer> resolved = answerKey.resolve(Arrays.asList(101L, 101L, 102L, 77L, null, 203L, 201L));
+
+        assertThat(resolved).extracting(Answer::getId).containsExactly(101L, 203L);
+    }
+
+    /**
+     * Test weryfikujacy, ze gracz nie moze zdobyc więcej punktow niz liczba pytan pomnozona przez 10,
+     * nawet po wyslaniu wszystkich poprawnych odpowiedzi wielokrotnie.
+     */
+    @Test
+    public void givenRepeatedCorrectAnswers_WhenScoreIsEvaluated_ThenEachQuestionCountsOnce() {
+        List<Long> answerIds = new ArrayList<>();
+        for (int repeat = 0; repeat < 3; repeat++) {
+            for (int q = 1; q <= 10; q++) {
+                answerIds.add(100L * q + 1);
+            }
+        }
+        Game game = new Game();
+        Player player = new Player("gracz", game);
+        Score score = new Score(player);
+
+        score.evaluateAnswers(answerKey.resolve(answerIds));
+
+        assertThat(score.getPoints()).isEqualTo(100);
+    }
+
+    /**
+     * Test weryfikujacy dzialanie klucza dla gry bez odpowiedzi.
+     */
+    @Test
+    public void givenNoQuestions_WhenResolved_ThenNothingIsAccepted() {
+        AnswerKey emptyKey = new AnswerKey(Collections.emptyList());
+
+        assertThat(emptyKey.resolve(Arrays.asList(1L, 2L))).isEmpty();
+        assertThat(emptyKey.size()).isEqualTo(0);
+    }
+}
@@ -1,10 +1,12 @@
 package com.pw.quizwhizz.model.game;
 
 import com.pw.quizwhizz.entity.game.CategoryEntity;
+import com.pw.quizwhizz.model.dto.KeysetPage;
 import com.pw.quizwhizz.model.game.Answer;
 import com.pw.quizwhizz.model.game.Category;
 import com.pw.quizwhizz.model.game.Question;
 import com.pw.quizwhizz.service.QuestionService;
+import com.pw.quizwhizz.util.BloomFilter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -21,16 +23,41 @@ public class QuestionServiceHardcoded implements QuestionService {
     private Random random = new Random();
     private Category category = new Category("Category1");
 
+    @Override
+    public KeysetPage<Question> findPageByCategoryId(long categoryId, Long after, int pageSize) {
+        return null;
+    }
+
+    @Override
+    public List<Question> searchQuestions(String query, int limit) {
+        return null;
+    }
+
     @Override
     public List<Question> getQuestionsForNewGame(long categoryId) {
         return null;
     }
 
+    @Override
+    public List<Question> getQuestionsForNewGame(long categoryId, BloomFilter seenQuestions) {
+        return null;
+    }
+
+    @Override
+    public List<Question> getRandomQuestionsByCategoryId(long categoryId, int number, BloomFilter seenQuestions) {
+        return getRandomQuestionsByCategoryId(categoryId, number);
+    }
+
     @Override
     public List<Question> findAllByCategoryId(long categoryId) {
         return null;
     }
 
+    @Override
+    public List<Question> findAllByGameId(long gameId) {
+        return null;
+    }
+
     /**
      * Algorytm losujacy pytania do gry, zapewniajacy ich niepowtarzalnosc w zestawie.
      * @param categoryId kategoria losowanych pytan
@@ -0,0 +1,94 @@
+package com.pw.quizwhizz.repository.game;
+
+import com.pw.quizwhizz.entity.game.AnswerEntity;
+import com.pw.quizwhizz.entity.game.CategoryEntity;
+import com.pw.quizwhizz.entity.game.QuestionEntity;
+import com.pw.quizwhizz.entity.game.QuestionInGameEntity;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.jpa.repository.Query;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Klasa testujaca zapytania repozytorium pytan wykorzystywane przy odtwarzaniu gry. Zapytania JPQL z adnotacji
+ * {@link Query} tlumaczone sa przez Hibernate na SQL dla dialektu MySQL (bez polaczenia z baza danych), co pozwala
+ * sprawdzic, ile zapytan SQL wykona repozytorium i jakie tabele zostana w nich zlaczone.
+ *
+ * @author Karolina Prusaczyk
+ * @see QuestionRepository
+ */
+public class QuestionRepositoryTest {
+    private static SessionFactoryImplementor sessionFactory;
+
+    @BeforeClass
+    public static void setUpClass() {
+        sessionFactory = (SessionFactoryImplementor) new MetadataSources(new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect")
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", "false")
+                .applySetting("hibernate.cache.use_second_level_cache", "false")
+                .build())
+                .addAnnotatedClass(QuestionEntity.class)
+                .addAnnotatedClass(AnswerEntity.class)
+                .addAnnotatedClass(CategoryEntity.class)
+                .addAnnotatedClass(QuestionInGameEntity.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Test weryfikujacy, ze pytania wraz z kategoria i odpowiedziami pobierane sa jednym zapytaniem SQL (fetch join),
+     * a nie osobnym zapytaniem o kategorię i odpowiedzi kazdego pytania.
+     *
+     * @throws NoSuchMethodException
+     */
+    @Test
+    public void whenQuestionsWithAnswersAreQueried_ThenCategoryAndAnswersAreFetchedInOneStatement() throws NoSuchMethodException {
+        QueryTranslator translator = translate(QuestionRepository.class.getMethod("findAllWithAnswersByIdIn", List.class));
+
+        assertThat(translator.collectSqlStrings()).hasSize(1);
+        assertThat(translator.containsCollectionFetches()).isTrue();
+        assertThat(translator.getSQLString())
+                .contains("inner join category")
+                .contains("left outer join answer")
+                .contains(".answer as ")
+                .contains(".category_name as ");
+    }
+
+    /**
+     * Test weryfikujacy, ze id pytan gry pobierane sa jednym zapytaniem bez tworzenia encji pytan.
+     *
+     * @throws NoSuchMethodException
+     */
+    @Test
+    public void whenQuestionIdsOfGameAreQueried_ThenOnlyIdsAreSelectedInSequenceOrder() throws NoSuchMethodException {
+        QueryTranslator translator = translate(QuestionRepository.class.getMethod("findIdsInGameOrderBySequence", long.class));
+
+        assertThat(translator.collectSqlStrings()).hasSize(1);
+        assertThat(translator.getReturnTypes()).hasSize(1);
+        assertThat(translator.getSQLString()).doesNotContain("join").contains("order by");
+    }
+
+    private QueryTranslator translate(Method repositoryMethod) {
+        String jpql = repositoryMethod.getAnnotation(Query.class).value();
+        QueryTranslator translator = new ASTQueryTranslatorFactory()
+                .createQueryTranslator(jpql, jpql, Collections.emptyMap(), sessionFactory, null);
+        translator.compile(Collections.emptyMap(), false);
+        return translator;
+    }
+}
@@ -0,0 +1,86 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.entity.game.CategoryEntity;
+import com.pw.quizwhizz.model.game.Category;
+import com.pw.quizwhizz.repository.game.CategoryRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca pamięc podręczna kategorii.
+ *
+ * @author Michał Nowiński
+ * @see CategoryCache
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CategoryCacheTest {
+    @Mock
+    private CategoryRepository categoryRepository;
+    private CategoryCache categoryCache;
+
+    @Before
+    public void setUp() {
+        when(categoryRepository.findAll()).thenReturn(Arrays.asList(givenCategoryEntity(1L, "Historia"), givenCategoryEntity(2L, "Sport")));
+        categoryCache = new CategoryCache(categoryRepository);
+        categoryCache.load();
+    }
+
+    @Test
+    public void whenCategoryIsReadRepeatedly_ThenSharedInstanceIsReturnedWithoutQueries() {
+        Category first = categoryCache.findById(1L);
+        Category second = categoryCache.findById(1L);
+
+        assertThat(second).isSameAs(first);
+        assertThat(categoryCache.findByName("Sport").getId()).isEqualTo(2L);
+        assertThat(categoryCache.findAll()).hasSize(2);
+        assertThat(categoryCache.getHits()).isEqualTo(4);
+        assertThat(categoryCache.getMisses()).isEqualTo(1);
+        assertThat(categoryCache.getPuts()).isEqualTo(2);
+        verify(categoryRepository, times(1)).findAll();
+        verify(categoryRepository, never()).findOne(anyLong());
+    }
+
+    @Test
+    public void whenCacheIsInvalidated_ThenCategoriesAreReloaded() {
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(givenCategoryEntity(1L, "Dzieje")));
+
+        categoryCache.invalidate();
+
+        assertThat(categoryCache.findById(1L).getName()).isEqualTo("Dzieje");
+        assertThat(categoryCache.findById(2L)).isNull();
+        verify(categoryRepository, times(3)).findAll();
+    }
+
+    @Test
+    public void whenUnknownCategoriesAreRead_ThenCategoriesAreReloadedOnceUntilInvalidation() {
+        assertThat(categoryCache.findById(7L)).isNull();
+        assertThat(categoryCache.findById(8L)).isNull();
+        assertThat(categoryCache.findByName("Brak")).isNull();
+        assertThat(categoryCache.findById(1L).getName()).isEqualTo("Historia");
+        verify(categoryRepository, times(2)).findAll();
+        assertThat(categoryCache.getMisses()).isEqualTo(2);
+        assertThat(categoryCache.getHits()).isEqualTo(3);
+
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(givenCategoryEntity(7L, "Nowa")));
+        categoryCache.invalidate();
+
+        assertThat(categoryCache.findById(7L).getName()).isEqualTo("Nowa");
+        verify(categoryRepository, times(3)).findAll();
+    }
+
+    private CategoryEntity givenCategoryEntity(long id, String name) {
+        CategoryEntity categoryEntity = new CategoryEntity();
+        categoryEntity.setId(id);
+        categoryEntity.setName(name);
+        return categoryEntity;
+    }
+}
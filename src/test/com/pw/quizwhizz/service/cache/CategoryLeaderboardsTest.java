@@ -0,0 +1,160 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.dto.FinalScore;
+import com.pw.quizwhizz.model.dto.Ranking;
+import com.pw.quizwhizz.repository.impl.RankingRepository;
+import com.pw.quizwhizz.service.game.GameClosedEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca rankingi kategorii przechowywane w pamięci.
+ *
+ * @author Michał Nowiński
+ * @see CategoryLeaderboards
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CategoryLeaderboardsTest {
+    private static final long CATEGORY_ID = 1L;
+    private static final Instant START_TIME = Instant.parse("2018-03-15T12:00:00Z");
+    @Mock
+    private RankingRepository rankingRepository;
+    private CategoryLeaderboards categoryLeaderboards;
+
+    @Before
+    public void setUp() {
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            BiConsumer<Long, Ranking> consumer = (BiConsumer<Long, Ranking>) invocation.getArguments()[0];
+            consumer.accept(CATEGORY_ID, givenRanking(1L, 3, 90));
+            consumer.accept(CATEGORY_ID, givenRanking(2L, 2, 120));
+            consumer.accept(2L, givenRanking(1L, 1, 50));
+            return null;
+        }).when(rankingRepository).forEachCategoryRank(any());
+        categoryLeaderboards = new CategoryLeaderboards(rankingRepository);
+        categoryLeaderboards.load();
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void whenTopPlayersAreRead_ThenEachCategoryIsOrderedByPointsWithoutQueries() {
+        assertThat(categoryLeaderboards.findTop(CATEGORY_ID, 5)).extracting(Ranking::getUserID).containsExactly(2L, 1L);
+        assertThat(categoryLeaderboards.findTop(2L, 5)).extracting(Ranking::getAllPoints).containsExactly(50);
+        assertThat(categoryLeaderboards.findTop(3L, 5)).isEmpty();
+        verify(rankingRepository, never()).findByCategory(anyInt(), anyLong());
+    }
+
+    @Test
+    public void whenGameIsClosed_ThenScoresAreAddedToCategoryRanking() {
+        when(rankingRepository.findGeneralRankByUserId(3L)).thenReturn(givenRanking(3L, 1, 30));
+
+        categoryLeaderboards.onGameClosed(new GameClosedEvent(this, 10L, CATEGORY_ID, START_TIME, Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 40, true, 200),
+                new FinalScore(3L, "Gracz 3", 30, false, 30),
+                new FinalScore(4L, "Gracz 4", 0, false, 0))));
+
+        assertThat(categoryLeaderboards.findTop(CATEGORY_ID, 5)).extracting(Ranking::getUserID).containsExactly(1L, 2L, 3L);
+        Ranking first = categoryLeaderboards.findTop(CATEGORY_ID, 1).get(0);
+        assertThat(first.getAllPoints()).isEqualTo(130);
+        assertThat(first.getGamePlayed()).isEqualTo(4);
+        assertThat(categoryLeaderboards.findTop(CATEGORY_ID, 5).get(2).getPlayerImageUrl()).isEqualTo("/img/3.png");
+    }
+
+    @Test
+    public void givenFirstGameOfPlayer_WhenGameIsClosed_ThenMembershipIsDecidedByCommittedXp() {
+        when(rankingRepository.findGeneralRankByUserId(3L)).thenReturn(givenRanking(3L, 1, 30));
+        when(rankingRepository.findGeneralRankByUserId(4L)).thenReturn(givenRanking(4L, 1, 0));
+
+        categoryLeaderboards.onGameClosed(new GameClosedEvent(this, 10L, CATEGORY_ID, START_TIME, Arrays.asList(
+                new FinalScore(3L, "Gracz 3", 30, true, 0),
+                new FinalScore(4L, "Gracz 4", 0, false, 0))));
+
+        assertThat(categoryLeaderboards.findPosition(CATEGORY_ID, 3L)).isEqualTo(3);
+        assertThat(categoryLeaderboards.findPosition(CATEGORY_ID, 4L)).isEqualTo(0);
+    }
+
+    @Test
+    public void whenGameIsClosedTwice_ThenScoresAreAddedOnce() {
+        when(rankingRepository.findGeneralRankByUserId(3L)).thenReturn(givenRanking(3L, 1, 30));
+        GameClosedEvent event = new GameClosedEvent(this, 10L, CATEGORY_ID, START_TIME, Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 40, true, 200),
+                new FinalScore(3L, "Gracz 3", 30, false, 30)));
+
+        categoryLeaderboards.onGameClosed(event);
+        categoryLeaderboards.onGameClosed(event);
+
+        Ranking first = categoryLeaderboards.findTop(CATEGORY_ID, 1).get(0);
+        assertThat(first.getAllPoints()).isEqualTo(130);
+        assertThat(first.getGamePlayed()).isEqualTo(4);
+        assertThat(categoryLeaderboards.findPosition(CATEGORY_ID, 3L)).isEqualTo(3);
+        verify(rankingRepository, times(1)).findGeneralRankByUserId(anyLong());
+    }
+
+    @Test
+    public void givenTransaction_WhenGameClosureIsRolledBack_ThenRankingIsUnchangedAndGameCanBeCountedAgain() {
+        GameClosedEvent event = new GameClosedEvent(this, 10L, CATEGORY_ID, START_TIME, Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 40, true, 200)));
+        TransactionSynchronizationManager.initSynchronization();
+
+        categoryLeaderboards.onGameClosed(event);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        assertThat(categoryLeaderboards.findTop(CATEGORY_ID, 1).get(0).getAllPoints()).isEqualTo(120);
+
+        TransactionSynchronizationManager.initSynchronization();
+        categoryLeaderboards.onGameClosed(event);
+        assertThat(categoryLeaderboards.findTop(CATEGORY_ID, 1).get(0).getAllPoints()).isEqualTo(120);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(categoryLeaderboards.findTop(CATEGORY_ID, 1).get(0).getAllPoints()).isEqualTo(130);
+    }
+
+    @Test
+    public void whenPlayerIsRemovedOrRenamed_ThenAllCategoryRankingsAreUpdated() {
+        categoryLeaderboards.updateProfile(2L, "Nowe imie", "/img/nowy.png");
+        categoryLeaderboards.remove(1L);
+
+        assertThat(categoryLeaderboards.findTop(CATEGORY_ID, 5)).extracting(Ranking::getPlayerName).containsExactly("Nowe imie");
+        assertThat(categoryLeaderboards.findTop(2L, 5)).isEmpty();
+    }
+
+    @Test
+    public void whenPositionsAreRead_ThenPlayerRankInEachCategoryIsReturned() {
+        assertThat(categoryLeaderboards.findPosition(CATEGORY_ID, 1L)).isEqualTo(2);
+        assertThat(categoryLeaderboards.findPosition(3L, 1L)).isEqualTo(0);
+        assertThat(categoryLeaderboards.findPositions(1L)).containsEntry(CATEGORY_ID, 2).containsEntry(2L, 1).hasSize(2);
+        assertThat(categoryLeaderboards.findAround(CATEGORY_ID, 1L, 1)).extracting(Ranking::getPosition).containsExactly(1, 2);
+    }
+
+    private Ranking givenRanking(long userId, int games, int points) {
+        Ranking ranking = new Ranking();
+        ranking.setUserID(userId);
+        ranking.setPlayerName("Gracz " + userId);
+        ranking.setPlayerImageUrl("/img/" + userId + ".png");
+        ranking.setGamePlayed(games);
+        ranking.setAllPoints(points);
+        return ranking;
+    }
+}
@@ -0,0 +1,94 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.dto.Ranking;
+import com.pw.quizwhizz.repository.impl.RankingRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca ranking generalny przechowywany w pamięci.
+ *
+ * @author Michał Nowiński
+ * @see GeneralLeaderboard
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class GeneralLeaderboardTest {
+    @Mock
+    private RankingRepository rankingRepository;
+    private GeneralLeaderboard generalLeaderboard;
+
+    @Before
+    public void setUp() {
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Consumer<Ranking> consumer = (Consumer<Ranking>) invocation.getArguments()[0];
+            Arrays.asList(givenRanking(1L, 100), givenRanking(2L, 300), givenRanking(3L, 200)).forEach(consumer);
+            return null;
+        }).when(rankingRepository).forEachGeneralRank(any());
+        generalLeaderboard = new GeneralLeaderboard(rankingRepository);
+        generalLeaderboard.load();
+    }
+
+    @Test
+    public void whenTopPlayersAreRead_ThenTheyAreOrderedByXpWithoutQueries() {
+        assertThat(generalLeaderboard.findTop(2)).extracting(Ranking::getUserID).containsExactly(2L, 3L);
+        assertThat(generalLeaderboard.findTop(10)).extracting(Ranking::getUserID).containsExactly(2L, 3L, 1L);
+        verify(rankingRepository, never()).findGeneralRank(anyInt());
+    }
+
+    @Test
+    public void whenXpChanges_ThenPlayerIsMovedToNewPosition() {
+        generalLeaderboard.addGameResult(1L, "Gracz 1", 150);
+        generalLeaderboard.addXp(3L, 150);
+
+        assertThat(generalLeaderboard.findTop(3)).extracting(Ranking::getUserID).containsExactly(3L, 2L, 1L);
+        assertThat(generalLeaderboard.findTop(3)).extracting(Ranking::getAllPoints).containsExactly(350, 300, 250);
+        assertThat(generalLeaderboard.findTop(3).get(2).getPlayerImageUrl()).isEqualTo("/img/1.png");
+        assertThat(generalLeaderboard.findTop(3).get(2).getGamePlayed()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenNewPlayerGainsXpAndAnotherIsRemoved_ThenRankingIsUpdated() {
+        when(rankingRepository.findGeneralRankByUserId(4L)).thenReturn(givenRanking(4L, 150));
+
+        generalLeaderboard.addGameResult(4L, "Gracz 4", 150);
+        generalLeaderboard.remove(2L);
+
+        assertThat(generalLeaderboard.findTop(10)).extracting(Ranking::getUserID).containsExactly(3L, 4L, 1L);
+        assertThat(generalLeaderboard.findTop(10).get(1).getPlayerImageUrl()).isEqualTo("/img/4.png");
+        assertThat(generalLeaderboard.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void whenPositionIsRead_ThenRankAndSurroundingPlayersAreReturned() {
+        assertThat(generalLeaderboard.findPosition(2L)).isEqualTo(1);
+        assertThat(generalLeaderboard.findPosition(1L)).isEqualTo(3);
+        assertThat(generalLeaderboard.findPosition(5L)).isEqualTo(0);
+
+        assertThat(generalLeaderboard.findAround(3L, 1)).extracting(Ranking::getUserID).containsExactly(2L, 3L, 1L);
+        assertThat(generalLeaderboard.findAround(3L, 1)).extracting(Ranking::getPosition).containsExactly(1, 2, 3);
+        assertThat(generalLeaderboard.findAround(2L, 1)).extracting(Ranking::getUserID).containsExactly(2L, 3L);
+        assertThat(generalLeaderboard.findAround(5L, 1)).isEmpty();
+    }
+
+    private Ranking givenRanking(long userId, int xp) {
+        Ranking ranking = new Ranking();
+        ranking.setUserID(userId);
+        ranking.setPlayerName("Gracz " + userId);
+        ranking.setPlayerImageUrl("/img/" + userId + ".png");
+        ranking.setAllPoints(xp);
+        ranking.setGamePlayed(1);
+        return ranking;
+    }
+}
@@ -0,0 +1,165 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.dto.FinalScore;
+import com.pw.quizwhizz.model.dto.Ranking;
+import com.pw.quizwhizz.model.dto.RankingPeriod;
+import com.pw.quizwhizz.repository.impl.RankingRepository;
+import com.pw.quizwhizz.service.game.GameClosedEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca rankingi z ostatnich dni przechowywane w pamięci.
+ *
+ * @author Michał Nowiński
+ * @see PeriodLeaderboards
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PeriodLeaderboardsTest {
+    private static final LocalDate TODAY = LocalDate.of(2018, 3, 15);
+    @Mock
+    private RankingRepository rankingRepository;
+    @Mock
+    private Clock clock;
+    private PeriodLeaderboards periodLeaderboards;
+
+    @Before
+    public void setUp() {
+        givenToday(TODAY);
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            BiConsumer<LocalDate, Ranking> consumer = (BiConsumer<LocalDate, Ranking>) invocation.getArguments()[2];
+            consumer.accept(TODAY, givenRanking(1L, 1, 40));
+            consumer.accept(TODAY.minusDays(3), givenRanking(2L, 2, 100));
+            consumer.accept(TODAY.minusDays(20), givenRanking(3L, 4, 300));
+            return null;
+        }).when(rankingRepository).forEachDailyRank(eq(startOf(TODAY.minusDays(29))), eq(PeriodLeaderboards.ZONE), any());
+        periodLeaderboards = new PeriodLeaderboards(rankingRepository, clock);
+        periodLeaderboards.load();
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void whenRankingsAreRead_ThenOnlyGamesFromPeriodAreCounted() {
+        assertThat(periodLeaderboards.findTop(RankingPeriod.DAY, 10)).extracting(Ranking::getUserID).containsExactly(1L);
+        assertThat(periodLeaderboards.findTop(RankingPeriod.WEEK, 10)).extracting(Ranking::getUserID).containsExactly(2L, 1L);
+        assertThat(periodLeaderboards.findTop(RankingPeriod.MONTH, 10)).extracting(Ranking::getUserID).containsExactly(3L, 2L, 1L);
+        assertThat(periodLeaderboards.findTop(RankingPeriod.ALL, 10)).isEmpty();
+    }
+
+    @Test
+    public void whenGameIsClosed_ThenScoresAreAddedToAllPeriods() {
+        periodLeaderboards.onGameClosed(new GameClosedEvent(this, 10L, 1L, startOf(TODAY), Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 80, true, 200), new FinalScore(4L, "Gracz 4", 0, false, 0))));
+
+        assertThat(periodLeaderboards.findTop(RankingPeriod.DAY, 10)).extracting(Ranking::getAllPoints).containsExactly(120);
+        assertThat(periodLeaderboards.findTop(RankingPeriod.WEEK, 10)).extracting(Ranking::getUserID).containsExactly(1L, 2L);
+        assertThat(periodLeaderboards.findTop(RankingPeriod.WEEK, 10).get(0).getGamePlayed()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenGameStartedYesterdayIsClosed_ThenScoresAreAddedToDayOfStart() {
+        periodLeaderboards.onGameClosed(new GameClosedEvent(this, 10L, 1L, startOf(TODAY).minusSeconds(60), Arrays.asList(
+                new FinalScore(2L, "Gracz 2", 80, true, 200))));
+        periodLeaderboards.onGameClosed(new GameClosedEvent(this, 11L, 1L, startOf(TODAY.minusDays(40)), Arrays.asList(
+                new FinalScore(2L, "Gracz 2", 500, true, 700))));
+
+        assertThat(periodLeaderboards.findTop(RankingPeriod.DAY, 10)).extracting(Ranking::getUserID).containsExactly(1L);
+        assertThat(periodLeaderboards.findTop(RankingPeriod.WEEK, 10)).extracting(Ranking::getAllPoints).containsExactly(180, 40);
+        assertThat(periodLeaderboards.findTop(RankingPeriod.MONTH, 10)).extracting(Ranking::getAllPoints).containsExactly(300, 180, 40);
+    }
+
+    @Test
+    public void givenFirstGameOfPlayer_WhenGameIsClosed_ThenMembershipIsDecidedByCommittedXp() {
+        when(rankingRepository.findGeneralRankByUserId(4L)).thenReturn(givenRanking(4L, 1, 50));
+        when(rankingRepository.findGeneralRankByUserId(5L)).thenReturn(givenRanking(5L, 1, 0));
+
+        periodLeaderboards.onGameClosed(new GameClosedEvent(this, 10L, 1L, startOf(TODAY), Arrays.asList(
+                new FinalScore(4L, "Gracz 4", 50, true, 0), new FinalScore(5L, "Gracz 5", 0, false, 0))));
+        periodLeaderboards.onGameClosed(new GameClosedEvent(this, 11L, 1L, startOf(TODAY), Arrays.asList(
+                new FinalScore(4L, "Gracz 4", 10, true, 50))));
+
+        assertThat(periodLeaderboards.findTop(RankingPeriod.DAY, 10)).extracting(Ranking::getUserID).containsExactly(4L, 1L);
+        assertThat(periodLeaderboards.findTop(RankingPeriod.DAY, 10).get(0).getAllPoints()).isEqualTo(60);
+        verify(rankingRepository, times(1)).findGeneralRankByUserId(4L);
+    }
+
+    @Test
+    public void whenGameIsClosedTwice_ThenScoresAreAddedOnce() {
+        GameClosedEvent event = new GameClosedEvent(this, 10L, 1L, startOf(TODAY), Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 80, true, 200)));
+
+        periodLeaderboards.onGameClosed(event);
+        periodLeaderboards.onGameClosed(event);
+
+        assertThat(periodLeaderboards.findTop(RankingPeriod.DAY, 10)).extracting(Ranking::getAllPoints).containsExactly(120);
+        assertThat(periodLeaderboards.findTop(RankingPeriod.DAY, 10).get(0).getGamePlayed()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenTransaction_WhenGameClosureIsRolledBack_ThenRankingsAreUnchanged() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        periodLeaderboards.onGameClosed(new GameClosedEvent(this, 10L, 1L, startOf(TODAY), Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 80, true, 200))));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(periodLeaderboards.findTop(RankingPeriod.DAY, 10)).extracting(Ranking::getAllPoints).containsExactly(40);
+    }
+
+    @Test
+    public void whenDaysPass_ThenExpiredBucketsAreRemovedFromRankings() {
+        givenToday(TODAY.plusDays(3));
+        assertThat(periodLeaderboards.findTop(RankingPeriod.DAY, 10)).isEmpty();
+        assertThat(periodLeaderboards.findTop(RankingPeriod.WEEK, 10)).extracting(Ranking::getUserID).containsExactly(2L, 1L);
+
+        givenToday(TODAY.plusDays(9));
+        assertThat(periodLeaderboards.findTop(RankingPeriod.WEEK, 10)).isEmpty();
+        assertThat(periodLeaderboards.findTop(RankingPeriod.MONTH, 10)).extracting(Ranking::getUserID).containsExactly(3L, 2L, 1L);
+
+        givenToday(TODAY.plusDays(27));
+        assertThat(periodLeaderboards.findTop(RankingPeriod.MONTH, 10)).extracting(Ranking::getUserID).containsExactly(1L);
+        verify(rankingRepository, times(1)).forEachDailyRank(any(), any(), any());
+    }
+
+    private void givenToday(LocalDate day) {
+        when(clock.instant()).thenReturn(day.atTime(12, 0).atZone(PeriodLeaderboards.ZONE).toInstant());
+    }
+
+    private Instant startOf(LocalDate day) {
+        return day.atStartOfDay(PeriodLeaderboards.ZONE).toInstant();
+    }
+
+    private Ranking givenRanking(long userId, int games, int points) {
+        Ranking ranking = new Ranking();
+        ranking.setUserID(userId);
+        ranking.setPlayerName("Gracz " + userId);
+        ranking.setGamePlayed(games);
+        ranking.setAllPoints(points);
+        return ranking;
+    }
+}
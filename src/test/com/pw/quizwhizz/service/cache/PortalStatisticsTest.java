@@ -0,0 +1,172 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.dto.FinalScore;
+import com.pw.quizwhizz.model.dto.GameScoreRow;
+import com.pw.quizwhizz.model.dto.StatisticCounter;
+import com.pw.quizwhizz.model.dto.Statistics;
+import com.pw.quizwhizz.model.game.Category;
+import com.pw.quizwhizz.repository.impl.StatisticsRepository;
+import com.pw.quizwhizz.service.game.GameClosedEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca statystyki portalu przechowywane w pamięci.
+ *
+ * @author Michał Nowiński
+ * @see PortalStatistics
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PortalStatisticsTest {
+    private static final Instant START_TIME = Instant.parse("2018-03-15T12:00:00Z");
+    @Mock
+    private StatisticsRepository statisticsRepository;
+    @Mock
+    private CategoryCache categoryCache;
+    private PortalStatistics portalStatistics;
+
+    @Before
+    public void setUp() {
+        when(statisticsRepository.findSnapshot()).thenReturn(Arrays.asList(
+                new StatisticCounter(PortalStatistics.GAMES, 0, 3),
+                new StatisticCounter(PortalStatistics.MULTIPLAYER_GAMES, 0, 1),
+                new StatisticCounter(PortalStatistics.CATEGORY_GAMES, 1, 2),
+                new StatisticCounter(PortalStatistics.CATEGORY_GAMES, 2, 1),
+                new StatisticCounter(PortalStatistics.SCORES, 50, 2),
+                new StatisticCounter(PortalStatistics.SCORES, 30, 2)));
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Consumer<GameScoreRow> consumer = (Consumer<GameScoreRow>) invocation.getArguments()[0];
+            Arrays.asList(new GameScoreRow(11L, 2L, 70), new GameScoreRow(11L, 2L, 50),
+                    new GameScoreRow(12L, 2L, 20)).forEach(consumer);
+            return null;
+        }).when(statisticsRepository).forEachUncountedScore(any());
+        when(categoryCache.findById(1L)).thenReturn(givenCategory(1L, "Geografia"));
+        when(categoryCache.findById(2L)).thenReturn(givenCategory(2L, "Biologia"));
+
+        portalStatistics = new PortalStatistics(statisticsRepository, categoryCache);
+        portalStatistics.load();
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void whenStatisticsAreLoaded_ThenUncountedClosedGamesAreAddedToSnapshot() {
+        Statistics statistics = portalStatistics.findStatistic();
+
+        assertThat(statistics.getNumberGames()).isEqualTo(5);
+        assertThat(statistics.getNumberMPGames()).isEqualTo(2);
+        assertThat(statistics.getMostPopularCategory()).isEqualTo("Biologia");
+        assertThat(statistics.getMostPopularScore()).isEqualTo(50);
+        assertThat(portalStatistics.findStatistic()).isSameAs(statistics);
+    }
+
+    @Test
+    public void whenGameIsClosed_ThenCountersAreUpdatedWithoutQueries() {
+        portalStatistics.findStatistic();
+        portalStatistics.onGameClosed(new GameClosedEvent(this, 13L, 1L, START_TIME, Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 30, true, 100))));
+        portalStatistics.onGameClosed(new GameClosedEvent(this, 14L, 1L, START_TIME, Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 30, true, 130))));
+
+        Statistics statistics = portalStatistics.findStatistic();
+        assertThat(statistics.getNumberGames()).isEqualTo(7);
+        assertThat(statistics.getNumberMPGames()).isEqualTo(2);
+        assertThat(statistics.getMostPopularCategory()).isEqualTo("Geografia");
+        assertThat(statistics.getMostPopularScore()).isEqualTo(30);
+        verify(statisticsRepository, times(1)).findSnapshot();
+        verify(statisticsRepository, times(1)).forEachUncountedScore(any());
+    }
+
+    @Test
+    public void whenGameIsClosedTwice_ThenItIsCountedOnce() {
+        GameClosedEvent event = new GameClosedEvent(this, 13L, 1L, START_TIME, Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 30, true, 100), new FinalScore(2L, "Gracz 2", 10, false, 50)));
+        portalStatistics.onGameClosed(event);
+        portalStatistics.onGameClosed(event);
+        portalStatistics.onGameClosed(new GameClosedEvent(this, 11L, 2L, START_TIME, Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 70, true, 100))));
+
+        assertThat(portalStatistics.findStatistic().getNumberGames()).isEqualTo(6);
+        assertThat(portalStatistics.findStatistic().getNumberMPGames()).isEqualTo(3);
+    }
+
+    @Test
+    public void whenCountersChanged_ThenSnapshotIsSavedOnceWithCountedGames() {
+        portalStatistics.onGameClosed(new GameClosedEvent(this, 13L, 1L, START_TIME, Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 30, true, 100))));
+
+        portalStatistics.save();
+        portalStatistics.save();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StatisticCounter>> counters = ArgumentCaptor.forClass((Class) List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> gameIds = ArgumentCaptor.forClass((Class) List.class);
+        verify(statisticsRepository, times(1)).saveSnapshot(counters.capture(), gameIds.capture());
+        assertThat(counters.getValue()).contains(
+                new StatisticCounter(PortalStatistics.GAMES, 0, 6),
+                new StatisticCounter(PortalStatistics.CATEGORY_GAMES, 2, 3),
+                new StatisticCounter(PortalStatistics.SCORES, 30, 3));
+        assertThat(gameIds.getValue()).containsExactly(11L, 12L, 13L);
+    }
+
+    @Test
+    public void givenTransaction_WhenGameClosureIsRolledBack_ThenGameIsNeitherCountedNorSaved() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        portalStatistics.onGameClosed(new GameClosedEvent(this, 13L, 1L, START_TIME, Arrays.asList(
+                new FinalScore(1L, "Gracz 1", 30, true, 100))));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        portalStatistics.save();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> gameIds = ArgumentCaptor.forClass((Class) List.class);
+        verify(statisticsRepository, times(1)).saveSnapshot(any(), gameIds.capture());
+        assertThat(gameIds.getValue()).containsExactly(11L, 12L);
+        assertThat(portalStatistics.findStatistic().getNumberGames()).isEqualTo(5);
+    }
+
+    @Test
+    public void whenSnapshotCannotBeSaved_ThenGamesAreSavedWithNextSnapshot() {
+        doThrow(new IllegalStateException()).doNothing().when(statisticsRepository).saveSnapshot(any(), any());
+
+        portalStatistics.save();
+        portalStatistics.save();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> gameIds = ArgumentCaptor.forClass((Class) List.class);
+        verify(statisticsRepository, times(2)).saveSnapshot(any(), gameIds.capture());
+        assertThat(gameIds.getAllValues().get(1)).containsExactly(11L, 12L);
+    }
+
+    private Category givenCategory(long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+}
@@ -0,0 +1,138 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.entity.game.AnswerEntity;
+import com.pw.quizwhizz.entity.game.CategoryEntity;
+import com.pw.quizwhizz.entity.game.QuestionEntity;
+import com.pw.quizwhizz.model.game.Category;
+import com.pw.quizwhizz.model.game.Question;
+import com.pw.quizwhizz.repository.game.QuestionRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca pamięc podręczna pytan.
+ *
+ * @author Michał Nowiński
+ * @see QuestionBank
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class QuestionBankTest {
+    @Mock
+    private QuestionRepository questionRepository;
+    @Mock
+    private CategoryCache categoryCache;
+    private Category category = new Category("Historia");
+
+    @Before
+    public void setUp() {
+        category.setId(1L);
+        when(categoryCache.findById(1L)).thenReturn(category);
+        when(questionRepository.findAllWithAnswersByIdIn(anyListOf(Long.class))).thenAnswer(invocation -> {
+            List<QuestionEntity> questionEntities = new ArrayList<>();
+            for (Object id : (List<?>) invocation.getArguments()[0]) {
+                questionEntities.add(givenQuestionEntity((Long) id));
+            }
+            return questionEntities;
+        });
+    }
+
+    @Test
+    public void whenQuestionsAreReadTwice_ThenSharedInstancesAreReturnedAndMissingQuestionsAreLoadedOnce() {
+        QuestionBank questionBank = new QuestionBank(questionRepository, categoryCache);
+
+        List<Question> first = questionBank.findAllById(Arrays.asList(3L, 1L, 2L));
+        List<Question> second = questionBank.findAllById(Arrays.asList(2L, 3L, 4L));
+
+        assertThat(first).extracting(Question::getId).containsExactly(3L, 1L, 2L);
+        assertThat(second.get(0)).isSameAs(first.get(2));
+        assertThat(second.get(1)).isSameAs(first.get(0));
+        assertThat(first.get(0).getCategory()).isSameAs(category);
+        verify(questionRepository).findAllWithAnswersByIdIn(Arrays.asList(3L, 1L, 2L));
+        verify(questionRepository).findAllWithAnswersByIdIn(Arrays.asList(4L));
+        assertThat(questionBank.getHits()).isEqualTo(2);
+        assertThat(questionBank.getMisses()).isEqualTo(4);
+        assertThat(questionBank.getPuts()).isEqualTo(4);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void whenAnswersOfSharedQuestionAreModified_ThenExceptionIsThrown() {
+        QuestionBank questionBank = new QuestionBank(questionRepository, categoryCache);
+
+        questionBank.findAllById(Arrays.asList(1L)).get(0).getAnswers().clear();
+    }
+
+    @Test
+    public void givenSmallMemoryBudget_WhenQuestionsAreCached_ThenLeastRecentlyUsedAreEvicted() {
+        QuestionBank questionBank = new QuestionBank(questionRepository, categoryCache);
+        questionBank.findAllById(Arrays.asList(1L));
+        long weightOfQuestion = questionBank.getUsedMemory();
+        questionBank = new QuestionBank(questionRepository, categoryCache, weightOfQuestion * 2);
+
+        questionBank.findAllById(Arrays.asList(1L, 2L));
+        questionBank.findAllById(Arrays.asList(1L));
+        questionBank.findAllById(Arrays.asList(3L));
+        reset(questionRepository);
+        setUp();
+        questionBank.findAllById(Arrays.asList(1L, 3L));
+
+        assertThat(questionBank.size()).isEqualTo(2);
+        verify(questionRepository, never()).findAllWithAnswersByIdIn(anyListOf(Long.class));
+    }
+
+    @Test
+    public void whenQuestionIsInvalidated_ThenItIsLoadedAgain() {
+        QuestionBank questionBank = new QuestionBank(questionRepository, categoryCache);
+        Question before = questionBank.findAllById(Arrays.asList(1L)).get(0);
+
+        questionBank.invalidate(1L);
+        Question after = questionBank.findAllById(Arrays.asList(1L)).get(0);
+
+        assertThat(after).isNotSameAs(before);
+        verify(questionRepository, times(2)).findAllWithAnswersByIdIn(Arrays.asList(1L));
+    }
+
+    @Test
+    public void whenQuestionIsInvalidatedDuringLoad_ThenLoadedQuestionIsNotCached() {
+        QuestionBank questionBank = new QuestionBank(questionRepository, categoryCache);
+        when(questionRepository.findAllWithAnswersByIdIn(Arrays.asList(1L))).thenAnswer(invocation -> {
+            questionBank.invalidate(1L);
+            return Arrays.asList(givenQuestionEntity(1L));
+        });
+
+        Question loaded = questionBank.findAllById(Arrays.asList(1L)).get(0);
+
+        assertThat(loaded.getId()).isEqualTo(1L);
+        assertThat(questionBank.size()).isEqualTo(0);
+        assertThat(questionBank.getUsedMemory()).isEqualTo(0);
+    }
+
+    private QuestionEntity givenQuestionEntity(long id) {
+        CategoryEntity categoryEntity = new CategoryEntity();
+        categoryEntity.setId(1L);
+        QuestionEntity questionEntity = new QuestionEntity();
+        questionEntity.setId(id);
+        questionEntity.setCategory(categoryEntity);
+        questionEntity.setQuestion(new String("Pytanie " + id));
+        List<AnswerEntity> answers = new ArrayList<>();
+        for (long i = 1; i <= 4; i++) {
+            AnswerEntity answerEntity = new AnswerEntity();
+            answerEntity.setId(id * 10 + i);
+            answerEntity.setAnswer("Odpowiedz " + i);
+            answerEntity.setCorrect(i == 1);
+            answers.add(answerEntity);
+        }
+        questionEntity.setAnswers(answers);
+        return questionEntity;
+    }
+}
@@ -0,0 +1,148 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.repository.game.QuestionRepository;
+import com.pw.quizwhizz.util.BloomFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca indeks pytan w kategoriach.
+ *
+ * @author Michał Nowiński
+ * @see QuestionIndex
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class QuestionIndexTest {
+    private static final long CATEGORY_ID = 1L;
+    @Mock
+    private QuestionRepository questionRepository;
+    private QuestionIndex questionIndex;
+
+    @Before
+    public void setUp() {
+        questionIndex = new QuestionIndex(questionRepository);
+    }
+
+    @Test
+    public void whenQuestionsAreSampled_ThenIdsAreDistinctAndIndexIsLoadedOnce() {
+        givenCategoryWithQuestions(12);
+
+        for (int i = 0; i < 100; i++) {
+            long[] sample = questionIndex.sample(CATEGORY_ID, 10, new Random(i));
+            Set<Long> distinct = new HashSet<>();
+            for (long id : sample) {
+                assertThat(id).isBetween(1L, 12L);
+                distinct.add(id);
+            }
+            assertThat(distinct).hasSize(10);
+        }
+        verify(questionRepository, times(1)).findIdsByCategoryId(CATEGORY_ID);
+    }
+
+    @Test
+    public void givenTooFewQuestions_WhenQuestionsAreSampled_ThenNullIsReturned() {
+        givenCategoryWithQuestions(9);
+
+        assertThat(questionIndex.sample(CATEGORY_ID, 10, new Random())).isNull();
+    }
+
+    @Test
+    public void whenQuestionsAreAddedAndRemoved_ThenIndexIsUpdatedWithoutReload() {
+        givenCategoryWithQuestions(10);
+        assertThat(questionIndex.count(CATEGORY_ID)).isEqualTo(10);
+
+        questionIndex.add(CATEGORY_ID, 11L);
+        questionIndex.remove(3L);
+        questionIndex.remove(3L);
+
+        assertThat(questionIndex.count(CATEGORY_ID)).isEqualTo(10);
+        for (int i = 0; i < 50; i++) {
+            assertThat(questionIndex.sample(CATEGORY_ID, 10, new Random(i))).doesNotContain(3L).contains(11L);
+        }
+        verify(questionRepository, times(1)).findIdsByCategoryId(CATEGORY_ID);
+    }
+
+    @Test
+    public void givenQuestionAddedDuringLoad_WhenIndexIsRead_ThenStaleIndexIsNotCached() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            ids.add(i);
+        }
+        when(questionRepository.findIdsByCategoryId(CATEGORY_ID)).thenAnswer(invocation -> {
+            questionIndex.add(CATEGORY_ID, 11L);
+            return ids;
+        }).thenReturn(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L));
+
+        assertThat(questionIndex.count(CATEGORY_ID)).isEqualTo(10);
+        assertThat(questionIndex.count(CATEGORY_ID)).isEqualTo(11);
+        assertThat(questionIndex.count(CATEGORY_ID)).isEqualTo(11);
+        verify(questionRepository, times(2)).findIdsByCategoryId(CATEGORY_ID);
+    }
+
+    @Test
+    public void givenSeenQuestions_WhenQuestionsAreSampled_ThenUnseenQuestionsArePreferred() {
+        givenCategoryWithQuestions(15);
+        BloomFilter seen = givenSeenQuestions(5);
+
+        for (int i = 0; i < 50; i++) {
+            long[] sample = questionIndex.sample(CATEGORY_ID, 10, new Random(i), seen);
+            assertThat(sample).containsOnly(6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L, 14L, 15L);
+        }
+    }
+
+    @Test
+    public void givenTooFewUnseenQuestions_WhenQuestionsAreSampled_ThenSampleIsFilledWithSeenQuestions() {
+        givenCategoryWithQuestions(12);
+        BloomFilter seen = givenSeenQuestions(8);
+
+        long[] sample = questionIndex.sample(CATEGORY_ID, 10, new Random(), seen);
+
+        Set<Long> distinct = new HashSet<>();
+        for (long id : sample) {
+            distinct.add(id);
+        }
+        assertThat(distinct).hasSize(10).contains(9L, 10L, 11L, 12L);
+    }
+
+    @Test
+    public void whenPagesOfIdsAreRead_ThenEachPageStartsAfterPreviousCursor() {
+        givenCategoryWithQuestions(10);
+        assertThat(questionIndex.count(CATEGORY_ID)).isEqualTo(10);
+        questionIndex.remove(5L);
+
+        assertThat(questionIndex.idsAfter(CATEGORY_ID, Long.MIN_VALUE, 4)).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(questionIndex.idsAfter(CATEGORY_ID, 4L, 4)).containsExactly(6L, 7L, 8L, 9L);
+        assertThat(questionIndex.idsAfter(CATEGORY_ID, 5L, 4)).containsExactly(6L, 7L, 8L, 9L);
+        assertThat(questionIndex.idsAfter(CATEGORY_ID, 9L, 4)).containsExactly(10L);
+        assertThat(questionIndex.idsAfter(CATEGORY_ID, 10L, 4)).isEmpty();
+    }
+
+    private void givenCategoryWithQuestions(int numberOfQuestions) {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= numberOfQuestions; i++) {
+            ids.add(i);
+        }
+        when(questionRepository.findIdsByCategoryId(CATEGORY_ID)).thenReturn(ids);
+    }
+
+    private BloomFilter givenSeenQuestions(int numberOfQuestions) {
+        BloomFilter seen = new BloomFilter();
+        for (long i = 1; i <= numberOfQuestions; i++) {
+            seen.add(i);
+        }
+        return seen;
+    }
+}
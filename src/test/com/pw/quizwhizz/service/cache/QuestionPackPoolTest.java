@@ -0,0 +1,83 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.exception.IllegalNumberOfQuestionsException;
+import com.pw.quizwhizz.model.game.Answer;
+import com.pw.quizwhizz.model.game.Question;
+import com.pw.quizwhizz.service.QuestionService;
+import com.pw.quizwhizz.service.exception.NoQuestionsInDBException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca pulę gotowych zestawow pytan. Producent uruchamiany jest w watku testu.
+ *
+ * @author Michał Nowiński
+ * @see QuestionPackPool
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class QuestionPackPoolTest {
+    private static final long CATEGORY_ID = 1L;
+    @Mock
+    private QuestionService questionService;
+    private QuestionPackPool questionPackPool;
+
+    @Before
+    public void setUp() throws IllegalNumberOfQuestionsException, NoQuestionsInDBException {
+        questionPackPool = new QuestionPackPool(questionService, new ExecutorServiceAdapter(new SyncTaskExecutor()));
+        when(questionService.getQuestionsForNewGame(CATEGORY_ID)).thenAnswer(invocation -> givenPack());
+    }
+
+    @Test
+    public void whenPackIsTaken_ThenBufferIsRefilledAndNextPackIsServedFromBuffer() throws IllegalNumberOfQuestionsException, NoQuestionsInDBException {
+        List<Question> first = questionPackPool.takePack(CATEGORY_ID);
+        assertThat(first).hasSize(QuestionPackPool.QUESTIONS_IN_PACK);
+        assertThat(questionPackPool.countPacks(CATEGORY_ID)).isEqualTo(QuestionPackPool.PACKS_PER_CATEGORY);
+
+        List<Question> second = questionPackPool.takePack(CATEGORY_ID);
+
+        assertThat(second).isNotSameAs(first).hasSize(QuestionPackPool.QUESTIONS_IN_PACK);
+        verify(questionService, times(1 + QuestionPackPool.PACKS_PER_CATEGORY + 1)).getQuestionsForNewGame(CATEGORY_ID);
+    }
+
+    @Test
+    public void whenQuestionBankChanges_ThenBufferOfCategoryIsCleared() throws IllegalNumberOfQuestionsException, NoQuestionsInDBException {
+        questionPackPool.takePack(CATEGORY_ID);
+
+        questionPackPool.onQuestionBankChanged(new QuestionBankChangedEvent(this, CATEGORY_ID));
+
+        assertThat(questionPackPool.countPacks(CATEGORY_ID)).isZero();
+    }
+
+    @Test
+    public void givenPackWithoutCorrectAnswer_WhenPackIsValidated_ThenPackIsRejected() {
+        List<Question> pack = givenPack();
+        assertThat(QuestionPackPool.isValid(pack)).isTrue();
+
+        pack.get(0).getAnswers().get(0).setCorrect(false);
+
+        assertThat(QuestionPackPool.isValid(pack)).isFalse();
+    }
+
+    private List<Question> givenPack() {
+        List<Question> pack = new ArrayList<>();
+        for (long i = 1; i <= QuestionPackPool.QUESTIONS_IN_PACK; i++) {
+            Question question = new Question();
+            question.setId(i);
+            question.setAnswers(new ArrayList<>(Arrays.asList(new Answer("A", true), new Answer("B", false))));
+            pack.add(question);
+        }
+        return pack;
+    }
+}
@@ -0,0 +1,110 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.model.dto.QuestionBankRow;
+import com.pw.quizwhizz.repository.impl.QuestionExportRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca indeks pelnotekstowy pytan.
+ *
+ * @author Michał Nowiński
+ * @see QuestionSearchIndex
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class QuestionSearchIndexTest {
+    @Mock
+    private QuestionExportRepository questionExportRepository;
+    private QuestionSearchIndex questionSearchIndex;
+
+    @Before
+    public void setUp() {
+        questionSearchIndex = new QuestionSearchIndex(questionExportRepository);
+        List<QuestionBankRow> rows = Arrays.asList(
+                new QuestionBankRow(1, "Biologia", 1, "Ile nóg ma żółw?", 11, "Cztery", true),
+                new QuestionBankRow(1, "Biologia", 1, "Ile nóg ma żółw?", 12, "Dwie", false),
+                new QuestionBankRow(1, "Biologia", 2, "Który ptak nie lata?", 21, "Struś", true),
+                new QuestionBankRow(1, "Biologia", 2, "Który ptak nie lata?", 22, "Żółw", false),
+                new QuestionBankRow(2, "Chemia", 3, "Wzór chemiczny wody to?", 31, "H2O", true));
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Consumer<QuestionBankRow> consumer = (Consumer<QuestionBankRow>) invocation.getArguments()[0];
+            rows.forEach(consumer);
+            return null;
+        }).when(questionExportRepository).forEachRow(any());
+    }
+
+    @Test
+    public void whenTextIsTokenized_ThenPolishCharactersAreNormalized() {
+        assertThat(QuestionSearchIndex.tokenize("Źdźbło, ŻÓŁW i ćma - a?")).containsExactly("zdzblo", "zolw", "cma");
+    }
+
+    @Test
+    public void whenQuestionsAreSearched_ThenMatchesInQuestionRankAboveMatchesInAnswers() {
+        assertThat(questionSearchIndex.search("zolw", 10)).containsExactly(1L, 2L);
+        assertThat(questionSearchIndex.search("wody", 10)).containsExactly(3L);
+        assertThat(questionSearchIndex.search("slon", 10)).isEmpty();
+        verify(questionExportRepository, times(1)).forEachRow(any());
+    }
+
+    @Test
+    public void whenLastWordIsIncomplete_ThenItIsMatchedAsPrefix() {
+        assertThat(questionSearchIndex.search("wzor chem", 10)).containsExactly(3L);
+        assertThat(questionSearchIndex.search("ch", 10)).isEmpty();
+    }
+
+    @Test
+    public void whenQuestionsAreUpdatedAndRemoved_ThenIndexChangesWithoutReload() {
+        questionSearchIndex.search("zolw", 10);
+
+        questionSearchIndex.index(2L, "Który ptak nie lata?", Arrays.asList("Struś", "Wróbel"));
+        questionSearchIndex.index(4L, "Czy żółw jest gadem?", Arrays.asList("Tak", "Nie"));
+        questionSearchIndex.remove(1L);
+
+        assertThat(questionSearchIndex.search("zolw", 10)).containsExactly(4L);
+        assertThat(questionSearchIndex.search("wrobel", 10)).containsExactly(2L);
+        assertThat(questionSearchIndex.size()).isEqualTo(3);
+        verify(questionExportRepository, times(1)).forEachRow(any());
+    }
+
+    @Test
+    public void givenIndexIsLoading_WhenQuestionsAreUpdated_ThenUpdatesAreAppliedAfterLoad() {
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Consumer<QuestionBankRow> consumer = (Consumer<QuestionBankRow>) invocation.getArguments()[0];
+            consumer.accept(new QuestionBankRow(1, "Biologia", 1, "Ile nóg ma żółw?", 11, "Cztery", true));
+            questionSearchIndex.index(5L, "Czy żółw jest gadem?", Arrays.asList("Tak", "Nie"));
+            questionSearchIndex.remove(1L);
+            consumer.accept(new QuestionBankRow(1, "Biologia", 2, "Który ptak nie lata?", 21, "Struś", true));
+            return null;
+        }).when(questionExportRepository).forEachRow(any());
+
+        assertThat(questionSearchIndex.search("zolw", 10)).containsExactly(5L);
+        assertThat(questionSearchIndex.search("ptak", 10)).containsExactly(2L);
+        assertThat(questionSearchIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenIndexIsNotLoaded_WhenQuestionIsUpdated_ThenUpdateIsReadFromDatabaseOnLoad() {
+        questionSearchIndex.index(5L, "Czy żółw jest gadem?", Arrays.asList("Tak", "Nie"));
+
+        assertThat(questionSearchIndex.search("gadem", 10)).isEmpty();
+        assertThat(questionSearchIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void whenResultsExceedLimit_ThenOnlyBestMatchesAreReturned() {
+        assertThat(questionSearchIndex.search("zolw ptak", 1)).containsExactly(2L);
+    }
+}
@@ -0,0 +1,71 @@
+package com.pw.quizwhizz.service.cache;
+
+import com.pw.quizwhizz.repository.impl.UserListRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca licznik uzytkownikow.
+ *
+ * @author Michał Nowiński
+ * @see UserCounter
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class UserCounterTest {
+    @Mock
+    private UserListRepository userListRepository;
+    private UserCounter userCounter;
+
+    @Before
+    public void setUp() {
+        when(userListRepository.count()).thenReturn(10L);
+        userCounter = new UserCounter(userListRepository);
+        userCounter.count();
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void givenTransaction_WhenUserIsRegistered_ThenCountChangesOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        userCounter.increment();
+        assertThat(userCounter.count()).isEqualTo(10);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(userCounter.count()).isEqualTo(11);
+        verify(userListRepository, times(1)).count();
+    }
+
+    @Test
+    public void givenTransaction_WhenRegistrationIsRolledBack_ThenCountIsUnchanged() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        userCounter.increment();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(userCounter.count()).isEqualTo(10);
+    }
+
+    @Test
+    public void withoutTransaction_WhenUserIsRemoved_ThenCountChangesImmediately() {
+        userCounter.decrement();
+
+        assertThat(userCounter.count()).isEqualTo(9);
+    }
+}
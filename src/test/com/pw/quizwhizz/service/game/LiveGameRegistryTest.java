@@ -0,0 +1,73 @@
+package com.pw.quizwhizz.service.game;
+
+import com.pw.quizwhizz.model.game.Game;
+import com.pw.quizwhizz.model.game.GameState;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.Clock;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Klasa testujaca rejestr aktywnych gier.
+ *
+ * @author Karolina Prusaczyk
+ * @see LiveGameRegistry
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LiveGameRegistryTest {
+    private static final long NOW = 1_000_000_000L;
+    @Mock
+    private Clock clock;
+    private LiveGameRegistry liveGameRegistry;
+
+    @Before
+    public void setUp() {
+        when(clock.millis()).thenReturn(NOW);
+        liveGameRegistry = new LiveGameRegistry(clock);
+    }
+
+    @Test
+    public void givenIdleOpenGame_WhenRegistryIsAccessedAfterTtl_ThenOnlyIdleOpenGameIsEvicted() {
+        liveGameRegistry.register(givenLiveGame(1L, GameState.OPEN));
+        liveGameRegistry.register(givenLiveGame(2L, GameState.OPEN));
+        liveGameRegistry.register(givenLiveGame(3L, GameState.STARTED));
+
+        when(clock.millis()).thenReturn(NOW + LiveGameRegistry.IDLE_OPEN_GAME_TTL_IN_MILLIS / 2);
+        liveGameRegistry.find(2L);
+        when(clock.millis()).thenReturn(NOW + LiveGameRegistry.IDLE_OPEN_GAME_TTL_IN_MILLIS + 1);
+        liveGameRegistry.find(3L);
+
+        assertThat(liveGameRegistry.size()).isEqualTo(2);
+        assertThat(liveGameRegistry.find(1L)).isNull();
+        assertThat(liveGameRegistry.find(2L)).isNotNull();
+    }
+
+    @Test
+    public void givenRecentlySweptRegistry_WhenGameBecomesIdle_ThenItIsEvictedAtNextSweep() {
+        liveGameRegistry.register(givenLiveGame(1L, GameState.OPEN));
+
+        when(clock.millis()).thenReturn(NOW + LiveGameRegistry.IDLE_OPEN_GAME_TTL_IN_MILLIS - 1);
+        liveGameRegistry.find(2L);
+        when(clock.millis()).thenReturn(NOW + LiveGameRegistry.IDLE_OPEN_GAME_TTL_IN_MILLIS + 1);
+        liveGameRegistry.find(2L);
+        assertThat(liveGameRegistry.size()).isEqualTo(1);
+
+        when(clock.millis()).thenReturn(NOW + LiveGameRegistry.IDLE_OPEN_GAME_TTL_IN_MILLIS
+                + LiveGameRegistry.SWEEP_INTERVAL_IN_MILLIS);
+        liveGameRegistry.find(2L);
+        assertThat(liveGameRegistry.size()).isEqualTo(0);
+    }
+
+    private LiveGame givenLiveGame(long id, GameState state) {
+        Game game = new Game();
+        game.setId(id);
+        game.getGameStateMachine().setCurrentState(state);
+        return new LiveGame(game);
+    }
+}
@@ -0,0 +1,78 @@
+package com.pw.quizwhizz.service.game;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Klasa testująca licznik wyslanych odpowiedzi.
+ *
+ * @author Karolina Prusaczyk
+ * @see SubmissionTracker
+ */
+public class SubmissionTrackerTest {
+
+    /**
+     * Test weryfikujacy, ze tylko ostatnia brakujaca odpowiedz zamyka zbior, a powtorzenia i nieznani gracze sa pomijani.
+     */
+    @Test
+    public void givenThreePlayers_WhenAllSubmit_ThenOnlyLastSubmissionCompletesTracker() {
+        SubmissionTracker tracker = new SubmissionTracker(Arrays.asList(7L, 3L, 5L));
+
+        assertThat(tracker.markSubmitted(5L)).isFalse();
+        assertThat(tracker.markSubmitted(5L)).isFalse();
+        assertThat(tracker.markSubmitted(42L)).isFalse();
+        assertThat(tracker.markSubmitted(3L)).isFalse();
+        assertThat(tracker.allSubmitted()).isFalse();
+        assertThat(tracker.hasSubmitted(7L)).isFalse();
+
+        assertThat(tracker.markSubmitted(7L)).isTrue();
+        assertThat(tracker.allSubmitted()).isTrue();
+        assertThat(tracker.markSubmitted(7L)).isFalse();
+        assertThat(tracker.isExpected(42L)).isFalse();
+    }
+
+    /**
+     * Test weryfikujacy, ze przy rownoleglym wysylaniu odpowiedzi (rowniez wielokrotnym) zbior zamykany jest dokladnie raz.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void givenConcurrentSubmissions_WhenAllPlayersSubmit_ThenTrackerCompletesExactlyOnce() throws InterruptedException {
+        List<Long> playerIds = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            playerIds.add(id);
+        }
+        SubmissionTracker tracker = new SubmissionTracker(playerIds);
+        AtomicInteger completions = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int repeat = 0; repeat < 3; repeat++) {
+            for (long id : playerIds) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (tracker.markSubmitted(id)) {
+                        completions.incrementAndGet();
+                    }
+                });
+            }
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(completions.get()).isEqualTo(1);
+        assertThat(tracker.countRemaining()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,383 @@
+package com.pw.quizwhizz.service.impl;
+
+import com.pw.quizwhizz.entity.game.*;
+import com.pw.quizwhizz.model.dto.FinalScore;
+import com.pw.quizwhizz.model.account.User;
+import com.pw.quizwhizz.model.exception.IllegalNumberOfQuestionsException;
+import com.pw.quizwhizz.model.exception.IllegalTimeOfAnswerSubmissionException;
+import com.pw.quizwhizz.model.exception.ScoreCannotBeRetrievedBeforeGameIsClosedException;
+import com.pw.quizwhizz.model.game.*;
+import com.pw.quizwhizz.repository.game.*;
+import com.pw.quizwhizz.repository.impl.OpenGameRepository;
+import com.pw.quizwhizz.service.CategoryService;
+import com.pw.quizwhizz.service.QuestionService;
+import com.pw.quizwhizz.service.SeenQuestionService;
+import com.pw.quizwhizz.service.cache.GeneralLeaderboard;
+import com.pw.quizwhizz.service.game.GameClosedEvent;
+import com.pw.quizwhizz.service.game.GameClosureWaiters;
+import com.pw.quizwhizz.service.game.GameDeadlineScheduler;
+import com.pw.quizwhizz.service.game.GameResultCache;
+import com.pw.quizwhizz.service.game.LiveGameRegistry;
+import com.pw.quizwhizz.service.game.LobbyEventChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca odtwarzanie gry z bazy danych w serwisie gry. Liczba wywolan repozytoriow (a tym samym zapytan SQL)
+ * nie moze zalezec od rozmiaru gry.
+ *
+ * @author Karolina Prusaczyk
+ * @see GameServiceImpl#findGameById(Long)
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class GameServiceImplTest {
+    private static final long GAME_ID = 1L;
+    @Mock
+    private GameRepository gameRepository;
+    @Mock
+    private PlayerInGameRepository playerInGameRepository;
+    @Mock
+    private PlayerRepository playerRepository;
+    @Mock
+    private ScoreRepository scoreRepository;
+    @Mock
+    private QuestionInGameRepository questionInGameRepository;
+    @Mock
+    private QuestionService questionService;
+    @Mock
+    private CategoryService categoryService;
+    @Mock
+    private GameEntityBuilder gameEntityBuilder;
+    @Mock
+    private ScoreBuilder scoreBuilder;
+    @Mock
+    private OpenGameRepository openGameRepository;
+    @Mock
+    private LobbyEventChannel lobbyEventChannel;
+    @Mock
+    private GameDeadlineScheduler gameDeadlineScheduler;
+    @Mock
+    private SeenQuestionService seenQuestionService;
+    @Mock
+    private GeneralLeaderboard generalLeaderboard;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private LiveGameRegistry liveGameRegistry;
+    private GameServiceImpl gameService;
+
+    @Before
+    public void setUp() {
+        liveGameRegistry = new LiveGameRegistry();
+        gameService = new GameServiceImpl(gameRepository, playerInGameRepository, playerRepository, scoreRepository,
+                questionInGameRepository, questionService, categoryService, new GameFactory(),
+                gameEntityBuilder, scoreBuilder, liveGameRegistry, openGameRepository,
+                lobbyEventChannel, new GameClosureWaiters(), gameDeadlineScheduler,
+                new GameResultCache(), seenQuestionService, generalLeaderboard, eventPublisher);
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Test weryfikujacy, ze pytania gry pobierane sa jednym wywolaniem serwisu, a gracze jednym zapytaniem do repozytorium.
+     *
+     * @throws IllegalNumberOfQuestionsException
+     */
+    @Test
+    public void whenGameIsHydrated_ThenQuestionsAndPlayersAreFetchedInBulk() throws IllegalNumberOfQuestionsException {
+        givenOpenGameWithPlayers(3);
+
+        Game game = gameService.findGameById(GAME_ID);
+
+        assertThat(game.getQuestions()).hasSize(10);
+        assertThat(game.getPlayers()).hasSize(3);
+        assertThat(game.getPlayers().get(0).isOwner()).isTrue();
+        verify(questionService, times(1)).findAllByGameId(GAME_ID);
+        verify(questionService, never()).findById(anyLong());
+        verify(playerRepository, times(1)).findAll(anyListOf(Long.class));
+        verify(playerRepository, never()).findOne(anyLong());
+    }
+
+    /**
+     * Test weryfikujacy, ze liczba wywolan repozytoriow przy odtwarzaniu gry jest stala, niezaleznie od liczby graczy.
+     *
+     * @throws IllegalNumberOfQuestionsException
+     */
+    @Test
+    public void givenGamesOfDifferentSize_WhenGameIsHydrated_ThenNumberOfRepositoryCallsIsConstant() throws IllegalNumberOfQuestionsException {
+        givenOpenGameWithPlayers(1);
+        gameService.findGameById(GAME_ID);
+        int callsForSmallGame = countRepositoryCalls();
+
+        setUp();
+        reset(gameRepository, playerInGameRepository, playerRepository, scoreRepository, questionService, categoryService);
+        givenOpenGameWithPlayers(6);
+        gameService.findGameById(GAME_ID);
+        int callsForLargeGame = countRepositoryCalls();
+
+        assertThat(callsForLargeGame).isEqualTo(callsForSmallGame);
+    }
+
+    /**
+     * Test weryfikujacy, ze odczyt wynikow zamkniętej gry nie wykonuje zapisow, a kolejne odczyty korzystaja z pamięci podręcznej.
+     *
+     * @throws IllegalNumberOfQuestionsException
+     * @throws ScoreCannotBeRetrievedBeforeGameIsClosedException
+     */
+    @Test
+    public void givenClosedGame_WhenScoresAreCheckedTwice_ThenScoresAreReadOnceAndNothingIsWritten()
+            throws IllegalNumberOfQuestionsException, ScoreCannotBeRetrievedBeforeGameIsClosedException {
+        GameEntity gameEntity = new GameEntity();
+        gameEntity.setId(GAME_ID);
+        gameEntity.setCurrentState(GameState.CLOSED);
+        when(gameRepository.findOne(GAME_ID)).thenReturn(gameEntity);
+        when(scoreRepository.findAllById_GameId(GAME_ID)).thenReturn(Arrays.asList(
+                givenScoreEntity(1L, 30, false), givenScoreEntity(2L, 70, true)));
+        when(playerRepository.findAll(anyListOf(Long.class))).thenReturn(Arrays.asList(
+                givenPlayerEntity(1L, 120), givenPlayerEntity(2L, 400)));
+
+        List<FinalScore> firstVisit = gameService.checkScores(GAME_ID);
+        List<FinalScore> secondVisit = gameService.checkScores(GAME_ID);
+
+        assertThat(secondVisit).isSameAs(firstVisit);
+        assertThat(firstVisit).extracting(FinalScore::getPlayerId).containsExactly(2L, 1L);
+        assertThat(firstVisit.get(0).isHighest()).isTrue();
+        verify(scoreRepository, times(1)).findAllById_GameId(GAME_ID);
+        verify(scoreRepository, never()).save(any(ScoreEntity.class));
+        verify(playerRepository, never()).addXp(anyLong(), anyInt());
+        verify(playerRepository, never()).saveAndFlush(any(PlayerEntity.class));
+    }
+
+    /**
+     * Test weryfikujacy, ze gra zamknięta w transakcji pozostaje w rejestrze do zakonczenia transakcji, wiec rownolegle
+     * zapytanie nie odtworzy jej z bazy danych jako wciaz rozpoczętej.
+     *
+     * @throws IllegalNumberOfQuestionsException
+     */
+    @Test
+    public void givenTransaction_WhenGameIsClosed_ThenGameIsEvictedAfterCompletion() throws IllegalNumberOfQuestionsException {
+        givenOpenGameWithPlayers(1);
+        GameEntity gameEntity = gameRepository.findOne(GAME_ID);
+        gameEntity.setCurrentState(GameState.STARTED);
+        gameEntity.setStartTime(Instant.now().minus(1, ChronoUnit.HOURS));
+        gameService.findGameById(GAME_ID);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(gameService.isGameClosed(GAME_ID)).isTrue();
+            assertThat(liveGameRegistry.find(GAME_ID)).isNotNull();
+            verify(gameDeadlineScheduler, never()).cancel(GAME_ID);
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(liveGameRegistry.find(GAME_ID)).isNull();
+        verify(gameDeadlineScheduler, times(1)).cancel(GAME_ID);
+        verify(eventPublisher, times(1)).publishEvent(any(GameClosedEvent.class));
+    }
+
+    /**
+     * Test weryfikujacy, ze wynik gracza jest doliczany przyrostowo (bez nadpisywania punktow doswiadczenia odczytanych
+     * przy odtwarzaniu gry).
+     *
+     * @throws IllegalNumberOfQuestionsException
+     * @throws IllegalTimeOfAnswerSubmissionException
+     */
+    @Test
+    public void whenAnswersAreSubmitted_ThenPlayerXpIsIncrementedInPlace()
+            throws IllegalNumberOfQuestionsException, IllegalTimeOfAnswerSubmissionException {
+        givenOpenGameWithPlayers(1);
+        GameEntity gameEntity = gameRepository.findOne(GAME_ID);
+        gameEntity.setCurrentState(GameState.STARTED);
+        gameEntity.setStartTime(Instant.now());
+        Game game = gameService.findGameById(GAME_ID);
+        User user = new User();
+        user.setId(1L);
+
+        gameService.submitAnswers(game, user, Collections.emptyList());
+
+        verify(playerRepository, times(1)).addGameResult(1L, 0);
+        verify(playerRepository, never()).saveAndFlush(any(PlayerEntity.class));
+        verify(generalLeaderboard, times(1)).addGameResult(1L, "Gracz 1", 0);
+    }
+
+    /**
+     * Test weryfikujacy, ze wynik wyslany w wycofanej transakcji nie zmienia rankingu generalnego.
+     *
+     * @throws IllegalNumberOfQuestionsException
+     * @throws IllegalTimeOfAnswerSubmissionException
+     */
+    @Test
+    public void givenTransaction_WhenSubmissionIsRolledBack_ThenGeneralLeaderboardIsUnchanged()
+            throws IllegalNumberOfQuestionsException, IllegalTimeOfAnswerSubmissionException {
+        Game game = givenStartedGameWithPlayers(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        gameService.submitAnswers(game, givenUser(1L), Collections.emptyList());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(playerRepository, times(1)).addGameResult(1L, 0);
+        verifyZeroInteractions(generalLeaderboard);
+    }
+
+    /**
+     * Test weryfikujacy, ze po zatwierdzeniu transakcji zamykajacej grę bonus za wygrana trafia do rankingu generalnego
+     * przed wynikiem ostatniego gracza - gracz spoza rankingu jest dodawany z danymi obejmujacymi juz bonus.
+     *
+     * @throws IllegalNumberOfQuestionsException
+     * @throws IllegalTimeOfAnswerSubmissionException
+     */
+    @Test
+    public void givenTransaction_WhenLastAnswersCloseGame_ThenWinnerBonusIsAddedToLeaderboardBeforeScoreAfterCommit()
+            throws IllegalNumberOfQuestionsException, IllegalTimeOfAnswerSubmissionException {
+        Game game = givenStartedGameWithPlayers(2);
+        gameService.submitAnswers(game, givenUser(1L), Collections.emptyList());
+        TransactionSynchronizationManager.initSynchronization();
+
+        gameService.submitAnswers(game, givenUser(2L), Collections.emptyList());
+        verify(generalLeaderboard, never()).addGameResult(2L, "Gracz 2", 0);
+        verify(generalLeaderboard, never()).addXp(anyLong(), anyInt());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        InOrder inOrder = inOrder(generalLeaderboard);
+        inOrder.verify(generalLeaderboard).addXp(2L, GameServiceImpl.WINNER_BONUS_XP);
+        inOrder.verify(generalLeaderboard).addGameResult(2L, "Gracz 2", 0);
+        verify(playerRepository, times(1)).addXp(1L, GameServiceImpl.WINNER_BONUS_XP);
+        verify(playerRepository, times(1)).addXp(2L, GameServiceImpl.WINNER_BONUS_XP);
+    }
+
+    /**
+     * Test weryfikujacy, ze przy starcie aplikacji gry rozpoczęte przed ponownym uruchomieniem sa rejestrowane
+     * wraz z terminami zmiany stanu.
+     */
+    @Test
+    public void givenGameStartedBeforeRestart_WhenServiceStarts_ThenGameDeadlinesAreScheduled() {
+        givenOpenGameWithPlayers(2);
+        GameEntity gameEntity = gameRepository.findOne(GAME_ID);
+        gameEntity.setCurrentState(GameState.STARTED);
+        gameEntity.setStartTime(Instant.now().minus(1, ChronoUnit.HOURS));
+        when(gameRepository.findStartedIdsByCurrentStateIn(Arrays.asList(GameState.STARTED, GameState.EVALUATING_ANSWERS)))
+                .thenReturn(Collections.singletonList(GAME_ID));
+
+        gameService.recoverStartedGames();
+
+        assertThat(liveGameRegistry.find(GAME_ID)).isNotNull();
+        verify(gameDeadlineScheduler, times(2)).schedule(eq(GAME_ID), any(Instant.class), any(Runnable.class));
+    }
+
+    private Game givenStartedGameWithPlayers(int numberOfPlayers) throws IllegalNumberOfQuestionsException {
+        givenOpenGameWithPlayers(numberOfPlayers);
+        GameEntity gameEntity = gameRepository.findOne(GAME_ID);
+        gameEntity.setCurrentState(GameState.STARTED);
+        gameEntity.setStartTime(Instant.now());
+        return gameService.findGameById(GAME_ID);
+    }
+
+    private User givenUser(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private ScoreEntity givenScoreEntity(long userId, int points, boolean isHighest) {
+        ScoreKey key = new ScoreKey();
+        key.setGameId(GAME_ID);
+        key.setUserId(userId);
+        ScoreEntity scoreEntity = new ScoreEntity();
+        scoreEntity.setId(key);
+        scoreEntity.setPoints(points);
+        scoreEntity.setIsHighest(isHighest);
+        return scoreEntity;
+    }
+
+    private PlayerEntity givenPlayerEntity(long id, int xp) {
+        PlayerEntity playerEntity = new PlayerEntity();
+        playerEntity.setId(id);
+        playerEntity.setName("Gracz " + id);
+        playerEntity.setXp(xp);
+        return playerEntity;
+    }
+
+    private int countRepositoryCalls() {
+        int calls = 0;
+        for (Object mock : new Object[]{gameRepository, playerInGameRepository, playerRepository, scoreRepository,
+                questionInGameRepository, questionService, categoryService}) {
+            calls += mockingDetails(mock).getInvocations().size();
+        }
+        return calls;
+    }
+
+    private void givenOpenGameWithPlayers(int numberOfPlayers) {
+        Category category = new Category();
+        category.setId(1L);
+        CategoryEntity categoryEntity = new CategoryEntity();
+        categoryEntity.setId(1L);
+
+        GameEntity gameEntity = new GameEntity();
+        gameEntity.setId(GAME_ID);
+        gameEntity.setCategory(categoryEntity);
+        gameEntity.setCurrentState(GameState.OPEN);
+        when(gameRepository.findOne(GAME_ID)).thenReturn(gameEntity);
+        when(categoryService.findById(1L)).thenReturn(category);
+
+        List<Question> questions = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            Question question = new Question();
+            question.setId(i);
+            question.setCategory(category);
+            questions.add(question);
+        }
+        when(questionService.findAllByGameId(GAME_ID)).thenReturn(questions);
+
+        List<PlayerInGameEntity> playersInGame = new ArrayList<>();
+        List<PlayerEntity> playerEntities = new ArrayList<>();
+        for (long i = numberOfPlayers; i >= 1; i--) {
+            PlayerInGameKey key = new PlayerInGameKey();
+            key.setGameId(GAME_ID);
+            key.setUserId(i);
+            PlayerInGameEntity playerInGame = new PlayerInGameEntity();
+            playerInGame.setId(key);
+            playerInGame.setOwner(i == 1);
+            playersInGame.add(playerInGame);
+
+            PlayerEntity playerEntity = new PlayerEntity();
+            playerEntity.setId(i);
+            playerEntity.setName("Gracz " + i);
+            playerEntities.add(playerEntity);
+        }
+        when(playerInGameRepository.findAllById_GameId(GAME_ID)).thenReturn(playersInGame);
+        when(playerRepository.findAll(anyListOf(Long.class))).thenReturn(playerEntities);
+        when(scoreRepository.findAllById_GameId(GAME_ID)).thenReturn(Collections.emptyList());
+    }
+}
@@ -0,0 +1,87 @@
+package com.pw.quizwhizz.service.impl;
+
+import com.pw.quizwhizz.model.dto.QuestionBankRow;
+import com.pw.quizwhizz.repository.impl.QuestionExportRepository;
+import com.pw.quizwhizz.util.CsvReader;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Klasa testujaca eksport bazy pytan - grupowanie strumienia odpowiedzi w pytania oraz format plikow.
+ *
+ * @author Michał Nowiński
+ * @see QuestionExportServiceImpl
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class QuestionExportServiceImplTest {
+    @Mock
+    private QuestionExportRepository questionExportRepository;
+    private QuestionExportServiceImpl questionExportService;
+
+    @Before
+    public void setUp() {
+        questionExportService = new QuestionExportServiceImpl(questionExportRepository);
+        List<QuestionBankRow> rows = Arrays.asList(
+                new QuestionBankRow(1, "Chemia", 10, "Wzor \"wody\"?", 100, "H2O", true),
+                new QuestionBankRow(1, "Chemia", 10, "Wzor \"wody\"?", 101, "CO2", false),
+                new QuestionBankRow(2, "Historia", 20, "Rok chrztu\nPolski?", 200, "1410", false),
+                new QuestionBankRow(2, "Historia", 20, "Rok chrztu\nPolski?", 201, "966", true));
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Consumer<QuestionBankRow> consumer = (Consumer<QuestionBankRow>) invocation.getArguments()[0];
+            rows.forEach(consumer);
+            return null;
+        }).when(questionExportRepository).forEachRow(any());
+    }
+
+    /**
+     * Test weryfikujacy, ze eksport CSV zawiera jedno pytanie w rekordzie i moze byc odczytany przez import.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void whenBankIsExportedToCsv_ThenEachQuestionIsOneRecordReadableByImport() throws IOException {
+        StringWriter writer = new StringWriter();
+
+        questionExportService.exportCsv(writer);
+
+        CsvReader csvReader = new CsvReader(new StringReader(writer.toString()));
+        assertThat(csvReader.readHeader()).isEqualTo(QuestionExportServiceImpl.CSV_HEADER);
+        assertThat(csvReader.readRecord()).containsExactly("1", "Wzor \"wody\"?", "H2O", "CO2", "1");
+        assertThat(csvReader.readRecord()).containsExactly("2", "Rok chrztu\nPolski?", "1410", "966", "2");
+        assertThat(csvReader.readRecord()).isNull();
+    }
+
+    /**
+     * Test weryfikujacy, ze eksport JSON Lines zapisuje jedno pytanie w wierszu i poprawnie koduje znaki specjalne.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void whenBankIsExportedToJsonLines_ThenEachQuestionIsOneEscapedLine() throws IOException {
+        StringWriter writer = new StringWriter();
+
+        questionExportService.exportJsonLines(writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).isEqualTo("{\"categoryId\":1,\"category\":\"Chemia\",\"questionId\":10," +
+                "\"question\":\"Wzor \\\"wody\\\"?\",\"answers\":[{\"id\":100,\"answer\":\"H2O\",\"correct\":true}," +
+                "{\"id\":101,\"answer\":\"CO2\",\"correct\":false}]}");
+        assertThat(lines[1]).contains("\"question\":\"Rok chrztu\\nPolski?\"");
+    }
+}
@@ -0,0 +1,118 @@
+package com.pw.quizwhizz.service.impl;
+
+import com.pw.quizwhizz.entity.game.QuestionEntity;
+import com.pw.quizwhizz.model.dto.ImportProgress;
+import com.pw.quizwhizz.model.game.Category;
+import com.pw.quizwhizz.repository.game.CategoryRepository;
+import com.pw.quizwhizz.repository.game.QuestionRepository;
+import com.pw.quizwhizz.service.CategoryService;
+import com.pw.quizwhizz.service.cache.QuestionIndex;
+import com.pw.quizwhizz.service.cache.QuestionSearchIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca import pytan z plikow CSV.
+ *
+ * @author Michał Nowiński
+ * @see QuestionImportServiceImpl
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class QuestionImportServiceImplTest {
+    @Mock
+    private QuestionRepository questionRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private CategoryService categoryService;
+    @Mock
+    private QuestionIndex questionIndex;
+    @Mock
+    private QuestionSearchIndex questionSearchIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private QuestionImportServiceImpl questionImportService;
+
+    @Before
+    public void setUp() {
+        Category category = new Category("Historia");
+        category.setId(1L);
+        when(categoryService.findAll()).thenReturn(Collections.singletonList(category));
+        when(questionRepository.save(anyListOf(QuestionEntity.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            List<QuestionEntity> questionEntities = (List<QuestionEntity>) invocation.getArguments()[0];
+            long id = 100;
+            for (QuestionEntity questionEntity : questionEntities) {
+                questionEntity.setId(id++);
+            }
+            return questionEntities;
+        });
+        questionImportService = new QuestionImportServiceImpl(questionRepository, categoryRepository, categoryService,
+                questionIndex, questionSearchIndex, eventPublisher, transactionManager);
+    }
+
+    /**
+     * Test weryfikujacy, ze blad odczytu w srodku pliku nie przerywa importu wyjatkiem - pytania odczytane przed blędem
+     * sa zapisywane, a raport zawiera opis blędu z numerem wiersza.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void givenUnclosedQuoteInFile_WhenQuestionsAreImported_ThenPartialReportWithFailedLineIsReturned() throws IOException {
+        String csv = "kategoria;pytanie;odpowiedz1;odpowiedz2;odpowiedz3;odpowiedz4;poprawna\n" +
+                "1;Rok chrztu Polski?;966;1410;1569;1791;1\n" +
+                "2;Brak kategorii?;a;b;c;d;1\n" +
+                "1;Rok bitwy pod Grunwaldem?;1410;966;1569;1791;1\n" +
+                "1;\"Niezamknięte pytanie?;a;b;c;d;1\n";
+
+        ImportProgress progress = questionImportService.importCsv("pytania.csv",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(progress.getImportedQuestions()).isEqualTo(2);
+        assertThat(progress.getRejectedRows()).isEqualTo(1);
+        assertThat(progress.getFailure()).startsWith("Wiersz 5:");
+        assertThat(progress.isFinished()).isTrue();
+        verify(questionRepository, times(1)).save(anyListOf(QuestionEntity.class));
+        verify(questionIndex).invalidate(1L);
+    }
+
+    /**
+     * Test weryfikujacy, ze przy nieudanym zapisie paczki raport zawiera przyczynę blędu zwrocona przez baze danych.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void givenDatabaseError_WhenBatchIsSaved_ThenRowsAreRejectedWithCauseOfError() throws IOException {
+        when(questionRepository.save(anyListOf(QuestionEntity.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new SQLException("Data too long for column 'question'")));
+        String csv = "kategoria;pytanie;odpowiedz1;odpowiedz2;odpowiedz3;odpowiedz4;poprawna\n" +
+                "1;Rok chrztu Polski?;966;1410;1569;1791;1\n";
+
+        ImportProgress progress = questionImportService.importCsv("pytania.csv",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(progress.getImportedQuestions()).isEqualTo(0);
+        assertThat(progress.getRejectedRows()).isEqualTo(1);
+        assertThat(progress.getErrors()).containsExactly(
+                "Wiersz 2: blad zapisu do bazy danych: Data too long for column 'question'");
+    }
+}
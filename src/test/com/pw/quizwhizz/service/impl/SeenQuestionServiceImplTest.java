@@ -0,0 +1,127 @@
+package com.pw.quizwhizz.service.impl;
+
+import com.pw.quizwhizz.entity.game.SeenQuestionsEntity;
+import com.pw.quizwhizz.repository.game.SeenQuestionsRepository;
+import com.pw.quizwhizz.util.BloomFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.*;
+
+/**
+ * Klasa testujaca serwis pytan widzianych przez graczy.
+ *
+ * @author Karolina Prusaczyk
+ * @see SeenQuestionServiceImpl
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SeenQuestionServiceImplTest {
+    @Mock
+    private SeenQuestionsRepository seenQuestionsRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private SeenQuestionServiceImpl seenQuestionService;
+
+    @Before
+    public void setUp() {
+        seenQuestionService = new SeenQuestionServiceImpl(seenQuestionsRepository, transactionManager);
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void givenTransaction_WhenQuestionsAreMarkedAsSeen_ThenLockedRowsAreUpdatedOnlyAfterCommit() {
+        SeenQuestionsEntity existing = givenSeenQuestions(2L, 5L);
+        when(seenQuestionsRepository.findAllForUpdate(Arrays.asList(1L, 2L))).thenReturn(Collections.singletonList(existing));
+        TransactionSynchronizationManager.initSynchronization();
+
+        seenQuestionService.markAsSeen(Arrays.asList(2L, 1L), Arrays.asList(10L, 100000L));
+        verifyZeroInteractions(seenQuestionsRepository);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        List<SeenQuestionsEntity> saved = captureSaved();
+        assertThat(saved).extracting("userId").containsExactly(1L, 2L);
+        assertThat(BloomFilter.valueOf(saved.get(0).getQuestionBits()).mightContain(10L)).isTrue();
+        assertThat(BloomFilter.valueOf(saved.get(0).getQuestionBits()).mightContain(100000L)).isTrue();
+        assertThat(BloomFilter.valueOf(saved.get(1).getQuestionBits()).mightContain(5L)).isTrue();
+        assertThat(BloomFilter.valueOf(saved.get(1).getQuestionBits()).mightContain(10L)).isTrue();
+        assertThat(saved.get(1).getQuestionBits().length).isLessThanOrEqualTo(BloomFilter.SIZE_IN_BITS / 8);
+    }
+
+    @Test
+    public void givenTransaction_WhenSubmissionIsRolledBack_ThenNothingIsSaved() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        seenQuestionService.markAsSeen(Collections.singletonList(1L), Collections.singletonList(10L));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyZeroInteractions(seenQuestionsRepository);
+    }
+
+    @Test
+    public void givenConcurrentInsertOfNewPlayer_WhenQuestionsAreMarkedAsSeen_ThenUpdateIsRetried() {
+        when(seenQuestionsRepository.findAllForUpdate(anyCollectionOf(Long.class)))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(Collections.singletonList(givenSeenQuestions(1L, 5L)));
+        when(seenQuestionsRepository.save(anyListOf(SeenQuestionsEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"))
+                .thenReturn(null);
+
+        seenQuestionService.markAsSeen(Collections.singletonList(1L), Collections.singletonList(10L));
+
+        verify(seenQuestionsRepository, times(2)).findAllForUpdate(anyCollectionOf(Long.class));
+        List<SeenQuestionsEntity> saved = captureSaved();
+        BloomFilter seen = BloomFilter.valueOf(saved.get(0).getQuestionBits());
+        assertThat(seen.mightContain(5L)).isTrue();
+        assertThat(seen.mightContain(10L)).isTrue();
+    }
+
+    @Test
+    public void givenPersistentConflict_WhenQuestionsAreMarkedAsSeen_ThenFailureIsNotPropagated() {
+        when(seenQuestionsRepository.findAllForUpdate(anyCollectionOf(Long.class))).thenReturn(Collections.emptyList());
+        when(seenQuestionsRepository.save(anyListOf(SeenQuestionsEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        seenQuestionService.markAsSeen(Collections.singletonList(1L), Collections.singletonList(10L));
+
+        verify(seenQuestionsRepository, times(3)).save(anyListOf(SeenQuestionsEntity.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SeenQuestionsEntity> captureSaved() {
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(seenQuestionsRepository, atLeastOnce()).save(captor.capture());
+        return (List<SeenQuestionsEntity>) captor.getValue();
+    }
+
+    private SeenQuestionsEntity givenSeenQuestions(long userId, long questionId) {
+        BloomFilter seen = new BloomFilter();
+        seen.add(questionId);
+        SeenQuestionsEntity seenQuestionsEntity = new SeenQuestionsEntity();
+        seenQuestionsEntity.setUserId(userId);
+        seenQuestionsEntity.setQuestionBits(seen.toByteArray());
+        return seenQuestionsEntity;
+    }
+}
@@ -0,0 +1,58 @@
+package com.pw.quizwhizz.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Klasa testujaca filtr Blooma.
+ *
+ * @author Michał Nowiński
+ * @see BloomFilter
+ */
+public class BloomFilterTest {
+
+    @Test
+    public void whenLargeAndSparseIdsAreAdded_ThenFilterSizeIsBounded() {
+        BloomFilter filter = new BloomFilter();
+        filter.add(1L);
+        filter.add(2_000_000_000L);
+        filter.add(Long.MAX_VALUE);
+
+        assertThat(filter.mightContain(1L)).isTrue();
+        assertThat(filter.mightContain(2_000_000_000L)).isTrue();
+        assertThat(filter.mightContain(Long.MAX_VALUE)).isTrue();
+        assertThat(filter.toByteArray().length).isLessThanOrEqualTo(BloomFilter.SIZE_IN_BITS / 8);
+    }
+
+    @Test
+    public void whenFilterIsWrittenAndRead_ThenSameIdsAreContained() {
+        BloomFilter filter = new BloomFilter();
+        for (long id = 1; id <= 100; id++) {
+            filter.add(id);
+        }
+
+        BloomFilter read = BloomFilter.valueOf(filter.toByteArray());
+
+        for (long id = 1; id <= 100; id++) {
+            assertThat(read.mightContain(id)).isTrue();
+        }
+        assertThat(BloomFilter.valueOf(null).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void givenThousandIds_WhenOtherIdsAreChecked_ThenFalsePositivesAreRare() {
+        BloomFilter filter = new BloomFilter();
+        for (long id = 1; id <= 1000; id++) {
+            filter.add(id);
+        }
+
+        int falsePositives = 0;
+        for (long id = 1001; id <= 11000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(100);
+    }
+}
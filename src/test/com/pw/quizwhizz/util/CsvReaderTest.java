@@ -0,0 +1,48 @@
+package com.pw.quizwhizz.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Klasa testujaca strumieniowy czytnik plikow CSV.
+ *
+ * @author Michał Nowiński
+ * @see CsvReader
+ */
+public class CsvReaderTest {
+
+    @Test
+    public void givenSemicolonSeparatedFile_WhenRecordsAreRead_ThenFieldsAreSplitBySemicolon() throws IOException {
+        CsvReader csvReader = new CsvReader(new StringReader("kategoria;pytanie\r\n1;Ile to 2+2?\r\n\r\n2;Stolica Polski?"));
+
+        assertThat(csvReader.readHeader()).containsExactly("kategoria", "pytanie");
+        assertThat(csvReader.readRecord()).containsExactly("1", "Ile to 2+2?");
+        assertThat(csvReader.getRecordLineNumber()).isEqualTo(2);
+        assertThat(csvReader.readRecord()).containsExactly("2", "Stolica Polski?");
+        assertThat(csvReader.getRecordLineNumber()).isEqualTo(4);
+        assertThat(csvReader.readRecord()).isNull();
+    }
+
+    @Test
+    public void givenQuotedFields_WhenRecordIsRead_ThenQuotesSeparatorsAndNewLinesArePreserved() throws IOException {
+        CsvReader csvReader = new CsvReader(new StringReader("a,b,c\n\"Powiedzenie \"\"C2H5OH\"\"\",\"x, y\",\"linia 1\nlinia 2\"\nz,,\n"));
+        csvReader.readHeader();
+
+        assertThat(csvReader.readRecord()).containsExactly("Powiedzenie \"C2H5OH\"", "x, y", "linia 1\nlinia 2");
+        assertThat(csvReader.readRecord()).containsExactly("z", "", "");
+        assertThat(csvReader.getRecordLineNumber()).isEqualTo(4);
+        assertThat(csvReader.readRecord()).isNull();
+    }
+
+    @Test(expected = IOException.class)
+    public void givenUnterminatedQuote_WhenRecordIsRead_ThenExceptionIsThrown() throws IOException {
+        CsvReader csvReader = new CsvReader(new StringReader("a,b\n\"bez konca,1\n"));
+        csvReader.readHeader();
+
+        csvReader.readRecord();
+    }
+}
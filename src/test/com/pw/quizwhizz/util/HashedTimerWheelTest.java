@@ -0,0 +1,110 @@
+package com.pw.quizwhizz.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Klasa testująca kolo czasowe. Czas jest przesuwany ręcznie, bez uruchamiania watku kola.
+ *
+ * @author Michał Nowiński
+ * @see HashedTimerWheel
+ */
+public class HashedTimerWheelTest {
+    private static final long START = 1_000_000L;
+    private HashedTimerWheel wheel;
+    private List<String> executed;
+
+    @Before
+    public void setUp() {
+        wheel = new HashedTimerWheel(100, 8, () -> START);
+        executed = new ArrayList<>();
+    }
+
+    /**
+     * Test weryfikujacy, ze zadanie nie jest wykonywane przed terminem, a po jego uplywie wykonywane jest raz.
+     */
+    @Test
+    public void givenScheduledTask_WhenDeadlinePasses_ThenTaskIsExecutedOnce() {
+        HashedTimerWheel.Timeout timeout = wheel.schedule(() -> executed.add("a"), START + 350);
+
+        wheel.advanceTo(START + 300);
+        assertThat(executed).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.advanceTo(START + 400);
+        wheel.advanceTo(START + 1000);
+        assertThat(executed).containsExactly("a");
+        assertThat(timeout.isExpired()).isTrue();
+        assertThat(wheel.size()).isEqualTo(0);
+    }
+
+    /**
+     * Test weryfikujacy zadania odlegle o kilka obrotow kola (8 przegrodek po 100 ms).
+     */
+    @Test
+    public void givenDeadlinesBeyondOneRotation_WhenWheelAdvances_ThenTasksAreExecutedInOrder() {
+        wheel.schedule(() -> executed.add("late"), START + 2_550);
+        wheel.schedule(() -> executed.add("early"), START + 150);
+        wheel.schedule(() -> executed.add("middle"), START + 950);
+
+        wheel.advanceTo(START + 900);
+        assertThat(executed).containsExactly("early");
+
+        wheel.advanceTo(START + 2_500);
+        assertThat(executed).containsExactly("early", "middle");
+
+        wheel.advanceTo(START + 2_600);
+        assertThat(executed).containsExactly("early", "middle", "late");
+    }
+
+    /**
+     * Test weryfikujacy, ze anulowane zadanie nie zostanie wykonane, a ponowne anulowanie nie ma efektu.
+     */
+    @Test
+    public void givenCancelledTask_WhenDeadlinePasses_ThenTaskIsNotExecuted() {
+        HashedTimerWheel.Timeout cancelled = wheel.schedule(() -> executed.add("cancelled"), START + 250);
+        wheel.schedule(() -> executed.add("kept"), START + 250);
+        wheel.advanceTo(START + 100);
+
+        assertThat(cancelled.cancel()).isTrue();
+        assertThat(cancelled.cancel()).isFalse();
+        wheel.advanceTo(START + 500);
+
+        assertThat(executed).containsExactly("kept");
+        assertThat(cancelled.isCancelled()).isTrue();
+        assertThat(wheel.size()).isEqualTo(0);
+    }
+
+    /**
+     * Test weryfikujacy, ze zadanie z terminem w przeszlosci zostaje wykonane w najblizszym takcie.
+     */
+    @Test
+    public void givenDeadlineInThePast_WhenWheelAdvances_ThenTaskIsExecutedOnNextTick() {
+        wheel.advanceTo(START + 1_000);
+        wheel.schedule(() -> executed.add("overdue"), START + 200);
+
+        wheel.advanceTo(START + 1_100);
+
+        assertThat(executed).containsExactly("overdue");
+    }
+
+    /**
+     * Test weryfikujacy, ze wyjatek rzucony przez zadanie nie przerywa wykonania pozostalych zadan.
+     */
+    @Test
+    public void givenFailingTask_WhenDeadlinePasses_ThenOtherTasksAreStillExecuted() {
+        wheel.schedule(() -> {
+            throw new IllegalStateException("test");
+        }, START + 50);
+        wheel.schedule(() -> executed.add("b"), START + 50);
+
+        wheel.advanceTo(START + 100);
+
+        assertThat(executed).containsExactly("b");
+    }
+}
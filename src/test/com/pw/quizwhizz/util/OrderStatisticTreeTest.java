@@ -0,0 +1,66 @@
+package com.pw.quizwhizz.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Klasa testujaca drzewo statystyk pozycyjnych. Wyniki porownywane sa z posortowana lista.
+ *
+ * @author Michał Nowiński
+ * @see OrderStatisticTree
+ */
+public class OrderStatisticTreeTest {
+
+    /**
+     * Test weryfikujacy pozycje i zakresy elementow po losowych dodaniach i usunięciach.
+     */
+    @Test
+    public void givenRandomInsertsAndRemovals_WhenTreeIsQueried_ThenItMatchesSortedList() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Collections.reverseOrder());
+        TreeSet<Integer> expected = new TreeSet<>(Collections.reverseOrder());
+        Random random = new Random(7);
+
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                assertThat(tree.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(tree.add(value)).isEqualTo(expected.add(value));
+            }
+        }
+
+        List<Integer> sorted = new ArrayList<>(expected);
+        assertThat(tree.size()).isEqualTo(sorted.size());
+        assertThat(tree.range(0, Integer.MAX_VALUE)).isEqualTo(sorted);
+        for (int i = 0; i < sorted.size(); i++) {
+            assertThat(tree.get(i)).isEqualTo(sorted.get(i));
+            assertThat(tree.rank(sorted.get(i))).isEqualTo(i);
+        }
+        assertThat(tree.range(10, 5)).isEqualTo(sorted.subList(10, 15));
+        assertThat(tree.range(sorted.size() - 2, 5)).isEqualTo(sorted.subList(sorted.size() - 2, sorted.size()));
+        assertThat(tree.range(sorted.size(), 5)).isEmpty();
+    }
+
+    /**
+     * Test weryfikujacy pozycję elementu spoza drzewa - liczbę elementow go poprzedzajacych.
+     */
+    @Test
+    public void givenMissingElement_WhenRankIsRead_ThenNumberOfPrecedingElementsIsReturned() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Integer::compare);
+        for (int value : new int[]{10, 20, 30, 40}) {
+            tree.add(value);
+        }
+
+        assertThat(tree.rank(5)).isEqualTo(0);
+        assertThat(tree.rank(25)).isEqualTo(2);
+        assertThat(tree.rank(45)).isEqualTo(4);
+        assertThat(tree.contains(25)).isFalse();
+    }
+}
@@ -0,0 +1,35 @@
+package com.pw.quizwhizz.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+/**
+ * Klasa testujaca ograniczony zbior ostatnio odnotowanych identyfikatorow.
+ *
+ * @author Michał Nowiński
+ * @see RecentIdSet
+ */
+public class RecentIdSetTest {
+
+    @Test
+    public void whenIdIsAddedTwice_ThenSecondAddIsRejected() {
+        RecentIdSet recentIds = new RecentIdSet(10);
+
+        assertThat(recentIds.add(1L)).isTrue();
+        assertThat(recentIds.add(1L)).isFalse();
+        assertThat(recentIds.contains(1L)).isTrue();
+    }
+
+    @Test
+    public void whenCapacityIsExceeded_ThenOldestIdsAreForgotten() {
+        RecentIdSet recentIds = new RecentIdSet(2);
+        recentIds.add(1L);
+        recentIds.add(2L);
+        recentIds.add(3L);
+
+        assertThat(recentIds.size()).isEqualTo(2);
+        assertThat(recentIds.contains(1L)).isFalse();
+        assertThat(recentIds.contains(3L)).isTrue();
+    }
+}